@@ -7,11 +7,21 @@ echo "Building SVM project..."
 mkdir -p target
 
 # Compile all Java files except MetricsTesting (because i don't have junit deps installed yet oops)
-find svm/src -name "*.java" ! -name "MetricsTesting.java" -type f | xargs javac -d target
+# (the Vector API sources in math/simd are compiled separately below)
+find svm/src -name "*.java" ! -name "MetricsTesting.java" ! -path "*/math/simd/*" -type f | xargs javac -d target
+
+status=$?
+
+# Vector API kernels need JDK 16+; without them VectorOps uses its scalar loops
+JAVA_OPTS=""
+if [ $status -eq 0 ] && javac --add-modules jdk.incubator.vector -cp target -d target svm/src/math/simd/*.java 2>/dev/null; then
+    echo "Vector API kernels enabled."
+    JAVA_OPTS="--add-modules jdk.incubator.vector"
+fi
 
 # Check if compilation was successful
-if [ $? -eq 0 ]; then
-    echo "Compilation complete. Run with: java -cp target SVM"
+if [ $status -eq 0 ]; then
+    echo "Compilation complete. Run with: java $JAVA_OPTS -cp target SVM"
 else
     echo "Compilation failed."
 fi
@@ -0,0 +1,249 @@
+package distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+
+import model.SVMModel;
+
+/**
+ * Coordinator for consensus ADMM training of a linear SVM across worker processes.
+ *
+ * Each worker i holds a data shard and a local weight vector wᵢ; the coordinator holds the
+ * consensus vector z and the scaled dual variables uᵢ. The problem
+ *    min ½·||z||² + C·Σᵢ hingeᵢ(wᵢ)   subject to wᵢ = z
+ * is solved with the rounds (see AdmmWorker for the local step)
+ *    wᵢ ← argmin C·hingeᵢ(w) + ρ/2·||w - z + uᵢ||²
+ *    z  ← ρ·Σᵢ(wᵢ + uᵢ) / (1 + N·ρ)
+ *    uᵢ ← uᵢ + wᵢ - z
+ * Only z - uᵢ and wᵢ are exchanged, one vector each way per worker and round. Training stops
+ * once the primal residual ||w - z|| and the dual residual ρ·||z - z_old|| are both below the
+ * tolerance relative to the size of the iterates.
+ *
+ * Reference: "Distributed Optimization and Statistical Learning via the Alternating Direction
+ * Method of Multipliers" by Stephen Boyd, Neal Parikh, Eric Chu, Borja Peleato and Jonathan
+ * Eckstein (section 8.2).
+ *
+ * Usage: java distributed.AdmmCoordinator port workers C rho
+ */
+public class AdmmCoordinator {
+
+    // Absolute part of the stopping tolerance
+    private static final double ABSOLUTE_TOLERANCE = 1e-4;
+
+    // Regularization parameter
+    private double C;
+
+    // ADMM penalty parameter
+    private double rho;
+
+    // Maximum number of rounds
+    private int maxRounds = 500;
+
+    // Relative stopping tolerance on the residuals
+    private double tolerance = 1e-3;
+
+    // Statistics of the most recent run
+    private int rounds;
+    private long bytesSent;
+    private long bytesReceived;
+
+    /**
+     * Creates a coordinator.
+     *
+     * @param C Regularization parameter
+     * @param rho ADMM penalty parameter (larger values enforce consensus faster; values around
+     *            C times a tenth of the shard size usually need the fewest rounds)
+     */
+    public AdmmCoordinator(double C, double rho) {
+        if (C <= 0 || rho <= 0) {
+            throw new IllegalArgumentException("C and rho must be positive");
+        }
+        this.C = C;
+        this.rho = rho;
+    }
+
+    /**
+     * Accepts the given number of workers on the server socket and trains until convergence.
+     *
+     * @param server Socket the workers connect to
+     * @param workers Number of workers to wait for
+     * @return A linear SVMModel holding the consensus weights and bias
+     * @throws IOException If communication with a worker fails
+     */
+    public SVMModel train(ServerSocket server, int workers) throws IOException {
+        Socket[] sockets = new Socket[workers];
+        DataInputStream[] in = new DataInputStream[workers];
+        DataOutputStream[] out = new DataOutputStream[workers];
+        rounds = 0;
+        bytesSent = 0;
+        bytesReceived = 0;
+
+        try {
+            int d = -1;
+            long totalRows = 0;
+            for (int i = 0; i < workers; i++) {
+                sockets[i] = server.accept();
+                in[i] = new DataInputStream(new BufferedInputStream(sockets[i].getInputStream()));
+                out[i] = new DataOutputStream(new BufferedOutputStream(sockets[i].getOutputStream()));
+
+                int dimension = in[i].readInt();
+                totalRows += in[i].readInt();
+                bytesReceived += 8;
+                if (d != -1 && dimension != d) {
+                    throw new IOException("worker " + i + " has " + dimension + " features, expected " + d);
+                }
+                d = dimension;
+            }
+            System.out.println("ADMM training with " + workers + " workers, " + totalRows + " rows, C=" + C + ", rho=" + rho);
+
+            double[] z = new double[d];
+            double[][] u = new double[workers][d];
+            double[][] w = new double[workers][];
+
+            for (rounds = 1; rounds <= maxRounds; rounds++) {
+                // send v = z - u to every worker first so they all solve at the same time
+                for (int i = 0; i < workers; i++) {
+                    out[i].writeInt(AdmmWorker.ROUND);
+                    out[i].writeDouble(rho);
+                    out[i].writeDouble(C);
+                    for (int f = 0; f < d; f++) {
+                        out[i].writeDouble(z[f] - u[i][f]);
+                    }
+                    out[i].flush();
+                }
+                for (int i = 0; i < workers; i++) {
+                    w[i] = new double[d];
+                    for (int f = 0; f < d; f++) {
+                        w[i][f] = in[i].readDouble();
+                    }
+                    bytesReceived += 8L * d;
+                }
+
+                // consensus and dual updates
+                double[] zOld = z;
+                z = new double[d];
+                for (int i = 0; i < workers; i++) {
+                    for (int f = 0; f < d; f++) {
+                        z[f] += w[i][f] + u[i][f];
+                    }
+                }
+                for (int f = 0; f < d; f++) {
+                    z[f] *= rho / (1 + workers * rho);
+                }
+
+                double primal = 0.0;
+                double wNorm = 0.0;
+                double uNorm = 0.0;
+                for (int i = 0; i < workers; i++) {
+                    for (int f = 0; f < d; f++) {
+                        double r = w[i][f] - z[f];
+                        u[i][f] += r;
+                        primal += r * r;
+                        wNorm += w[i][f] * w[i][f];
+                        uNorm += u[i][f] * u[i][f];
+                    }
+                }
+                double change = 0.0;
+                double zNorm = 0.0;
+                for (int f = 0; f < d; f++) {
+                    change += (z[f] - zOld[f]) * (z[f] - zOld[f]);
+                    zNorm += z[f] * z[f];
+                }
+                primal = Math.sqrt(primal);
+                double dual = rho * Math.sqrt(workers * change);
+
+                double scale = Math.sqrt((double) workers * d) * ABSOLUTE_TOLERANCE;
+                double primalLimit = scale + tolerance * Math.max(Math.sqrt(wNorm), Math.sqrt(workers * zNorm));
+                double dualLimit = scale + tolerance * rho * Math.sqrt(uNorm);
+                if (primal <= primalLimit && dual <= dualLimit) {
+                    System.out.println("ADMM converged after " + rounds + " rounds");
+                    break;
+                }
+            }
+            rounds = Math.min(rounds, maxRounds);
+
+            for (int i = 0; i < workers; i++) {
+                out[i].writeInt(AdmmWorker.STOP);
+                out[i].flush();
+            }
+
+            for (int i = 0; i < workers; i++) {
+                bytesSent += out[i].size();
+            }
+            System.out.println("ADMM communication: " + rounds + " rounds, " + bytesSent + " bytes sent, "
+                               + bytesReceived + " bytes received");
+
+            // the last consensus entry is the bias feature
+            return new SVMModel(Arrays.copyOf(z, d - 1), z[d - 1]);
+        } finally {
+            for (Socket socket : sockets) {
+                if (socket != null) {
+                    socket.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the maximum number of rounds (500 by default).
+     *
+     * @param maxRounds Maximum number of rounds
+     */
+    public void setMaxRounds(int maxRounds) {
+        this.maxRounds = maxRounds;
+    }
+
+    /**
+     * Sets the relative stopping tolerance on the primal and dual residuals (1e-3 by default).
+     *
+     * @param tolerance Relative tolerance
+     */
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Gets the number of rounds of the most recent run.
+     *
+     * @return Rounds until convergence (or the round limit)
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * Gets the number of bytes sent to workers in the most recent run.
+     *
+     * @return Bytes sent
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * Gets the number of bytes received from workers in the most recent run.
+     *
+     * @return Bytes received
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.err.println("Usage: java distributed.AdmmCoordinator port workers C rho");
+            System.exit(1);
+        }
+
+        AdmmCoordinator coordinator = new AdmmCoordinator(Double.parseDouble(args[2]), Double.parseDouble(args[3]));
+        try (ServerSocket server = new ServerSocket(Integer.parseInt(args[0]))) {
+            coordinator.train(server, Integer.parseInt(args[1]));
+        }
+    }
+}
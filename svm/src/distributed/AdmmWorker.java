@@ -0,0 +1,196 @@
+package distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Random;
+
+import processing.CSVReader;
+
+/**
+ * Worker process for consensus ADMM training of a linear SVM.
+ *
+ * The worker loads its own data shard and connects to an AdmmCoordinator. Each round it receives
+ * ρ, C and a target vector v = z - u (consensus weights minus its scaled dual variable), solves
+ * its local sub-problem
+ *    w = argmin C·Σ max(0, 1 - yⱼ·w·xⱼ) + ρ/2·||w - v||²
+ * and sends w back. Only weight-sized vectors cross the wire; the rows never leave the worker.
+ * The bias is an extra feature fixed at 1, as in DualCoordinateDescent.
+ *
+ * The sub-problem is solved with dual coordinate descent on
+ *    w = v + (1/ρ)·Σ αⱼ·yⱼ·xⱼ,   0 ≤ αⱼ ≤ C
+ * keeping the alphas between rounds, so later rounds start close to their solution.
+ *
+ * Usage: java distributed.AdmmWorker host port shard.csv
+ * (the shard is in the dataset.csv format: header, ';' delimiter, label in the last column)
+ */
+public class AdmmWorker {
+
+    // Message types sent by the coordinator
+    static final int ROUND = 1;
+    static final int STOP = 2;
+
+    // Local solver limits per round
+    private static final int MAX_LOCAL_PASSES = 20;
+    private static final double LOCAL_TOLERANCE = 1e-3;
+
+    // Shard rows with the bias feature appended, and their labels
+    private final double[][] X;
+    private final double[] y;
+
+    // Dual variables of the local sub-problem, kept between rounds
+    private final double[] alphas;
+
+    // Σ αⱼ·yⱼ·xⱼ for the current alphas
+    private final double[] sum;
+
+    private final Random random = new Random(42);
+
+    /**
+     * Creates a worker over the given shard.
+     *
+     * @param rows Shard rows (features plus label column)
+     * @param labelColumn Index of the label within each row; labels greater than 0 are +1
+     */
+    public AdmmWorker(double[][] rows, int labelColumn) {
+        int d = rows[0].length;
+        X = new double[rows.length][d];
+        y = new double[rows.length];
+        for (int j = 0; j < rows.length; j++) {
+            for (int c = 0, f = 0; c < d; c++) {
+                if (c != labelColumn) {
+                    X[j][f++] = rows[j][c];
+                }
+            }
+            X[j][d - 1] = 1.0;
+            y[j] = rows[j][labelColumn] > 0 ? 1.0 : -1.0;
+        }
+        alphas = new double[rows.length];
+        sum = new double[d];
+    }
+
+    /**
+     * Connects to the coordinator and answers rounds until told to stop.
+     *
+     * @param host Coordinator host
+     * @param port Coordinator port
+     * @throws IOException If the connection fails
+     */
+    public void run(String host, int port) throws IOException {
+        try (Socket socket = new Socket(host, port)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            // handshake: dimension (including the bias) and shard size
+            int d = sum.length;
+            out.writeInt(d);
+            out.writeInt(y.length);
+            out.flush();
+
+            double[] v = new double[d];
+            int rounds = 0;
+            while (in.readInt() == ROUND) {
+                double rho = in.readDouble();
+                double C = in.readDouble();
+                for (int f = 0; f < d; f++) {
+                    v[f] = in.readDouble();
+                }
+
+                double[] w = solve(v, rho, C);
+                for (int f = 0; f < d; f++) {
+                    out.writeDouble(w[f]);
+                }
+                out.flush();
+                rounds++;
+            }
+            System.out.println("Worker finished after " + rounds + " rounds on " + y.length + " rows");
+        }
+    }
+
+    /**
+     * Solves the local sub-problem for the given target vector.
+     *
+     * @param v Target vector z - u
+     * @param rho ADMM penalty parameter
+     * @param C Regularization parameter
+     * @return The local weight vector
+     */
+    double[] solve(double[] v, double rho, double C) {
+        int n = y.length;
+        int d = v.length;
+
+        double[] w = new double[d];
+        for (int f = 0; f < d; f++) {
+            w[f] = v[f] + sum[f] / rho;
+        }
+
+        int[] order = new int[n];
+        for (int j = 0; j < n; j++) {
+            order[j] = j;
+        }
+
+        for (int pass = 0; pass < MAX_LOCAL_PASSES; pass++) {
+            for (int j = n - 1; j > 0; j--) {
+                int k = random.nextInt(j + 1);
+                int tmp = order[j];
+                order[j] = order[k];
+                order[k] = tmp;
+            }
+
+            double maxViolation = 0.0;
+            for (int j : order) {
+                double[] x = X[j];
+                double output = 0.0;
+                double norm = 0.0;
+                for (int f = 0; f < d; f++) {
+                    output += w[f] * x[f];
+                    norm += x[f] * x[f];
+                }
+                double G = y[j] * output - 1;
+
+                // projected gradient: zero when the bound blocks the step
+                double PG = G;
+                if (alphas[j] == 0) {
+                    PG = Math.min(G, 0);
+                } else if (alphas[j] == C) {
+                    PG = Math.max(G, 0);
+                }
+                maxViolation = Math.max(maxViolation, Math.abs(PG));
+                if (PG == 0) {
+                    continue;
+                }
+
+                double newAlpha = Math.min(Math.max(alphas[j] - G * rho / norm, 0), C);
+                double delta = (newAlpha - alphas[j]) * y[j];
+                alphas[j] = newAlpha;
+                for (int f = 0; f < d; f++) {
+                    sum[f] += delta * x[f];
+                    w[f] += delta * x[f] / rho;
+                }
+            }
+
+            if (maxViolation < LOCAL_TOLERANCE) {
+                break;
+            }
+        }
+
+        return w;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: java distributed.AdmmWorker host port shard.csv");
+            System.exit(1);
+        }
+
+        double[][] rows = CSVReader.readCSV(args[2]);
+        if (rows.length == 0) {
+            System.err.println("Shard " + args[2] + " is empty");
+            System.exit(1);
+        }
+        new AdmmWorker(rows, rows[0].length - 1).run(args[0], Integer.parseInt(args[1]));
+    }
+}
@@ -0,0 +1,63 @@
+package distributed;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.SVMModel;
+
+/**
+ * Local stand-in for a cluster: runs one AdmmWorker JVM per shard file on this machine, using
+ * the current java binary and classpath, and trains with the given coordinator over loopback
+ * sockets.
+ */
+public class LocalCluster {
+
+    // How long to wait for the workers to start and connect
+    private static final int ACCEPT_TIMEOUT_MILLIS = 60000;
+
+    /**
+     * Starts one worker process per shard and trains the coordinator against them.
+     *
+     * @param coordinator Coordinator to train with
+     * @param shardFiles Paths of the shard CSV files (dataset.csv format)
+     * @return The trained model
+     * @throws IOException If a worker cannot be started or fails
+     */
+    public static SVMModel train(AdmmCoordinator coordinator, List<String> shardFiles) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        String classpath = System.getProperty("java.class.path");
+
+        List<Process> workers = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(0, shardFiles.size(), InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout(ACCEPT_TIMEOUT_MILLIS);
+            String port = String.valueOf(server.getLocalPort());
+
+            for (String shard : shardFiles) {
+                ProcessBuilder builder = new ProcessBuilder(java, "-cp", classpath, AdmmWorker.class.getName(),
+                                                            "127.0.0.1", port, shard);
+                builder.inheritIO();
+                workers.add(builder.start());
+            }
+
+            SVMModel model = coordinator.train(server, shardFiles.size());
+
+            for (Process worker : workers) {
+                if (worker.waitFor() != 0) {
+                    throw new IOException("worker exited with code " + worker.exitValue());
+                }
+            }
+            return model;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for workers", e);
+        } finally {
+            for (Process worker : workers) {
+                worker.destroy();
+            }
+        }
+    }
+}
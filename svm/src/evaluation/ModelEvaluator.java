@@ -1,5 +1,7 @@
 package evaluation;
 
+import model.KernelStore;
+import model.SMOOptimizer;
 import model.SVMModel;
 import model.SVMKernel;
 
@@ -14,6 +16,12 @@ public class ModelEvaluator {
     /**
      * Finds the optimal C parameter for an SVM model using validation data.
      * 
+     * The C values are tried in increasing order, and the first model at each new C is seeded
+     * with the alphas of the last model at the previous C, so it only has to adjust an existing
+     * solution. Repeated runs of the same C start cold, since they are there to average out the
+     * random initialization. All runs share one KernelStore, since the kernel matrix does not
+     * depend on C.
+     * 
      * @param XTrain Training feature matrix
      * @param yTrain Training label array
      * @param XVal Validation feature matrix
@@ -33,13 +41,27 @@ public class ModelEvaluator {
         System.out.println("Finding optimal C parameter using validation data...");
         System.out.println("Running " + cValues.length + " total experiments...");
         
+        // walk C upwards so each solution is a good seed for the next
+        double[] sortedC = cValues.clone();
+        java.util.Arrays.sort(sortedC);
+        SVMModel previous = null;
+        KernelStore store = new KernelStore();
+        long start = System.currentTimeMillis();
+        
         // First pass: collect metrics for each run
-        for (int i = 0; i < cValues.length; i++) {
-            double c = cValues[i];
+        for (int i = 0; i < sortedC.length; i++) {
+            double c = sortedC[i];
             
             // Create and train model with current C value
-            SVMModel model = new SVMModel(c, maxIterations, kernel);
-            model.train(XTrain, yTrain);
+            SMOOptimizer optimizer = new SMOOptimizer(c, maxIterations, kernel);
+            optimizer.setKernelStore(store);
+            SVMModel model = new SVMModel(optimizer);
+            if (previous == null || c == sortedC[i - 1]) {
+                model.train(XTrain, yTrain);
+            } else {
+                model.train(XTrain, yTrain, previous);
+            }
+            previous = model;
             
             // Evaluate on validation set
             double[] metrics = evaluate(model, XVal, yVal);
@@ -58,6 +80,11 @@ public class ModelEvaluator {
                              ", F1: " + String.format("%.4f", metrics[3]));
         }
         
+        System.out.println("Tuning runs took " + (System.currentTimeMillis() - start) + " ms");
+        System.out.println("Kernel store: " + store.getUsedBytes() + " bytes held, reuse ratio "
+                           + String.format("%.4f", store.getReuseRatio()) + " (" + store.getHits() + " hits, "
+                           + store.getMisses() + " misses)");
+        
         // Second pass: calculate averages for each unique C value
         System.out.println("\n----- Average Metrics by C Value -----");
         
@@ -0,0 +1,170 @@
+package math;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Sparse matrix in compressed sparse row (CSR) format. The non-zeros of all rows are stored
+ * back to back in columnIndices and values, and row i covers the positions
+ * rowPointers[i] to rowPointers[i + 1], so memory is O(rows + non-zeros).
+ */
+public class CSRMatrix implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // Number of columns
+    private final int columns;
+
+    // Start of each row in the entry arrays, plus the total number of entries at the end
+    private final int[] rowPointers;
+
+    // Column indices (increasing within a row) and values of the entries
+    private final int[] columnIndices;
+    private final double[] values;
+
+    /**
+     * Creates a CSR matrix from its arrays.
+     *
+     * @param columns Number of columns
+     * @param rowPointers Start of each row in the entry arrays, followed by the entry count
+     * @param columnIndices Column of each entry, increasing within each row
+     * @param values Value of each entry
+     * @throws IllegalArgumentException if the arrays are inconsistent
+     */
+    public CSRMatrix(int columns, int[] rowPointers, int[] columnIndices, double[] values) {
+        if (rowPointers.length == 0 || rowPointers[0] != 0 || rowPointers[rowPointers.length - 1] != columnIndices.length
+            || columnIndices.length != values.length) {
+            throw new IllegalArgumentException("Row pointers must run from 0 to the number of entries.");
+        }
+        for (int i = 0; i + 1 < rowPointers.length; i++) {
+            if (rowPointers[i + 1] < rowPointers[i]) {
+                throw new IllegalArgumentException("Row pointers must not decrease.");
+            }
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                if (columnIndices[k] < 0 || columnIndices[k] >= columns
+                    || (k > rowPointers[i] && columnIndices[k] <= columnIndices[k - 1])) {
+                    throw new IllegalArgumentException("Column indices must be increasing within a row and below the column count.");
+                }
+            }
+        }
+        this.columns = columns;
+        this.rowPointers = rowPointers;
+        this.columnIndices = columnIndices;
+        this.values = values;
+    }
+
+    /**
+     * Creates a CSR matrix holding the non-zero entries of a dense matrix.
+     *
+     * @param dense Dense matrix (all rows of the same length)
+     * @return The CSR matrix
+     */
+    public static CSRMatrix fromDense(double[][] dense) {
+        int columns = dense.length == 0 ? 0 : dense[0].length;
+        int[] rowPointers = new int[dense.length + 1];
+        for (int i = 0; i < dense.length; i++) {
+            if (dense[i].length != columns) {
+                throw new IllegalArgumentException("All rows must be of the same length.");
+            }
+            int count = 0;
+            for (double v : dense[i]) {
+                if (v != 0.0) {
+                    count++;
+                }
+            }
+            rowPointers[i + 1] = rowPointers[i] + count;
+        }
+
+        int[] columnIndices = new int[rowPointers[dense.length]];
+        double[] values = new double[columnIndices.length];
+        int k = 0;
+        for (double[] row : dense) {
+            for (int j = 0; j < columns; j++) {
+                if (row[j] != 0.0) {
+                    columnIndices[k] = j;
+                    values[k] = row[j];
+                    k++;
+                }
+            }
+        }
+        return new CSRMatrix(columns, rowPointers, columnIndices, values);
+    }
+
+    /**
+     * Creates a CSR matrix from sparse rows (e.g. rows parsed one at a time from a file).
+     *
+     * @param columns Number of columns
+     * @param rows Rows of the matrix, each of dimension columns
+     * @return The CSR matrix
+     */
+    public static CSRMatrix fromRows(int columns, List<SparseVector> rows) {
+        int[] rowPointers = new int[rows.size() + 1];
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).dimension != columns) {
+                throw new IllegalArgumentException("All rows must be of the same dimension.");
+            }
+            rowPointers[i + 1] = rowPointers[i] + rows.get(i).getNonZeroCount();
+        }
+
+        int[] columnIndices = new int[rowPointers[rows.size()]];
+        double[] values = new double[columnIndices.length];
+        for (int i = 0; i < rows.size(); i++) {
+            SparseVector row = rows.get(i);
+            System.arraycopy(row.indices, row.start, columnIndices, rowPointers[i], row.getNonZeroCount());
+            System.arraycopy(row.values, row.start, values, rowPointers[i], row.getNonZeroCount());
+        }
+        return new CSRMatrix(columns, rowPointers, columnIndices, values);
+    }
+
+    /**
+     * Gets row i as a sparse vector that shares this matrix's arrays (no copy).
+     *
+     * @param i Row index
+     * @return The row
+     */
+    public SparseVector getRow(int i) {
+        return new SparseVector(columns, columnIndices, values, rowPointers[i], rowPointers[i + 1]);
+    }
+
+    /**
+     * Expands the matrix to dense rows.
+     *
+     * @return Dense copy of the matrix
+     */
+    public double[][] toDense() {
+        double[][] dense = new double[getRowCount()][columns];
+        for (int i = 0; i < dense.length; i++) {
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                dense[i][columnIndices[k]] = values[k];
+            }
+        }
+        return dense;
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return The row count
+     */
+    public int getRowCount() {
+        return rowPointers.length - 1;
+    }
+
+    /**
+     * Gets the number of columns.
+     *
+     * @return The column count
+     */
+    public int getColumnCount() {
+        return columns;
+    }
+
+    /**
+     * Gets the number of stored entries.
+     *
+     * @return The number of non-zeros
+     */
+    public int getNonZeroCount() {
+        return values.length;
+    }
+}
@@ -1,5 +1,7 @@
 package math;
 
+import java.util.Arrays;
+
 /**
  * Matrix operations utility class for SVM implementation.
  * 
@@ -8,6 +10,9 @@ package math;
  */
 public class MatrixOps {
 
+    // Rows of each operand per tile in multiplyTransposed (a 64 x 64 tile of short rows stays in cache)
+    private static final int TILE = 64;
+
     /**
      * Multiplies a matrix by a vector.
      * 
@@ -38,6 +43,324 @@ public class MatrixOps {
     }
 
 
+    /**
+     * Computes a·bᵀ into out, so out[i][j] = a[i] · b[j]. This is the dot-product part of a
+     * kernel block. The work is split into tiles of rows of a and b that stay in cache, and each
+     * row of a is multiplied with four rows of b at once so every loaded a[i][k] is reused. The
+     * four-row products run on the VectorOps backend, so they are vectorized like the pairwise
+     * distances whenever the Vector API is available.
+     * 
+     * @param a First matrix (m x d)
+     * @param b Second matrix (n x d)
+     * @param out Output matrix with at least m rows of n entries
+     * @throws IllegalArgumentException if the rows have different lengths
+     */
+    public static void multiplyTransposed(double[][] a, double[][] b, double[][] out) {
+        multiplyTransposed(a, 0, a.length, b, 0, b.length, out);
+    }
+
+
+    /**
+     * Computes the block of a·bᵀ for rows aFrom ≤ i < aTo of a and bFrom ≤ j < bTo of b into
+     * out[i - aFrom][j - bFrom], without copying the rows (tiled as in the full multiply).
+     * 
+     * @param a First matrix
+     * @param aFrom First row of a (inclusive)
+     * @param aTo Last row of a (exclusive)
+     * @param b Second matrix
+     * @param bFrom First row of b (inclusive)
+     * @param bTo Last row of b (exclusive)
+     * @param out Output matrix with at least aTo - aFrom rows of bTo - bFrom entries
+     * @throws IllegalArgumentException if the rows have different lengths
+     */
+    public static void multiplyTransposed(double[][] a, int aFrom, int aTo, double[][] b, int bFrom, int bTo,
+                                          double[][] out) {
+        if (aFrom >= aTo || bFrom >= bTo) {
+            return;
+        }
+        int d = a[aFrom].length;
+        checkRows(a, aFrom, aTo, d);
+        checkRows(b, bFrom, bTo, d);
+
+        VectorBackend backend = VectorOps.backend();
+        for (int i0 = aFrom; i0 < aTo; i0 += TILE) {
+            int i1 = Math.min(i0 + TILE, aTo);
+            for (int j0 = bFrom; j0 < bTo; j0 += TILE) {
+                int j1 = Math.min(j0 + TILE, bTo);
+
+                for (int i = i0; i < i1; i++) {
+                    double[] ai = a[i];
+                    double[] result = out[i - aFrom];
+
+                    int j = j0;
+                    for (; j + 3 < j1; j += 4) {
+                        backend.dot4(ai, b[j], b[j + 1], b[j + 2], b[j + 3], result, j - bFrom);
+                    }
+                    for (; j < j1; j++) {
+                        result[j - bFrom] = backend.dot(ai, b[j]);
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Computes the row a·bᵀ over a range of rows of b, out[k] = a · b[k] for from ≤ k < to. One
+     * vector against many rows needs no tiles, but the rows are still taken four at a time on
+     * the backend, so each loaded element of a is reused (e.g. for one kernel column in SMO).
+     * 
+     * @param a Vector to multiply with
+     * @param b Rows to multiply
+     * @param from First row (inclusive)
+     * @param to Last row (exclusive)
+     * @param out Output array, indexed like b
+     * @throws IllegalArgumentException if the rows have different lengths
+     */
+    public static void multiplyTransposed(double[] a, double[][] b, int from, int to, double[] out) {
+        checkRows(b, from, to, a.length);
+
+        VectorBackend backend = VectorOps.backend();
+        int k = from;
+        for (; k + 3 < to; k += 4) {
+            backend.dot4(a, b[k], b[k + 1], b[k + 2], b[k + 3], out, k);
+        }
+        for (; k < to; k++) {
+            out[k] = backend.dot(a, b[k]);
+        }
+    }
+
+
+    /**
+     * Computes a · b[rows[p]] into out[rows[p]] for from ≤ p < to (the selected rows only,
+     * e.g. the active rows of a shrunk SMO problem), four rows at a time.
+     * 
+     * @param a Vector to multiply with
+     * @param b Rows to multiply
+     * @param rows Indices of the rows to compute
+     * @param from First position in rows (inclusive)
+     * @param to Last position in rows (exclusive)
+     * @param out Output array, indexed like b
+     * @throws IllegalArgumentException if the rows have different lengths
+     */
+    public static void multiplyTransposed(double[] a, double[][] b, int[] rows, int from, int to, double[] out) {
+        for (int p = from; p < to; p++) {
+            if (b[rows[p]].length != a.length) {
+                throw new IllegalArgumentException("All rows must be of the same length.");
+            }
+        }
+
+        VectorBackend backend = VectorOps.backend();
+        double[] result = new double[4];
+        int p = from;
+        for (; p + 3 < to; p += 4) {
+            backend.dot4(a, b[rows[p]], b[rows[p + 1]], b[rows[p + 2]], b[rows[p + 3]], result, 0);
+            for (int r = 0; r < 4; r++) {
+                out[rows[p + r]] = result[r];
+            }
+        }
+        for (; p < to; p++) {
+            out[rows[p]] = backend.dot(a, b[rows[p]]);
+        }
+    }
+
+
+    /**
+     * Computes the block of a·bᵀ for rows aFrom ≤ i < aTo of a and rows bFrom ≤ j < bTo of a
+     * flat row-major b, where row j is b[j·d] to b[(j + 1)·d - 1] and d is the row length of a,
+     * into out[i - aFrom][j - bFrom] (e.g. a tile of queries against a tile of the support
+     * vectors of a model). Tiled and taken four rows at a time as in the other multiplies.
+     * 
+     * @param a First matrix
+     * @param aFrom First row of a (inclusive)
+     * @param aTo Last row of a (exclusive)
+     * @param b Rows stored back to back
+     * @param bFrom First row of b (inclusive)
+     * @param bTo Last row of b (exclusive)
+     * @param out Output matrix with at least aTo - aFrom rows of bTo - bFrom entries
+     * @throws IllegalArgumentException if the rows have different lengths or b is too short
+     */
+    public static void multiplyTransposed(double[][] a, int aFrom, int aTo, double[] b, int bFrom, int bTo,
+                                          double[][] out) {
+        if (aFrom >= aTo || bFrom >= bTo) {
+            return;
+        }
+        int d = a[aFrom].length;
+        checkRows(a, aFrom, aTo, d);
+        if ((long) bTo * d > b.length) {
+            throw new IllegalArgumentException("Rows must lie within the data.");
+        }
+
+        VectorBackend backend = VectorOps.backend();
+        for (int i0 = aFrom; i0 < aTo; i0 += TILE) {
+            int i1 = Math.min(i0 + TILE, aTo);
+            for (int j0 = bFrom; j0 < bTo; j0 += TILE) {
+                int j1 = Math.min(j0 + TILE, bTo);
+
+                for (int i = i0; i < i1; i++) {
+                    double[] ai = a[i];
+                    double[] result = out[i - aFrom];
+
+                    int j = j0;
+                    for (; j + 3 < j1; j += 4) {
+                        backend.dot4(ai, b, j * d, d, result, j - bFrom);
+                    }
+                    for (; j < j1; j++) {
+                        result[j - bFrom] = backend.dot(ai, b, j * d);
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Computes the block of a·bᵀ for float rows against float rows stored back to back, laid out
+     * as in the double version, with the products accumulated in double.
+     * 
+     * @param a First matrix
+     * @param aFrom First row of a (inclusive)
+     * @param aTo Last row of a (exclusive)
+     * @param b Rows stored back to back
+     * @param bFrom First row of b (inclusive)
+     * @param bTo Last row of b (exclusive)
+     * @param out Output matrix with at least aTo - aFrom rows of bTo - bFrom entries
+     * @throws IllegalArgumentException if the rows have different lengths or b is too short
+     */
+    public static void multiplyTransposed(float[][] a, int aFrom, int aTo, float[] b, int bFrom, int bTo,
+                                          double[][] out) {
+        if (aFrom >= aTo || bFrom >= bTo) {
+            return;
+        }
+        int d = a[aFrom].length;
+        for (int i = aFrom; i < aTo; i++) {
+            if (a[i].length != d) {
+                throw new IllegalArgumentException("All rows must be of the same length.");
+            }
+        }
+        if ((long) bTo * d > b.length) {
+            throw new IllegalArgumentException("Rows must lie within the data.");
+        }
+
+        VectorBackend backend = VectorOps.backend();
+        for (int i0 = aFrom; i0 < aTo; i0 += TILE) {
+            int i1 = Math.min(i0 + TILE, aTo);
+            for (int j0 = bFrom; j0 < bTo; j0 += TILE) {
+                int j1 = Math.min(j0 + TILE, bTo);
+
+                for (int i = i0; i < i1; i++) {
+                    float[] ai = a[i];
+                    double[] result = out[i - aFrom];
+
+                    int j = j0;
+                    for (; j + 3 < j1; j += 4) {
+                        backend.dot4(ai, b, j * d, d, result, j - bFrom);
+                    }
+                    for (; j < j1; j++) {
+                        result[j - bFrom] = backend.dot(ai, b, j * d);
+                    }
+                }
+            }
+        }
+    }
+
+
+    private static void checkRows(double[][] matrix, int from, int to, int d) {
+        for (int k = from; k < to; k++) {
+            if (matrix[k].length != d) {
+                throw new IllegalArgumentException("All rows must be of the same length.");
+            }
+        }
+    }
+
+
+    /**
+     * Computes the eigenvalues and eigenvectors of a symmetric matrix with the cyclic Jacobi
+     * method: each step zeroes one off-diagonal entry with a plane rotation, and sweeps over all
+     * pairs repeat until the off-diagonal part is negligible. Suited to the small, dense
+     * matrices used here (e.g. a few hundred Nyström landmarks).
+     *
+     * @param matrix Symmetric input matrix (n x n), left unchanged
+     * @param eigenvalues Output array of n eigenvalues (in no particular order)
+     * @param eigenvectors Output matrix (n x n) whose column e is the unit eigenvector of eigenvalues[e]
+     * @throws IllegalArgumentException if the matrix is not square
+     */
+    public static void symmetricEigen(double[][] matrix, double[] eigenvalues, double[][] eigenvectors) {
+        int n = matrix.length;
+        double[][] a = new double[n][];
+        for (int i = 0; i < n; i++) {
+            if (matrix[i].length != n) {
+                throw new IllegalArgumentException("Matrix must be square.");
+            }
+            a[i] = matrix[i].clone();
+            Arrays.fill(eigenvectors[i], 0.0);
+            eigenvectors[i][i] = 1.0;
+        }
+
+        double total = 0.0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                total += a[i][j] * a[i][j];
+            }
+        }
+
+        for (int sweep = 0; sweep < 100; sweep++) {
+            double offDiagonal = 0.0;
+            for (int p = 0; p < n; p++) {
+                for (int q = p + 1; q < n; q++) {
+                    offDiagonal += a[p][q] * a[p][q];
+                }
+            }
+            if (offDiagonal <= 1e-30 * total) {
+                break;
+            }
+
+            for (int p = 0; p < n; p++) {
+                for (int q = p + 1; q < n; q++) {
+                    if (a[p][q] == 0.0) {
+                        continue;
+                    }
+
+                    // rotation angle that zeroes a[p][q], using the smaller root for stability
+                    double theta = (a[q][q] - a[p][p]) / (2 * a[p][q]);
+                    double t = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1));
+                    if (theta == 0.0) {
+                        t = 1.0;
+                    }
+                    double c = 1.0 / Math.sqrt(t * t + 1);
+                    double s = t * c;
+
+                    // A = Jᵀ·A·J, applied to columns p and q then rows p and q
+                    for (int k = 0; k < n; k++) {
+                        double akp = a[k][p];
+                        double akq = a[k][q];
+                        a[k][p] = c * akp - s * akq;
+                        a[k][q] = s * akp + c * akq;
+                    }
+                    for (int k = 0; k < n; k++) {
+                        double apk = a[p][k];
+                        double aqk = a[q][k];
+                        a[p][k] = c * apk - s * aqk;
+                        a[q][k] = s * apk + c * aqk;
+                    }
+
+                    // V = V·J
+                    for (int k = 0; k < n; k++) {
+                        double vkp = eigenvectors[k][p];
+                        double vkq = eigenvectors[k][q];
+                        eigenvectors[k][p] = c * vkp - s * vkq;
+                        eigenvectors[k][q] = s * vkp + c * vkq;
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            eigenvalues[i] = a[i][i];
+        }
+    }
+
+
     // Additional functions that may be useful for more advanced implementations:
     
     /*
@@ -0,0 +1,132 @@
+package math;
+
+/**
+ * Plain Java loops for VectorBackend, used when the Vector API is not available.
+ */
+class ScalarBackend implements VectorBackend {
+    
+    @Override
+    public double dot(double[] a, double[] b) {
+        return dot(a, b, 0);
+    }
+    
+    @Override
+    public double squaredDistance(double[] a, double[] b) {
+        return squaredDistance(a, b, 0);
+    }
+    
+    @Override
+    public double dot(double[] a, double[] data, int offset) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * data[offset + i];
+        }
+        return sum;
+    }
+    
+    @Override
+    public double squaredDistance(double[] a, double[] data, int offset) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            double diff = a[i] - data[offset + i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+    
+    @Override
+    public double dot(float[] a, float[] data, int offset) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            sum += (double) a[i] * data[offset + i];
+        }
+        return sum;
+    }
+    
+    @Override
+    public double squaredDistance(float[] a, float[] data, int offset) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            double diff = (double) a[i] - data[offset + i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+    
+    @Override
+    public double dot(double[] a, float[] data, int offset) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * data[offset + i];
+        }
+        return sum;
+    }
+    
+    @Override
+    public void dot4(double[] a, double[] b0, double[] b1, double[] b2, double[] b3, double[] out, int offset) {
+        double s0 = 0.0;
+        double s1 = 0.0;
+        double s2 = 0.0;
+        double s3 = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            double v = a[i];
+            s0 += v * b0[i];
+            s1 += v * b1[i];
+            s2 += v * b2[i];
+            s3 += v * b3[i];
+        }
+        out[offset] = s0;
+        out[offset + 1] = s1;
+        out[offset + 2] = s2;
+        out[offset + 3] = s3;
+    }
+    
+    @Override
+    public void dot4(double[] a, double[] data, int offset, int stride, double[] out, int outOffset) {
+        int o1 = offset + stride;
+        int o2 = o1 + stride;
+        int o3 = o2 + stride;
+        double s0 = 0.0;
+        double s1 = 0.0;
+        double s2 = 0.0;
+        double s3 = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            double v = a[i];
+            s0 += v * data[offset + i];
+            s1 += v * data[o1 + i];
+            s2 += v * data[o2 + i];
+            s3 += v * data[o3 + i];
+        }
+        out[outOffset] = s0;
+        out[outOffset + 1] = s1;
+        out[outOffset + 2] = s2;
+        out[outOffset + 3] = s3;
+    }
+    
+    @Override
+    public void dot4(float[] a, float[] data, int offset, int stride, double[] out, int outOffset) {
+        int o1 = offset + stride;
+        int o2 = o1 + stride;
+        int o3 = o2 + stride;
+        double s0 = 0.0;
+        double s1 = 0.0;
+        double s2 = 0.0;
+        double s3 = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            double v = a[i];
+            s0 += v * data[offset + i];
+            s1 += v * data[o1 + i];
+            s2 += v * data[o2 + i];
+            s3 += v * data[o3 + i];
+        }
+        out[outOffset] = s0;
+        out[outOffset + 1] = s1;
+        out[outOffset + 2] = s2;
+        out[outOffset + 3] = s3;
+    }
+    
+    @Override
+    public String getName() {
+        return "Scalar";
+    }
+}
@@ -0,0 +1,135 @@
+package math;
+
+import java.io.Serializable;
+
+/**
+ * Sparse vector that stores only its non-zero entries, as parallel arrays of strictly
+ * increasing indices and their values. Memory and the cost of the VectorOps and kernel
+ * operations on it scale with the number of non-zeros rather than the dimension.
+ *
+ * Rows of a CSRMatrix are returned as sparse vectors that share the matrix arrays, so a vector
+ * covers the positions start to end of its arrays. Sparse vectors are read-only.
+ */
+public class SparseVector implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // Length of the equivalent dense vector
+    final int dimension;
+
+    // Indices (strictly increasing) and values of the non-zero entries in [start, end)
+    final int[] indices;
+    final double[] values;
+    final int start;
+    final int end;
+
+    /**
+     * Creates a sparse vector from its non-zero entries.
+     *
+     * @param dimension Length of the equivalent dense vector
+     * @param indices Indices of the entries, strictly increasing
+     * @param values Values of the entries
+     * @throws IllegalArgumentException if the arrays differ in length or an index is out of order or range
+     */
+    public SparseVector(int dimension, int[] indices, double[] values) {
+        this(dimension, indices, values, 0, indices.length);
+        if (indices.length != values.length) {
+            throw new IllegalArgumentException("Indices and values must be of the same length.");
+        }
+        int previous = -1;
+        for (int index : indices) {
+            if (index <= previous || index >= dimension) {
+                throw new IllegalArgumentException("Indices must be increasing and below the dimension.");
+            }
+            previous = index;
+        }
+    }
+
+    /**
+     * View of the entries start to end of shared arrays (used by CSRMatrix rows, not validated).
+     */
+    SparseVector(int dimension, int[] indices, double[] values, int start, int end) {
+        this.dimension = dimension;
+        this.indices = indices;
+        this.values = values;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Creates a sparse vector holding the non-zero entries of a dense vector.
+     *
+     * @param dense Dense vector
+     * @return The sparse vector
+     */
+    public static SparseVector fromDense(double[] dense) {
+        int count = 0;
+        for (double v : dense) {
+            if (v != 0.0) {
+                count++;
+            }
+        }
+        int[] indices = new int[count];
+        double[] values = new double[count];
+        int k = 0;
+        for (int i = 0; i < dense.length; i++) {
+            if (dense[i] != 0.0) {
+                indices[k] = i;
+                values[k] = dense[i];
+                k++;
+            }
+        }
+        return new SparseVector(dense.length, indices, values, 0, count);
+    }
+
+    /**
+     * Expands the vector to a dense array.
+     *
+     * @return Dense copy of the vector
+     */
+    public double[] toDense() {
+        double[] dense = new double[dimension];
+        for (int k = start; k < end; k++) {
+            dense[indices[k]] = values[k];
+        }
+        return dense;
+    }
+
+    /**
+     * Gets the length of the equivalent dense vector.
+     *
+     * @return The dimension
+     */
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Gets the number of stored entries.
+     *
+     * @return The number of non-zeros
+     */
+    public int getNonZeroCount() {
+        return end - start;
+    }
+
+    /**
+     * Gets the index of the k-th stored entry.
+     *
+     * @param k Position among the stored entries (0 ≤ k < getNonZeroCount())
+     * @return Its index in the dense vector
+     */
+    public int getIndex(int k) {
+        return indices[start + k];
+    }
+
+    /**
+     * Gets the value of the k-th stored entry.
+     *
+     * @param k Position among the stored entries (0 ≤ k < getNonZeroCount())
+     * @return Its value
+     */
+    public double getValue(int k) {
+        return values[start + k];
+    }
+}
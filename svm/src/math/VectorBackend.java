@@ -0,0 +1,131 @@
+package math;
+
+/**
+ * Implementation of the inner loops behind VectorOps.dotProduct and VectorOps.squaredDistance.
+ * 
+ * The scalar loops are always available. A vectorized implementation built on the JDK Vector
+ * API (math.simd.VectorApiBackend) is picked instead when the build includes it and the JVM
+ * was started with the jdk.incubator.vector module. Callers have already checked that both
+ * vectors have the same length, or for the offset variants that the row fits in data.
+ */
+public interface VectorBackend {
+    
+    /**
+     * Computes a · b.
+     * 
+     * @param a First vector
+     * @param b Second vector, same length as a
+     * @return The dot product
+     */
+    double dot(double[] a, double[] b);
+    
+    /**
+     * Computes ||a - b||².
+     * 
+     * @param a First vector
+     * @param b Second vector, same length as a
+     * @return The squared Euclidean distance
+     */
+    double squaredDistance(double[] a, double[] b);
+    
+    /**
+     * Computes a · data[offset .. offset + a.length), for rows stored back to back in one flat
+     * array.
+     * 
+     * @param a Vector
+     * @param data Rows stored back to back
+     * @param offset Start of the row in data
+     * @return The dot product
+     */
+    double dot(double[] a, double[] data, int offset);
+    
+    /**
+     * Computes ||a - data[offset .. offset + a.length)||².
+     * 
+     * @param a Vector
+     * @param data Rows stored back to back
+     * @param offset Start of the row in data
+     * @return The squared Euclidean distance
+     */
+    double squaredDistance(double[] a, double[] data, int offset);
+    
+    /**
+     * Computes a · data[offset .. offset + a.length) for float storage, accumulated in double.
+     * 
+     * @param a Vector
+     * @param data Rows stored back to back
+     * @param offset Start of the row in data
+     * @return The dot product
+     */
+    double dot(float[] a, float[] data, int offset);
+    
+    /**
+     * Computes ||a - data[offset .. offset + a.length)||² for float storage, accumulated in
+     * double.
+     * 
+     * @param a Vector
+     * @param data Rows stored back to back
+     * @param offset Start of the row in data
+     * @return The squared Euclidean distance
+     */
+    double squaredDistance(float[] a, float[] data, int offset);
+    
+    /**
+     * Computes a · data[offset .. offset + a.length) for a double vector (e.g. a weight
+     * vector) against float storage, accumulated in double.
+     * 
+     * @param a Vector
+     * @param data Rows stored back to back
+     * @param offset Start of the row in data
+     * @return The dot product
+     */
+    double dot(double[] a, float[] data, int offset);
+    
+    /**
+     * Computes a · b0 to a · b3 into out[offset] to out[offset + 3]. Used for the tiles of
+     * MatrixOps.multiplyTransposed, where each loaded element of a is reused for four rows.
+     * 
+     * @param a Vector to multiply with
+     * @param b0 First row, same length as a
+     * @param b1 Second row, same length as a
+     * @param b2 Third row, same length as a
+     * @param b3 Fourth row, same length as a
+     * @param out Output array
+     * @param offset Position of the first result in out
+     */
+    void dot4(double[] a, double[] b0, double[] b1, double[] b2, double[] b3, double[] out, int offset);
+    
+    /**
+     * Computes a · row r for the four rows r = 0..3 stored back to back in data, row r starting
+     * at offset + r·stride, into out[outOffset] to out[outOffset + 3]. Used for the tiles of
+     * the flat-buffer multiplies in MatrixOps (e.g. against the support vectors of a model).
+     * 
+     * @param a Vector to multiply with
+     * @param data Rows stored back to back
+     * @param offset Start of the first row in data
+     * @param stride Distance between the starts of consecutive rows
+     * @param out Output array
+     * @param outOffset Position of the first result in out
+     */
+    void dot4(double[] a, double[] data, int offset, int stride, double[] out, int outOffset);
+    
+    /**
+     * Computes a · row r for four float rows stored back to back, accumulated in double (laid
+     * out as in the double version).
+     * 
+     * @param a Vector to multiply with
+     * @param data Rows stored back to back
+     * @param offset Start of the first row in data
+     * @param stride Distance between the starts of consecutive rows
+     * @param out Output array
+     * @param outOffset Position of the first result in out
+     */
+    void dot4(float[] a, float[] data, int offset, int stride, double[] out, int outOffset);
+    
+    /**
+     * Gets the name of the implementation.
+     * 
+     * @return The backend name
+     */
+    String getName();
+}
@@ -10,6 +10,12 @@ package math;
  */
 public class VectorOps {
     
+    // Class of the Vector API backend, only present in builds with the simd profile
+    private static final String SIMD_BACKEND = "math.simd.VectorApiBackend";
+    
+    // Inner loops for dot products and distances, chosen once when the class loads
+    private static final VectorBackend BACKEND = selectBackend();
+    
     /**
      * Calculates the dot product of two vectors. a vector, in our case, is a list of
      * sensor values (10 values)
@@ -24,14 +30,463 @@ public class VectorOps {
             throw new IllegalArgumentException("Vectors must be of the same length.");
         }
 
+        return BACKEND.dot(v1, v2);
+    }
+    
+    /**
+     * Calculates the squared Euclidean distance ||v1 - v2||² between two vectors.
+     * 
+     * @param v1 First vector
+     * @param v2 Second vector
+     * @return The squared distance
+     * @throws IllegalArgumentException if vectors have different lengths
+     */
+    public static double squaredDistance(double[] v1, double[] v2) {
+        if (v1.length != v2.length) {
+            throw new IllegalArgumentException("Vectors must be of the same length.");
+        }
+
+        return BACKEND.squaredDistance(v1, v2);
+    }
+    
+    /**
+     * Calculates the dot product of two sparse vectors by merging their index lists, in
+     * O(nnz(v1) + nnz(v2)).
+     *
+     * @param v1 First vector
+     * @param v2 Second vector
+     * @return The dot product result
+     * @throws IllegalArgumentException if vectors have different dimensions
+     */
+    public static double dotProduct(SparseVector v1, SparseVector v2) {
+        if (v1.dimension != v2.dimension) {
+            throw new IllegalArgumentException("Vectors must be of the same length.");
+        }
+
         double sum = 0.0;
-        for (int i = 0; i < v1.length; i++) {
-            sum += v1[i] * v2[i];
+        int a = v1.start;
+        int b = v2.start;
+        while (a < v1.end && b < v2.end) {
+            int i = v1.indices[a];
+            int j = v2.indices[b];
+            if (i == j) {
+                sum += v1.values[a++] * v2.values[b++];
+            } else if (i < j) {
+                a++;
+            } else {
+                b++;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Calculates the dot product of a sparse and a dense vector in O(nnz(v1)).
+     *
+     * @param v1 Sparse vector
+     * @param v2 Dense vector
+     * @return The dot product result
+     * @throws IllegalArgumentException if vectors have different lengths
+     */
+    public static double dotProduct(SparseVector v1, double[] v2) {
+        if (v1.dimension != v2.length) {
+            throw new IllegalArgumentException("Vectors must be of the same length.");
+        }
+
+        double sum = 0.0;
+        for (int k = v1.start; k < v1.end; k++) {
+            sum += v1.values[k] * v2[v1.indices[k]];
         }
+        return sum;
+    }
 
+    /**
+     * Calculates the squared norm ||v||² of a sparse vector in O(nnz(v)).
+     *
+     * @param v Sparse vector
+     * @return The squared norm
+     */
+    public static double squaredNorm(SparseVector v) {
+        double sum = 0.0;
+        for (int k = v.start; k < v.end; k++) {
+            sum += v.values[k] * v.values[k];
+        }
         return sum;
     }
 
+    /**
+     * Calculates the squared Euclidean distance ||v1 - v2||² between two sparse vectors by
+     * merging their index lists, in O(nnz(v1) + nnz(v2)).
+     *
+     * @param v1 First vector
+     * @param v2 Second vector
+     * @return The squared distance
+     * @throws IllegalArgumentException if vectors have different dimensions
+     */
+    public static double squaredDistance(SparseVector v1, SparseVector v2) {
+        if (v1.dimension != v2.dimension) {
+            throw new IllegalArgumentException("Vectors must be of the same length.");
+        }
+
+        double sum = 0.0;
+        int a = v1.start;
+        int b = v2.start;
+        while (a < v1.end || b < v2.end) {
+            int i = a < v1.end ? v1.indices[a] : Integer.MAX_VALUE;
+            int j = b < v2.end ? v2.indices[b] : Integer.MAX_VALUE;
+            double diff;
+            if (i == j) {
+                diff = v1.values[a++] - v2.values[b++];
+            } else if (i < j) {
+                diff = v1.values[a++];
+            } else {
+                diff = v2.values[b++];
+            }
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    /**
+     * Calculates the squared Euclidean distance ||v1 - v2||² between a sparse and a dense
+     * vector, given the squared norm of the dense vector. Only the entries of v1 are visited,
+     * using ||v1 - v2||² = ||v2||² + Σ ((v1ₖ - v2ₖ)² - v2ₖ²) over the non-zeros of v1, so with
+     * the norm precomputed (e.g. once per support vector) the cost is O(nnz(v1)).
+     *
+     * @param v1 Sparse vector
+     * @param v2 Dense vector
+     * @param v2SquaredNorm ||v2||²
+     * @return The squared distance
+     * @throws IllegalArgumentException if vectors have different lengths
+     */
+    public static double squaredDistance(SparseVector v1, double[] v2, double v2SquaredNorm) {
+        if (v1.dimension != v2.length) {
+            throw new IllegalArgumentException("Vectors must be of the same length.");
+        }
+
+        double sum = v2SquaredNorm;
+        for (int k = v1.start; k < v1.end; k++) {
+            double dense = v2[v1.indices[k]];
+            double diff = v1.values[k] - dense;
+            sum += diff * diff - dense * dense;
+        }
+        // cancellation can leave a tiny negative distance
+        return Math.max(sum, 0.0);
+    }
+
+    /**
+     * Calculates the dot product of two float vectors. Products and the sum are in double, so
+     * only the stored inputs are rounded.
+     *
+     * @param v1 First vector
+     * @param v2 Second vector
+     * @return The dot product result
+     * @throws IllegalArgumentException if vectors have different lengths
+     */
+    public static double dotProduct(float[] v1, float[] v2) {
+        if (v1.length != v2.length) {
+            throw new IllegalArgumentException("Vectors must be of the same length.");
+        }
+
+        return BACKEND.dot(v1, v2, 0);
+    }
+
+    /**
+     * Calculates the dot product of a double vector (e.g. a weight vector) and a float vector,
+     * accumulated in double.
+     *
+     * @param v1 Double vector
+     * @param v2 Float vector
+     * @return The dot product result
+     * @throws IllegalArgumentException if vectors have different lengths
+     */
+    public static double dotProduct(double[] v1, float[] v2) {
+        if (v1.length != v2.length) {
+            throw new IllegalArgumentException("Vectors must be of the same length.");
+        }
+
+        return BACKEND.dot(v1, v2, 0);
+    }
+
+    /**
+     * Calculates the squared Euclidean distance ||v1 - v2||² between two float vectors,
+     * accumulated in double.
+     *
+     * @param v1 First vector
+     * @param v2 Second vector
+     * @return The squared distance
+     * @throws IllegalArgumentException if vectors have different lengths
+     */
+    public static double squaredDistance(float[] v1, float[] v2) {
+        if (v1.length != v2.length) {
+            throw new IllegalArgumentException("Vectors must be of the same length.");
+        }
+
+        return BACKEND.squaredDistance(v1, v2, 0);
+    }
+
+    /*
+     * Rows stored back to back in one flat row-major array (e.g. the support vectors of a
+     * model) are read in place at an offset, so no row is copied and no row pointer is
+     * followed. The row length is the length (or dimension) of the other vector.
+     */
+
+    /**
+     * Calculates the dot product of a vector and the row of a flat array starting at offset.
+     *
+     * @param v Vector
+     * @param data Rows stored back to back
+     * @param offset Start of the row in data
+     * @return The dot product result
+     * @throws IllegalArgumentException if the row does not fit in data
+     */
+    public static double dotProduct(double[] v, double[] data, int offset) {
+        if (offset < 0 || offset + v.length > data.length) {
+            throw new IllegalArgumentException("Row must lie within the data.");
+        }
+
+        return BACKEND.dot(v, data, offset);
+    }
+
+    /**
+     * Calculates the squared Euclidean distance between a vector and the row of a flat array
+     * starting at offset.
+     *
+     * @param v Vector
+     * @param data Rows stored back to back
+     * @param offset Start of the row in data
+     * @return The squared distance
+     * @throws IllegalArgumentException if the row does not fit in data
+     */
+    public static double squaredDistance(double[] v, double[] data, int offset) {
+        if (offset < 0 || offset + v.length > data.length) {
+            throw new IllegalArgumentException("Row must lie within the data.");
+        }
+
+        return BACKEND.squaredDistance(v, data, offset);
+    }
+
+    /**
+     * Calculates the dot product of a float vector and the row of a flat float array starting
+     * at offset, accumulated in double.
+     *
+     * @param v Vector
+     * @param data Rows stored back to back
+     * @param offset Start of the row in data
+     * @return The dot product result
+     * @throws IllegalArgumentException if the row does not fit in data
+     */
+    public static double dotProduct(float[] v, float[] data, int offset) {
+        if (offset < 0 || offset + v.length > data.length) {
+            throw new IllegalArgumentException("Row must lie within the data.");
+        }
+
+        return BACKEND.dot(v, data, offset);
+    }
+
+    /**
+     * Calculates the squared Euclidean distance between a float vector and the row of a flat
+     * float array starting at offset, accumulated in double.
+     *
+     * @param v Vector
+     * @param data Rows stored back to back
+     * @param offset Start of the row in data
+     * @return The squared distance
+     * @throws IllegalArgumentException if the row does not fit in data
+     */
+    public static double squaredDistance(float[] v, float[] data, int offset) {
+        if (offset < 0 || offset + v.length > data.length) {
+            throw new IllegalArgumentException("Row must lie within the data.");
+        }
+
+        return BACKEND.squaredDistance(v, data, offset);
+    }
+
+    /**
+     * Calculates the dot product of a sparse vector and the row of a flat array starting at
+     * offset, in O(nnz(v)).
+     *
+     * @param v Sparse vector
+     * @param data Rows stored back to back
+     * @param offset Start of the row in data
+     * @return The dot product result
+     * @throws IllegalArgumentException if the row does not fit in data
+     */
+    public static double dotProduct(SparseVector v, double[] data, int offset) {
+        if (offset < 0 || offset + v.dimension > data.length) {
+            throw new IllegalArgumentException("Row must lie within the data.");
+        }
+
+        double sum = 0.0;
+        for (int k = v.start; k < v.end; k++) {
+            sum += v.values[k] * data[offset + v.indices[k]];
+        }
+        return sum;
+    }
+
+    /**
+     * Calculates the squared Euclidean distance between a sparse vector and the row of a flat
+     * array starting at offset, given the squared norm of the row, in O(nnz(v)) (see
+     * squaredDistance(SparseVector, double[], double)).
+     *
+     * @param v Sparse vector
+     * @param data Rows stored back to back
+     * @param offset Start of the row in data
+     * @param rowSquaredNorm Squared norm of the row
+     * @return The squared distance
+     * @throws IllegalArgumentException if the row does not fit in data
+     */
+    public static double squaredDistance(SparseVector v, double[] data, int offset, double rowSquaredNorm) {
+        if (offset < 0 || offset + v.dimension > data.length) {
+            throw new IllegalArgumentException("Row must lie within the data.");
+        }
+
+        double sum = rowSquaredNorm;
+        for (int k = v.start; k < v.end; k++) {
+            double dense = data[offset + v.indices[k]];
+            double diff = v.values[k] - dense;
+            sum += diff * diff - dense * dense;
+        }
+        return Math.max(sum, 0.0);
+    }
+
+    /**
+     * Rounds a vector to float precision.
+     *
+     * @param vector The input vector
+     * @return A new float vector
+     */
+    public static float[] toFloat(double[] vector) {
+        float[] result = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            result[i] = (float) vector[i];
+        }
+        return result;
+    }
+
+    /**
+     * Widens a float vector to double.
+     *
+     * @param vector The input vector
+     * @return A new double vector
+     */
+    public static double[] toDouble(float[] vector) {
+        double[] result = new double[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            result[i] = vector[i];
+        }
+        return result;
+    }
+
+    /**
+     * Gets the name of the backend used for dot products and distances.
+     * 
+     * @return The backend name
+     */
+    public static String getBackendName() {
+        return BACKEND.getName();
+    }
+    
+    /**
+     * Gets the backend, for the other loops of this package (e.g. MatrixOps.multiplyTransposed).
+     */
+    static VectorBackend backend() {
+        return BACKEND;
+    }
+    
+    /**
+     * Picks the Vector API backend when it can be loaded and agrees with the scalar loops,
+     * otherwise the scalar loops. Setting the system property svm.simd=false forces the
+     * scalar loops.
+     */
+    private static VectorBackend selectBackend() {
+        VectorBackend scalar = new ScalarBackend();
+        if ("false".equals(System.getProperty("svm.simd"))) {
+            return scalar;
+        }
+
+        try {
+            VectorBackend simd = (VectorBackend) Class.forName(SIMD_BACKEND).getDeclaredConstructor().newInstance();
+            if (agrees(simd, scalar)) {
+                return simd;
+            }
+            System.err.println("Vector API backend disagrees with the scalar loops, using scalar loops");
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // not compiled in, or the JVM was started without jdk.incubator.vector
+        }
+        return scalar;
+    }
+    
+    /**
+     * Checks a backend against the scalar loops on random vectors of every length up to 67,
+     * which covers empty input, partial vectors and the scalar tail of each SIMD width, both as
+     * plain arrays and as rows at an offset of a flat double or float array. Sums may be
+     * reordered, so results must match within a few ulps of the summed magnitudes.
+     */
+    static boolean agrees(VectorBackend candidate, VectorBackend reference) {
+        java.util.Random random = new java.util.Random(42);
+        for (int length = 0; length < 68; length++) {
+            double[] a = new double[length];
+            double[] b = new double[length];
+            double magnitude = 0.0;
+            for (int i = 0; i < length; i++) {
+                a[i] = random.nextGaussian() * 100;
+                b[i] = random.nextGaussian() * 100;
+                magnitude += Math.abs(a[i] * b[i]) + (a[i] - b[i]) * (a[i] - b[i]);
+            }
+            double tolerance = 1e-13 * magnitude;
+
+            if (Math.abs(candidate.dot(a, b) - reference.dot(a, b)) > tolerance
+                || Math.abs(candidate.squaredDistance(a, b) - reference.squaredDistance(a, b)) > tolerance) {
+                return false;
+            }
+
+            // b as a row at an unaligned offset of a flat array, in double, in float, and as
+            // float against the double a
+            double[] data = new double[length + 3];
+            System.arraycopy(b, 0, data, 3, length);
+            float[] floatA = toFloat(a);
+            float[] floatData = toFloat(data);
+            if (Math.abs(candidate.dot(a, data, 3) - reference.dot(a, data, 3)) > tolerance
+                || Math.abs(candidate.squaredDistance(a, data, 3) - reference.squaredDistance(a, data, 3)) > tolerance
+                || Math.abs(candidate.dot(floatA, floatData, 3) - reference.dot(floatA, floatData, 3)) > tolerance
+                || Math.abs(candidate.squaredDistance(floatA, floatData, 3) - reference.squaredDistance(floatA, floatData, 3)) > tolerance
+                || Math.abs(candidate.dot(a, floatData, 3) - reference.dot(a, floatData, 3)) > tolerance) {
+                return false;
+            }
+            
+            // rows b, a, b, a: a·a has its own magnitude
+            double[] four = new double[4];
+            double[] expected = new double[4];
+            candidate.dot4(a, b, a, b, a, four, 0);
+            reference.dot4(a, b, a, b, a, expected, 0);
+            for (int r = 0; r < 4; r++) {
+                if (Math.abs(four[r] - expected[r]) > tolerance + 1e-13 * expected[1]) {
+                    return false;
+                }
+            }
+            
+            // the same four rows back to back in a flat array, in double and in float
+            double[] rows = new double[3 + 4 * length];
+            for (int r = 0; r < 4; r++) {
+                System.arraycopy(r % 2 == 0 ? b : a, 0, rows, 3 + r * length, length);
+            }
+            float[] floatRows = toFloat(rows);
+            double[] floatFour = new double[4];
+            double[] floatExpected = new double[4];
+            candidate.dot4(a, rows, 3, length, four, 0);
+            candidate.dot4(floatA, floatRows, 3, length, floatFour, 0);
+            reference.dot4(floatA, floatRows, 3, length, floatExpected, 0);
+            for (int r = 0; r < 4; r++) {
+                if (Math.abs(four[r] - expected[r]) > tolerance + 1e-13 * expected[1]
+                    || Math.abs(floatFour[r] - floatExpected[r]) > tolerance + 1e-13 * floatExpected[1]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     /**
      * Adds two vectors element-wise.
      * 
@@ -119,14 +574,7 @@ public class VectorOps {
             throw new IllegalArgumentException("Vectors must be of the same length.");
         }
 
-        double sumSquares = 0.0;
-
-        for (int i = 0; i < v1.length; i++) {
-            double diff = v1[i] - v2[i];
-            sumSquares += diff * diff;
-        }
-
-        return Math.sqrt(sumSquares);
+        return Math.sqrt(BACKEND.squaredDistance(v1, v2));
     }
 
 }
@@ -0,0 +1,249 @@
+package math.simd;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import math.VectorBackend;
+
+/**
+ * VectorBackend on the JDK Vector API (jdk.incubator.vector).
+ * 
+ * Each loop keeps one accumulator per SIMD lane using fused multiply-adds, sums the lanes once
+ * at the end and finishes the remaining elements with scalar code. Because the additions
+ * happen in a different order than in the scalar loop, results can differ from it in the last
+ * few bits. Float rows are loaded at half the width and widened to double, so they are
+ * accumulated in double like the scalar loops.
+ * 
+ * Only compiled with the Maven "simd" profile (Java 17+), and only used when the JVM is
+ * started with --add-modules jdk.incubator.vector. VectorOps loads it reflectively.
+ */
+public class VectorApiBackend implements VectorBackend {
+    
+    // Widest vector shape the CPU supports
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    
+    // Floats with as many lanes as SPECIES, so one load widens into one double vector
+    private static final VectorSpecies<Float> FLOAT_SPECIES =
+        VectorSpecies.of(float.class, VectorShape.forBitSize(SPECIES.vectorBitSize() / 2));
+    
+    @Override
+    public double dot(double[] a, double[] b) {
+        return dot(a, b, 0);
+    }
+    
+    @Override
+    public double squaredDistance(double[] a, double[] b) {
+        return squaredDistance(a, b, 0);
+    }
+    
+    @Override
+    public double dot(double[] a, double[] data, int offset) {
+        int i = 0;
+        int upper = SPECIES.loopBound(a.length);
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, i);
+            DoubleVector vb = DoubleVector.fromArray(SPECIES, data, offset + i);
+            acc = va.fma(vb, acc);
+        }
+        
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            sum += a[i] * data[offset + i];
+        }
+        return sum;
+    }
+    
+    @Override
+    public double squaredDistance(double[] a, double[] data, int offset) {
+        int i = 0;
+        int upper = SPECIES.loopBound(a.length);
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector diff = DoubleVector.fromArray(SPECIES, a, i).sub(DoubleVector.fromArray(SPECIES, data, offset + i));
+            acc = diff.fma(diff, acc);
+        }
+        
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            double diff = a[i] - data[offset + i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+    
+    @Override
+    public double dot(float[] a, float[] data, int offset) {
+        int i = 0;
+        int upper = FLOAT_SPECIES.loopBound(a.length);
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        for (; i < upper; i += FLOAT_SPECIES.length()) {
+            DoubleVector va = widen(FloatVector.fromArray(FLOAT_SPECIES, a, i));
+            DoubleVector vb = widen(FloatVector.fromArray(FLOAT_SPECIES, data, offset + i));
+            acc = va.fma(vb, acc);
+        }
+        
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            sum += (double) a[i] * data[offset + i];
+        }
+        return sum;
+    }
+    
+    @Override
+    public double squaredDistance(float[] a, float[] data, int offset) {
+        int i = 0;
+        int upper = FLOAT_SPECIES.loopBound(a.length);
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        for (; i < upper; i += FLOAT_SPECIES.length()) {
+            DoubleVector diff = widen(FloatVector.fromArray(FLOAT_SPECIES, a, i))
+                .sub(widen(FloatVector.fromArray(FLOAT_SPECIES, data, offset + i)));
+            acc = diff.fma(diff, acc);
+        }
+        
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            double diff = (double) a[i] - data[offset + i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+    
+    @Override
+    public double dot(double[] a, float[] data, int offset) {
+        int i = 0;
+        int upper = FLOAT_SPECIES.loopBound(a.length);
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        for (; i < upper; i += FLOAT_SPECIES.length()) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, i);
+            DoubleVector vb = widen(FloatVector.fromArray(FLOAT_SPECIES, data, offset + i));
+            acc = va.fma(vb, acc);
+        }
+        
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            sum += a[i] * data[offset + i];
+        }
+        return sum;
+    }
+    
+    @Override
+    public void dot4(double[] a, double[] data, int offset, int stride, double[] out, int outOffset) {
+        int o1 = offset + stride;
+        int o2 = o1 + stride;
+        int o3 = o2 + stride;
+        int i = 0;
+        int upper = SPECIES.loopBound(a.length);
+        DoubleVector acc0 = DoubleVector.zero(SPECIES);
+        DoubleVector acc1 = DoubleVector.zero(SPECIES);
+        DoubleVector acc2 = DoubleVector.zero(SPECIES);
+        DoubleVector acc3 = DoubleVector.zero(SPECIES);
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, i);
+            acc0 = va.fma(DoubleVector.fromArray(SPECIES, data, offset + i), acc0);
+            acc1 = va.fma(DoubleVector.fromArray(SPECIES, data, o1 + i), acc1);
+            acc2 = va.fma(DoubleVector.fromArray(SPECIES, data, o2 + i), acc2);
+            acc3 = va.fma(DoubleVector.fromArray(SPECIES, data, o3 + i), acc3);
+        }
+        
+        double s0 = acc0.reduceLanes(VectorOperators.ADD);
+        double s1 = acc1.reduceLanes(VectorOperators.ADD);
+        double s2 = acc2.reduceLanes(VectorOperators.ADD);
+        double s3 = acc3.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            double v = a[i];
+            s0 += v * data[offset + i];
+            s1 += v * data[o1 + i];
+            s2 += v * data[o2 + i];
+            s3 += v * data[o3 + i];
+        }
+        out[outOffset] = s0;
+        out[outOffset + 1] = s1;
+        out[outOffset + 2] = s2;
+        out[outOffset + 3] = s3;
+    }
+    
+    @Override
+    public void dot4(float[] a, float[] data, int offset, int stride, double[] out, int outOffset) {
+        int o1 = offset + stride;
+        int o2 = o1 + stride;
+        int o3 = o2 + stride;
+        int i = 0;
+        int upper = FLOAT_SPECIES.loopBound(a.length);
+        DoubleVector acc0 = DoubleVector.zero(SPECIES);
+        DoubleVector acc1 = DoubleVector.zero(SPECIES);
+        DoubleVector acc2 = DoubleVector.zero(SPECIES);
+        DoubleVector acc3 = DoubleVector.zero(SPECIES);
+        for (; i < upper; i += FLOAT_SPECIES.length()) {
+            DoubleVector va = widen(FloatVector.fromArray(FLOAT_SPECIES, a, i));
+            acc0 = va.fma(widen(FloatVector.fromArray(FLOAT_SPECIES, data, offset + i)), acc0);
+            acc1 = va.fma(widen(FloatVector.fromArray(FLOAT_SPECIES, data, o1 + i)), acc1);
+            acc2 = va.fma(widen(FloatVector.fromArray(FLOAT_SPECIES, data, o2 + i)), acc2);
+            acc3 = va.fma(widen(FloatVector.fromArray(FLOAT_SPECIES, data, o3 + i)), acc3);
+        }
+        
+        double s0 = acc0.reduceLanes(VectorOperators.ADD);
+        double s1 = acc1.reduceLanes(VectorOperators.ADD);
+        double s2 = acc2.reduceLanes(VectorOperators.ADD);
+        double s3 = acc3.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            double v = a[i];
+            s0 += v * data[offset + i];
+            s1 += v * data[o1 + i];
+            s2 += v * data[o2 + i];
+            s3 += v * data[o3 + i];
+        }
+        out[outOffset] = s0;
+        out[outOffset + 1] = s1;
+        out[outOffset + 2] = s2;
+        out[outOffset + 3] = s3;
+    }
+    
+    /**
+     * Widens float lanes to a double vector of the same lane count.
+     */
+    private static DoubleVector widen(FloatVector v) {
+        return (DoubleVector) v.convertShape(VectorOperators.F2D, SPECIES, 0);
+    }
+    
+    @Override
+    public void dot4(double[] a, double[] b0, double[] b1, double[] b2, double[] b3, double[] out, int offset) {
+        int i = 0;
+        int upper = SPECIES.loopBound(a.length);
+        DoubleVector acc0 = DoubleVector.zero(SPECIES);
+        DoubleVector acc1 = DoubleVector.zero(SPECIES);
+        DoubleVector acc2 = DoubleVector.zero(SPECIES);
+        DoubleVector acc3 = DoubleVector.zero(SPECIES);
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, i);
+            acc0 = va.fma(DoubleVector.fromArray(SPECIES, b0, i), acc0);
+            acc1 = va.fma(DoubleVector.fromArray(SPECIES, b1, i), acc1);
+            acc2 = va.fma(DoubleVector.fromArray(SPECIES, b2, i), acc2);
+            acc3 = va.fma(DoubleVector.fromArray(SPECIES, b3, i), acc3);
+        }
+        
+        double s0 = acc0.reduceLanes(VectorOperators.ADD);
+        double s1 = acc1.reduceLanes(VectorOperators.ADD);
+        double s2 = acc2.reduceLanes(VectorOperators.ADD);
+        double s3 = acc3.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            double v = a[i];
+            s0 += v * b0[i];
+            s1 += v * b1[i];
+            s2 += v * b2[i];
+            s3 += v * b3[i];
+        }
+        out[offset] = s0;
+        out[offset + 1] = s1;
+        out[offset + 2] = s2;
+        out[offset + 3] = s3;
+    }
+    
+    @Override
+    public String getName() {
+        return "Vector API (" + SPECIES.vectorBitSize() + "-bit)";
+    }
+}
@@ -0,0 +1,291 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Cascade SVM trainer for training sets too large for a single SMO solve.
+ *
+ * The rows are shuffled and split into P partitions, and an SMO sub-problem is solved on each
+ * partition in parallel. Only the support vectors of each sub-problem are kept. The sets are
+ * merged pairwise and solved again, level by level, until one set is left. The solution of
+ * that last level gives the model (dropping non-support vectors does not move the optimum, so
+ * solving the last level's support vectors again would only repeat its work).
+ *
+ * With feedback passes enabled, the final support vectors are added back into every first
+ * level partition and the cascade is run again. This stops early once the global support
+ * vector set no longer changes.
+ *
+ * Reference: "Parallel Support Vector Machines: The Cascade SVM" by Hans Peter Graf, Eric
+ * Cosatto, Leon Bottou, Igor Durdanovic and Vladimir Vapnik.
+ */
+public class CascadeTrainer {
+
+    // Alphas above this value mark a support vector (same threshold as SVMModel)
+    private static final double SV_THRESHOLD = 1e-8;
+
+    // SMO parameters used for every sub-problem
+    private double C;
+    private int maxIterations;
+    private SVMKernel kernel;
+
+    // Number of first level partitions
+    private int partitions;
+
+    // Number of sub-problems solved at the same time
+    private int threads;
+
+    // Extra cascade runs that feed the final support vectors back into the first level
+    private int feedbackPasses = 0;
+
+    // Seed for the partition shuffle
+    private long seed = 42;
+
+    // Milliseconds spent at each level of the most recent run (all passes)
+    private List<Long> levelTimes;
+
+    /**
+     * Creates a cascade trainer.
+     *
+     * @param C Regularization parameter
+     * @param maxIterations Maximum number of iterations for each SMO sub-problem
+     * @param kernel Kernel function to use
+     * @param partitions Number of first level partitions
+     */
+    public CascadeTrainer(double C, int maxIterations, SVMKernel kernel, int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("number of partitions must be at least 1");
+        }
+        this.C = C;
+        this.maxIterations = maxIterations;
+        this.kernel = kernel;
+        this.partitions = partitions;
+        this.threads = Math.min(partitions, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Trains a model with the cascade.
+     *
+     * @param X Training features
+     * @param y Training labels (should be +1 or -1)
+     * @return A standard SVMModel holding the solution of the last level
+     */
+    public SVMModel train(double[][] X, double[] y) {
+        if (X.length < partitions) {
+            throw new IllegalArgumentException("fewer rows than partitions");
+        }
+        levelTimes = new ArrayList<>();
+
+        // shuffle once so every partition sees both classes
+        int[] order = new int[X.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Random random = new Random(seed);
+        for (int i = order.length - 1; i > 0; i--) {
+            int k = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[k];
+            order[k] = tmp;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            int[] globalSupport = new int[0];
+            Solution last = null;
+            for (int pass = 0; pass <= feedbackPasses; pass++) {
+                System.out.println("Cascade pass " + pass + " with " + partitions + " partitions");
+
+                // first level: each partition plus the support vectors of the previous pass
+                List<int[]> first = new ArrayList<>();
+                for (int p = 0; p < partitions; p++) {
+                    int from = (int) ((long) X.length * p / partitions);
+                    int to = (int) ((long) X.length * (p + 1) / partitions);
+                    first.add(union(Arrays.copyOfRange(order, from, to), globalSupport));
+                }
+
+                // solve and merge pairwise until one set is left
+                int level = 0;
+                List<Solution> solutions = solveLevel(executor, first, X, y, level++);
+                while (solutions.size() > 1) {
+                    List<int[]> merged = new ArrayList<>();
+                    for (int s = 0; s < solutions.size(); s += 2) {
+                        int[] support = solutions.get(s).support;
+                        merged.add(s + 1 < solutions.size() ? union(support, solutions.get(s + 1).support) : support);
+                    }
+                    solutions = solveLevel(executor, merged, X, y, level++);
+                }
+
+                last = solutions.get(0);
+                int[] support = last.support;
+                if (Arrays.equals(support, globalSupport)) {
+                    System.out.println("Cascade support vectors unchanged after pass " + pass);
+                    break;
+                }
+                globalSupport = support;
+            }
+
+            // the last level already solved the whole remaining problem, so its solution is the model
+            double[][] lastX = new double[last.rows.length][];
+            double[] lastY = new double[last.rows.length];
+            for (int s = 0; s < last.rows.length; s++) {
+                lastX[s] = X[last.rows[s]];
+                lastY[s] = y[last.rows[s]];
+            }
+            return new SVMModel(C, maxIterations, kernel).fit(last.result, lastX, lastY);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Solves one SMO sub-problem per set in parallel and keeps each set's solution.
+     */
+    private List<Solution> solveLevel(ExecutorService executor, List<int[]> sets, double[][] X, double[] y, int level) {
+        long start = System.currentTimeMillis();
+
+        List<Future<Solution>> futures = new ArrayList<>();
+        int rows = 0;
+        for (int[] set : sets) {
+            futures.add(executor.submit(() -> solve(set, X, y)));
+            rows += set.length;
+        }
+
+        List<Solution> result = new ArrayList<>();
+        int support = 0;
+        try {
+            for (Future<Solution> future : futures) {
+                Solution solution = future.get();
+                result.add(solution);
+                support += solution.support.length;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("cascade training was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("cascade sub-problem failed", e.getCause());
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        levelTimes.add(elapsed);
+        System.out.println("Cascade level " + level + ": " + sets.size() + " sets, " + rows + " rows -> "
+                           + support + " support vectors in " + elapsed + " ms");
+        return result;
+    }
+
+    /**
+     * Solves SMO on the given rows and finds the indices of its support vectors.
+     */
+    private Solution solve(int[] set, double[][] X, double[] y) {
+        double[][] subX = new double[set.length][];
+        double[] subY = new double[set.length];
+        for (int s = 0; s < set.length; s++) {
+            subX[s] = X[set[s]];
+            subY[s] = y[set[s]];
+        }
+
+        // each sub-problem needs its own optimizer since the kernel cache is per run
+        OptimizationResult result = new SMOOptimizer(C, maxIterations, kernel).optimize(subX, subY);
+        double[] alphas = result.getAlphas();
+
+        int count = 0;
+        for (double alpha : alphas) {
+            if (alpha > SV_THRESHOLD) {
+                count++;
+            }
+        }
+        int[] support = new int[count];
+        for (int s = 0, k = 0; s < set.length; s++) {
+            if (alphas[s] > SV_THRESHOLD) {
+                support[k++] = set[s];
+            }
+        }
+        Arrays.sort(support);
+        return new Solution(set, result, support);
+    }
+
+    /**
+     * SMO solution of one set: its rows, the optimizer result (indexed like rows) and the
+     * sorted indices of its support vectors.
+     */
+    private static class Solution {
+        private final int[] rows;
+        private final OptimizationResult result;
+        private final int[] support;
+
+        Solution(int[] rows, OptimizationResult result, int[] support) {
+            this.rows = rows;
+            this.result = result;
+            this.support = support;
+        }
+    }
+
+    /**
+     * Merges two index sets, dropping duplicates. The result is sorted.
+     */
+    private static int[] union(int[] a, int[] b) {
+        int[] merged = new int[a.length + b.length];
+        System.arraycopy(a, 0, merged, 0, a.length);
+        System.arraycopy(b, 0, merged, a.length, b.length);
+        Arrays.sort(merged);
+
+        int size = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (size == 0 || merged[i] != merged[size - 1]) {
+                merged[size++] = merged[i];
+            }
+        }
+        return Arrays.copyOf(merged, size);
+    }
+
+    /**
+     * Sets the number of cascade runs that feed the final support vectors back into the first
+     * level partitions (0 by default).
+     *
+     * @param feedbackPasses Number of feedback passes
+     */
+    public void setFeedbackPasses(int feedbackPasses) {
+        if (feedbackPasses < 0) {
+            throw new IllegalArgumentException("feedback passes must be non-negative");
+        }
+        this.feedbackPasses = feedbackPasses;
+    }
+
+    /**
+     * Sets how many sub-problems are solved at the same time (defaults to the smaller of the
+     * partition count and the number of processors).
+     *
+     * @param threads Number of worker threads
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("number of threads must be at least 1");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Sets the seed for shuffling rows into partitions.
+     *
+     * @param seed Random seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the time spent at each cascade level of the most recent run, in the order the
+     * levels ran (all passes).
+     *
+     * @return Milliseconds per level
+     */
+    public List<Long> getLevelTimes() {
+        return levelTimes;
+    }
+}
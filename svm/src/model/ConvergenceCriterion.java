@@ -0,0 +1,19 @@
+package model;
+
+/**
+ * Stopping rules for SMO training.
+ */
+public enum ConvergenceCriterion {
+    
+    /**
+     * Stop once the maximal KKT violation, max over I_up of -E_t minus min over I_low of -E_t,
+     * drops below the optimizer tolerance. This is the duality-gap style test used by LIBSVM.
+     */
+    KKT_GAP,
+    
+    /**
+     * Stop once fewer than 10 alphas changed in a batch for more than 5 batches. This is the
+     * original heuristic of the simplified SMO and does not guarantee an optimal solution.
+     */
+    EARLY_STOPPING
+}
@@ -0,0 +1,59 @@
+package model;
+
+import java.io.Serializable;
+
+/**
+ * Explicit feature map z(x) whose dot products approximate a kernel, z(x)·z(y) ≈ K(x, y).
+ * 
+ * Mapping the data once turns a kernel SVM into a linear one in the mapped space, which the
+ * linear engines (DualCoordinateDescent, or SMO with its linear fast path) train in time
+ * linear in the number of rows. Prediction then costs one transform plus one dot product,
+ * independent of the number of support vectors. Maps are serializable so they can be stored
+ * together with the model.
+ */
+public interface FeatureMap extends Serializable {
+    
+    /**
+     * Fits the map to the training data (e.g. draws random weights or picks landmarks).
+     * 
+     * @param X Training features
+     * @return This map (for method chaining)
+     */
+    FeatureMap fit(double[][] X);
+    
+    /**
+     * Maps one vector into the feature space.
+     * 
+     * @param x Input vector
+     * @return The mapped vector z(x)
+     */
+    double[] transform(double[] x);
+    
+    /**
+     * Maps every row of a matrix into the feature space.
+     * 
+     * @param X Input rows
+     * @return The mapped rows
+     */
+    default double[][] transform(double[][] X) {
+        double[][] Z = new double[X.length][];
+        for (int i = 0; i < X.length; i++) {
+            Z[i] = transform(X[i]);
+        }
+        return Z;
+    }
+    
+    /**
+     * Gets the dimension of the mapped vectors.
+     * 
+     * @return Output dimension
+     */
+    int getOutputDimension();
+    
+    /**
+     * Gets the name of the feature map.
+     * 
+     * @return The name
+     */
+    String getName();
+}
@@ -0,0 +1,266 @@
+package model;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Least-recently-used cache of kernel matrix columns for SMO training.
+ *
+ * Each cached column i holds Q(:,i) where Q(k,i) = y_k·y_i·K(x_k, x_i), so a single
+ * lookup gives every kernel value needed to refresh outputs after alpha i changes.
+ * Columns are evicted oldest-first once the configured byte budget would be exceeded.
+ * The diagonal K(x_i, x_i) is always kept since every pair update needs it.
+ * 
+ * When the optimizer shrinks its working problem, columns are only filled for the active rows
+ * until the full set is restored, at which point those partial columns are dropped.
+ */
+public class KernelCache {
+
+    // Training data the columns are computed from
+    private final TrainingRows X;
+    private final double[] y;
+    private final SVMKernel kernel;
+
+    // Byte budget for cached columns (the diagonal is not counted)
+    private final long maxBytes;
+    private final long columnBytes;
+    private long usedBytes;
+
+    // Access-ordered map, so iteration starts at the least recently used column
+    private final LinkedHashMap<Integer, double[]> columns;
+
+    // K(x_i, x_i) for every training row
+    private final double[] diagonal;
+    
+    // Rows to fill in new columns while shrunk (null means all rows)
+    private int[] active;
+    private int activeSize;
+    
+    // Cached columns that were filled for the active rows only
+    private final Set<Integer> partialColumns = new HashSet<>();
+
+    // Pool used to fill columns in parallel (null means the calling thread)
+    private ForkJoinPool pool;
+    
+    // Shared store that missing columns are taken from (null means compute them here)
+    private KernelStore.View store;
+    
+    // Precomputed kernel matrix that missing columns are read from (null means compute them here)
+    private MappedGramMatrix gram;
+
+    // Cache statistics
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a kernel cache over the given training data.
+     *
+     * @param X Training features
+     * @param y Training labels (should be +1 or -1)
+     * @param kernel Kernel function used to fill columns
+     * @param maxBytes Maximum number of bytes to spend on cached columns
+     */
+    public KernelCache(double[][] X, double[] y, SVMKernel kernel, long maxBytes) {
+        this(TrainingRows.of(X), y, kernel, maxBytes);
+    }
+
+    /**
+     * Creates a kernel cache over training rows stored as double or float.
+     */
+    KernelCache(TrainingRows X, double[] y, SVMKernel kernel, long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("cache size must be non-negative");
+        }
+
+        this.X = X;
+        this.y = y;
+        this.kernel = kernel;
+        this.maxBytes = maxBytes;
+        this.columnBytes = 8L * y.length;
+        this.columns = new LinkedHashMap<>(16, 0.75f, true);
+
+        this.diagonal = new double[y.length];
+        for (int i = 0; i < y.length; i++) {
+            diagonal[i] = X.diagonal(kernel, i);
+        }
+    }
+
+    /**
+     * Gets column i of Q, computing it on a miss. The returned array must not be modified.
+     *
+     * @param i Column index
+     * @return Q(:,i) with Q(k,i) = y_k·y_i·K(x_k, x_i)
+     */
+    public double[] getColumn(int i) {
+        double[] column = columns.get(i);
+        if (column != null) {
+            hits++;
+            return column;
+        }
+
+        misses++;
+        double[] filled = new double[y.length];
+        double label = y[i];
+        if (gram != null) {
+            // K is symmetric, so column i is row i of the mapped matrix
+            gram.readColumn(i, y, active, activeSize, filled);
+        } else if (store != null) {
+            // gather this run's rows from the stored row over the base dataset
+            double[] row = store.row(i, pool);
+            KernelStore.View view = store;
+            if (active == null) {
+                for (int k = 0; k < y.length; k++) {
+                    filled[k] = row[view.position(k)] * y[k] * label;
+                }
+            } else {
+                for (int a = 0; a < activeSize; a++) {
+                    int k = active[a];
+                    filled[k] = row[view.position(k)] * y[k] * label;
+                }
+            }
+        } else if (active == null) {
+            ParallelLoop.run(pool, y.length, (chunk, from, to) -> {
+                X.computeRow(kernel, i, from, to, filled);
+                for (int k = from; k < to; k++) {
+                    filled[k] *= y[k] * label;
+                }
+            });
+        } else {
+            int[] rows = active;
+            ParallelLoop.run(pool, activeSize, (chunk, from, to) -> {
+                X.computeRow(kernel, i, rows, from, to, filled);
+                for (int a = from; a < to; a++) {
+                    int k = rows[a];
+                    filled[k] *= y[k] * label;
+                }
+            });
+        }
+        column = filled;
+
+        // a budget smaller than one column means nothing is ever cached
+        if (columnBytes <= maxBytes) {
+            Iterator<Integer> eldest = columns.keySet().iterator();
+            while (usedBytes + columnBytes > maxBytes && eldest.hasNext()) {
+                partialColumns.remove(eldest.next());
+                eldest.remove();
+                usedBytes -= columnBytes;
+            }
+            columns.put(i, column);
+            usedBytes += columnBytes;
+            if (active != null) {
+                partialColumns.add(i);
+            }
+        }
+
+        return column;
+    }
+
+    /**
+     * Restricts newly computed columns to the given rows. Entries for other rows are left
+     * unset, so callers must only read active rows until {@link #clearActiveSet()} is called.
+     * The active set may only shrink between calls to clearActiveSet.
+     * 
+     * @param active Indices of the active rows
+     * @param activeSize Number of valid entries in active
+     */
+    public void setActiveSet(int[] active, int activeSize) {
+        this.active = active;
+        this.activeSize = activeSize;
+    }
+    
+    /**
+     * Restores full columns, dropping any cached column that was filled for a shrunk active set.
+     */
+    public void clearActiveSet() {
+        for (int i : partialColumns) {
+            columns.remove(i);
+            usedBytes -= columnBytes;
+        }
+        partialColumns.clear();
+        active = null;
+        activeSize = 0;
+    }
+    
+    /**
+     * Sets the pool used to compute the entries of a missing column in parallel. The cache
+     * itself is not thread-safe: getColumn must still be called from one thread at a time.
+     * 
+     * @param pool Pool to use, or null to compute columns on the calling thread
+     */
+    public void setParallelism(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    
+    /**
+     * Takes missing columns from a shared kernel store instead of computing them, so they are
+     * reused across training runs on the same rows. Only double rows can be shared.
+     * 
+     * @param store Store to use, or null to compute columns here
+     * @throws IllegalStateException if the rows are stored as float
+     */
+    public void setKernelStore(KernelStore store) {
+        if (store != null && X.asDouble() == null) {
+            throw new IllegalStateException("the kernel store needs double rows");
+        }
+        this.store = store == null ? null : store.view(kernel, X.asDouble());
+    }
+    
+    /**
+     * Reads missing columns from a precomputed kernel matrix instead of computing them. The
+     * matrix must have been built for the same rows and kernel.
+     * 
+     * @param gram Precomputed matrix, or null to compute columns here
+     */
+    public void setGramMatrix(MappedGramMatrix gram) {
+        this.gram = gram;
+    }
+    
+    /**
+     * Gets the kernel value of a training row with itself.
+     *
+     * @param i Row index
+     * @return K(x_i, x_i)
+     */
+    public double getDiagonal(int i) {
+        return diagonal[i];
+    }
+
+    /**
+     * Gets the number of column requests served from the cache.
+     *
+     * @return Hit count
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of column requests that had to be computed.
+     *
+     * @return Miss count
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of bytes currently held by cached columns.
+     *
+     * @return Bytes in use
+     */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Gets the configured byte budget.
+     *
+     * @return Maximum bytes for cached columns
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+}
@@ -0,0 +1,367 @@
+package model;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Thread-safe store of kernel matrix rows that outlives a single training run, so runs on the
+ * same data with the same kernel (e.g. the C values of a grid search, or the folds of a
+ * cross-validation) compute every kernel row at most once.
+ *
+ * Rows are keyed by the kernel parameters (kernels compare by value, so two RBFKernel objects
+ * with the same gamma share entries) and by dataset identity. The first dataset seen becomes a
+ * base dataset; any later matrix whose rows are the very same row arrays of a base dataset (a
+ * subset or reordering such as a CV fold built by selecting rows, without copying them) is
+ * mapped onto it, so overlapping runs share entries. A stored row holds K(x_i, x_j) for every
+ * row j of its base dataset and no labels, so it serves every subset and labelling. Since a
+ * miss computes the whole base row, only subsets with at least half the rows of a base dataset
+ * are mapped onto it; a smaller subset (e.g. a single held-out fold) becomes a base dataset of
+ * its own with rows of its own length.
+ *
+ * Rows are evicted least-recently-used once the byte budget is reached. A base dataset (and
+ * its row index) is dropped once its last stored row has been evicted; it is registered again
+ * if a run still using it stores another row. Register the full dataset first (see register)
+ * when its subsets are trained before the full set.
+ */
+public class KernelStore {
+
+    // Default byte budget (256 MB)
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    // Byte budget for stored rows
+    private final long maxBytes;
+
+    // A subset maps onto a base dataset only if the base has at most this many times its rows
+    static final int MAX_BASE_TO_SUBSET = 2;
+
+    // Estimated bytes of the row index per row of a base dataset (an IdentityHashMap entry
+    // with its table slots and the boxed position)
+    static final long INDEX_BYTES_PER_ROW = 48;
+
+    // Base datasets by id (ids are never reused, so views from before a clear() or a drop
+    // cannot collide with later datasets), and the same datasets by matrix identity
+    private final Map<Integer, Dataset> datasets = new LinkedHashMap<>();
+    private final Map<double[][], Dataset> byMatrix = new IdentityHashMap<>();
+    private int nextDatasetId;
+    private long indexBytes;
+
+    // Access-ordered map, so iteration starts at the least recently used row
+    private final LinkedHashMap<RowKey, double[]> rows = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+
+    // Statistics
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a store with the default byte budget.
+     */
+    public KernelStore() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Creates a store with the given byte budget.
+     *
+     * @param maxBytes Maximum number of bytes to spend on stored rows
+     */
+    public KernelStore(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("store size must be non-negative");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Registers a dataset as a base dataset, so later subsets of at least half its rows map
+     * onto it. Training
+     * on a dataset registers it automatically; calling this first is only needed when subsets
+     * are trained before the full set.
+     *
+     * @param X Dataset to register (its rows must not be modified afterwards)
+     */
+    public synchronized void register(double[][] X) {
+        resolve(X, new int[X.length]);
+    }
+
+    /**
+     * Binds a training matrix to the store.
+     *
+     * @param kernel Kernel of the run
+     * @param X Training rows
+     * @return View that serves kernel rows for X
+     */
+    synchronized View view(SVMKernel kernel, double[][] X) {
+        int[] position = new int[X.length];
+        Dataset dataset = resolve(X, position);
+        return new View(kernel, dataset, position);
+    }
+
+    /**
+     * Finds the base dataset containing every row of X, and at most MAX_BASE_TO_SUBSET times
+     * as many rows, registering X as a new one if there is none, and fills in the base position
+     * of each row. A registered matrix is found by identity in O(1); a subset is checked against
+     * each dataset until a row is missing, which for datasets that do not hold its first row
+     * costs one lookup.
+     */
+    private Dataset resolve(double[][] X, int[] position) {
+        Dataset same = byMatrix.get(X);
+        if (same != null) {
+            for (int i = 0; i < X.length; i++) {
+                position[i] = i;
+            }
+            return same;
+        }
+        for (Dataset dataset : datasets.values()) {
+            if (dataset.rows.length > (long) MAX_BASE_TO_SUBSET * X.length) {
+                continue;
+            }
+            boolean contained = true;
+            for (int i = 0; i < X.length && contained; i++) {
+                Integer p = dataset.positions.get(X[i]);
+                contained = p != null;
+                if (contained) {
+                    position[i] = p;
+                }
+            }
+            if (contained) {
+                return dataset;
+            }
+        }
+
+        Map<double[], Integer> positions = new IdentityHashMap<>();
+        for (int i = 0; i < X.length; i++) {
+            positions.putIfAbsent(X[i], i);
+            position[i] = i;
+        }
+        Dataset dataset = new Dataset(nextDatasetId++, X, positions);
+        add(dataset);
+        return dataset;
+    }
+
+    private void add(Dataset dataset) {
+        datasets.put(dataset.id, dataset);
+        byMatrix.put(dataset.rows, dataset);
+        indexBytes += INDEX_BYTES_PER_ROW * dataset.rows.length;
+    }
+
+    private void drop(Dataset dataset) {
+        datasets.remove(dataset.id);
+        byMatrix.remove(dataset.rows);
+        indexBytes -= INDEX_BYTES_PER_ROW * dataset.rows.length;
+    }
+
+    /**
+     * Gets a stored row, or null (counting the hit or miss).
+     */
+    private synchronized double[] lookup(RowKey key) {
+        double[] row = rows.get(key);
+        if (row != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return row;
+    }
+
+    /**
+     * Stores a computed row, evicting the least recently used rows to stay within budget and
+     * dropping base datasets that no longer have a stored row. If another thread stored the
+     * same row in the meantime, that row is kept and returned.
+     */
+    private synchronized double[] store(RowKey key, Dataset dataset, double[] row) {
+        double[] existing = rows.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        long bytes = 8L * row.length;
+        if (bytes > maxBytes) {
+            return row;
+        }
+        Iterator<Map.Entry<RowKey, double[]>> eldest = rows.entrySet().iterator();
+        while (usedBytes + bytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<RowKey, double[]> entry = eldest.next();
+            usedBytes -= 8L * entry.getValue().length;
+            eldest.remove();
+            Dataset owner = datasets.get(entry.getKey().dataset);
+            if (owner != null && --owner.storedRows == 0) {
+                drop(owner);
+            }
+        }
+        
+        // a run can outlive the rows of its dataset, so bring the dataset back for its new row
+        if (!datasets.containsKey(dataset.id)) {
+            add(dataset);
+        }
+        rows.put(key, row);
+        dataset.storedRows++;
+        usedBytes += bytes;
+        return row;
+    }
+
+    /**
+     * Drops every stored row and registered dataset (statistics are kept).
+     */
+    public synchronized void clear() {
+        rows.clear();
+        datasets.clear();
+        byMatrix.clear();
+        usedBytes = 0;
+        indexBytes = 0;
+    }
+
+    /**
+     * Gets the number of row requests served from the store.
+     *
+     * @return Hit count
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of row requests that had to be computed.
+     *
+     * @return Miss count
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the fraction of row requests served from the store.
+     *
+     * @return hits / (hits + misses), or 0 before the first request
+     */
+    public synchronized double getReuseRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * Gets the number of bytes held by stored rows plus the estimated size of the row index of
+     * every registered dataset. Only the rows count against the byte budget.
+     *
+     * @return Bytes in use
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes + indexBytes;
+    }
+
+    /**
+     * Gets the number of registered base datasets.
+     *
+     * @return Dataset count
+     */
+    public synchronized int getDatasetCount() {
+        return datasets.size();
+    }
+
+    /**
+     * Gets the configured byte budget.
+     *
+     * @return Maximum bytes for stored rows
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Kernel rows of one training matrix, backed by the store.
+     */
+    final class View {
+
+        private final SVMKernel kernel;
+        private final Dataset dataset;
+
+        // Position in the base dataset of each training row
+        private final int[] position;
+
+        private View(SVMKernel kernel, Dataset dataset, int[] position) {
+            this.kernel = kernel;
+            this.dataset = dataset;
+            this.position = position;
+        }
+
+        /**
+         * Gets K(x_i, b_j) for every row b_j of the base dataset, computing and storing it on a
+         * miss. The returned array must not be modified.
+         *
+         * @param i Training row
+         * @param pool Pool to compute a missing row on, or null for the calling thread
+         * @return The kernel row over the base dataset
+         */
+        double[] row(int i, ForkJoinPool pool) {
+            RowKey key = new RowKey(kernel, dataset.id, position[i]);
+            double[] row = lookup(key);
+            if (row != null) {
+                return row;
+            }
+
+            double[][] base = dataset.rows;
+            double[] computed = new double[base.length];
+            double[] x = base[position[i]];
+            ParallelLoop.run(pool, base.length, (chunk, from, to) -> kernel.computeRow(x, base, from, to, computed));
+            return store(key, dataset, computed);
+        }
+
+        /**
+         * Gets the position in the base dataset of a training row.
+         *
+         * @param i Training row
+         * @return Its index in the rows returned by row()
+         */
+        int position(int i) {
+            return position[i];
+        }
+    }
+
+    /**
+     * A base dataset: its rows, the position of each row array and how many of its kernel rows
+     * are stored (guarded by the store's lock).
+     */
+    private static final class Dataset {
+        private final int id;
+        private final double[][] rows;
+        private final Map<double[], Integer> positions;
+        private int storedRows;
+
+        Dataset(int id, double[][] rows, Map<double[], Integer> positions) {
+            this.id = id;
+            this.rows = rows;
+            this.positions = positions;
+        }
+    }
+
+    /**
+     * Key of a stored row: kernel parameters, base dataset and row.
+     */
+    private static final class RowKey {
+        private final SVMKernel kernel;
+        private final int dataset;
+        private final int row;
+
+        RowKey(SVMKernel kernel, int dataset, int row) {
+            this.kernel = kernel;
+            this.dataset = dataset;
+            this.row = row;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof RowKey)) {
+                return false;
+            }
+            RowKey other = (RowKey) o;
+            return row == other.row && dataset == other.dataset && kernel.equals(other.kernel);
+        }
+
+        @Override
+        public int hashCode() {
+            return (kernel.hashCode() * 31 + dataset) * 31 + row;
+        }
+    }
+}
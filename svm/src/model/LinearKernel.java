@@ -1,5 +1,7 @@
 package model;
 
+import math.MatrixOps;
+import math.SparseVector;
 import math.VectorOps;
 
 /**
@@ -9,6 +11,7 @@ import math.VectorOps;
  * This is the simplest kernel and is suitable for linearly separable data.
  */
 public class LinearKernel implements SVMKernel {
+    private static final long serialVersionUID = 1L;
     
     @Override
     public double compute(double[] x, double[] y) {
@@ -16,6 +19,97 @@ public class LinearKernel implements SVMKernel {
         return VectorOps.dotProduct(x, y);
     }
     
+    @Override
+    public void computeRow(double[] x, double[][] X, int from, int to, double[] out) {
+        MatrixOps.multiplyTransposed(x, X, from, to, out);
+    }
+    
+    @Override
+    public void computeRow(double[] x, double[][] X, int[] rows, int from, int to, double[] out) {
+        MatrixOps.multiplyTransposed(x, X, rows, from, to, out);
+    }
+    
+    @Override
+    public void computeBlock(double[][] Xa, double[][] Xb, double[][] out) {
+        MatrixOps.multiplyTransposed(Xa, Xb, out);
+    }
+    
+    @Override
+    public void computeBlock(double[][] Xa, int aFrom, int aTo, double[][] Xb, int bFrom, int bTo, double[][] out) {
+        MatrixOps.multiplyTransposed(Xa, aFrom, aTo, Xb, bFrom, bTo, out);
+    }
+    
+    @Override
+    public void computeBlock(double[][] Xa, int aFrom, int aTo, double[] rows, int from, int to, double[][] out) {
+        MatrixOps.multiplyTransposed(Xa, aFrom, aTo, rows, from, to, out);
+    }
+    
+    @Override
+    public void computeBlock(float[][] Xa, int aFrom, int aTo, float[] rows, int from, int to, double[][] out) {
+        MatrixOps.multiplyTransposed(Xa, aFrom, aTo, rows, from, to, out);
+    }
+    
+    @Override
+    public double compute(SparseVector x, SparseVector y) {
+        return VectorOps.dotProduct(x, y);
+    }
+    
+    @Override
+    public double compute(SparseVector x, double[] y) {
+        return VectorOps.dotProduct(x, y);
+    }
+    
+    @Override
+    public double compute(float[] x, float[] y) {
+        return VectorOps.dotProduct(x, y);
+    }
+    
+    @Override
+    public void computeRow(float[] x, float[][] X, int from, int to, double[] out) {
+        for (int k = from; k < to; k++) {
+            out[k] = VectorOps.dotProduct(x, X[k]);
+        }
+    }
+    
+    @Override
+    public void computeRow(float[] x, float[][] X, int[] rows, int from, int to, double[] out) {
+        for (int a = from; a < to; a++) {
+            int k = rows[a];
+            out[k] = VectorOps.dotProduct(x, X[k]);
+        }
+    }
+    
+    @Override
+    public void computeRow(double[] x, double[] rows, int from, int to, double[] out) {
+        for (int k = from; k < to; k++) {
+            out[k] = VectorOps.dotProduct(x, rows, k * x.length);
+        }
+    }
+    
+    @Override
+    public void computeRow(float[] x, float[] rows, int from, int to, double[] out) {
+        for (int k = from; k < to; k++) {
+            out[k] = VectorOps.dotProduct(x, rows, k * x.length);
+        }
+    }
+    
+    @Override
+    public void computeRow(SparseVector x, double[] rows, int from, int to, double[] out) {
+        for (int k = from; k < to; k++) {
+            out[k] = VectorOps.dotProduct(x, rows, k * x.getDimension());
+        }
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof LinearKernel;
+    }
+    
+    @Override
+    public int hashCode() {
+        return LinearKernel.class.hashCode();
+    }
+    
     @Override
     public String getName() {
         return "Linear";
@@ -0,0 +1,404 @@
+package model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Full kernel matrix K(x_i, x_j) precomputed into a memory-mapped file, for training sets whose
+ * kernel matrix is too large for the heap but fits on local disk (e.g. 100k rows take 40 GB as
+ * float32). Rows are read straight from the page cache through MappedByteBuffer, so SMO never
+ * recomputes a kernel value and the heap only holds the columns in its own KernelCache (which
+ * copies a column out, with the labels applied, when it misses).
+ *
+ * The file starts with a header recording the precision, the matrix size, a fingerprint of the
+ * training rows and the serialized kernel (its class and exact parameters). Opening a file
+ * whose header matches the data and kernel reuses it; anything else is recomputed and
+ * overwritten. The matrix is computed in parallel
+ * in square tiles, and only tiles on or above the diagonal are evaluated since K is symmetric.
+ * Java cannot map more than 2 GB at once, so the rows are split over several mappings.
+ */
+public class MappedGramMatrix implements Closeable {
+
+    /**
+     * Storage type of the matrix entries.
+     */
+    public enum Precision {
+        /** 4 bytes per entry, about 7 significant digits */
+        FLOAT32(4),
+        /** 8 bytes per entry, exact kernel values */
+        FLOAT64(8);
+
+        private final int bytes;
+
+        Precision(int bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * Gets the size of one entry.
+         *
+         * @return Bytes per entry
+         */
+        public int getBytes() {
+            return bytes;
+        }
+    }
+
+    // "SVMGRAM" followed by the format version
+    private static final long MAGIC = 0x53564d4752414d02L;
+
+    // Header: magic, precision, rows, features, data fingerprint, kernel length, then the
+    // serialized kernel; the entries start at the next multiple of 64 bytes
+    private static final int FIXED_HEADER_BYTES = 32;
+    private static final int HEADER_ALIGNMENT = 64;
+
+    // Rows and columns per tile while computing the matrix
+    private static final int TILE = 256;
+
+    // Byte order of the entries (the native order of x86 and ARM)
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private final FileChannel channel;
+    private final Precision precision;
+    private final int n;
+    private final byte[] kernelBytes;
+    private final long fingerprint;
+    private final boolean reused;
+    private final long headerBytes;
+
+    // Mappings of consecutive row ranges, each at most 2 GB
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final int rowsPerSegment;
+    private final long rowBytes;
+
+    private MappedGramMatrix(FileChannel channel, Precision precision, int n, byte[] kernelBytes, long fingerprint,
+                             boolean reused) throws IOException {
+        this.channel = channel;
+        this.precision = precision;
+        this.n = n;
+        this.kernelBytes = kernelBytes;
+        this.fingerprint = fingerprint;
+        this.reused = reused;
+        this.headerBytes = headerBytes(kernelBytes.length);
+        this.rowBytes = (long) n * precision.bytes;
+        this.rowsPerSegment = (int) Math.max(1, Integer.MAX_VALUE / Math.max(rowBytes, 1));
+
+        FileChannel.MapMode mode = reused ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+        for (int start = 0; start < n; start += rowsPerSegment) {
+            int rows = Math.min(rowsPerSegment, n - start);
+            MappedByteBuffer segment = channel.map(mode, headerBytes + start * rowBytes, rows * rowBytes);
+            segment.order(ORDER);
+            segments.add(segment);
+        }
+    }
+
+    /**
+     * Opens the Gram matrix file for the given data and kernel, reusing it if its header
+     * matches and computing and writing it otherwise.
+     *
+     * @param file Path of the matrix file
+     * @param X Training features
+     * @param kernel Kernel function
+     * @param precision Storage type for newly written files (a reused file keeps its own)
+     * @param pool Pool to compute tiles on, or null to compute on the calling thread
+     * @return The mapped matrix
+     * @throws IOException If the file cannot be read, written or mapped
+     */
+    public static MappedGramMatrix open(Path file, double[][] X, SVMKernel kernel, Precision precision,
+                                        ForkJoinPool pool) throws IOException {
+        int n = X.length;
+        byte[] kernelBytes = kernelBytes(kernel);
+        long fingerprint = fingerprint(X);
+        long headerBytes = headerBytes(kernelBytes.length);
+
+        if (Files.exists(file)) {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                ByteBuffer header = ByteBuffer.allocate((int) headerBytes);
+                channel.read(header, 0);
+                header.flip();
+                if (header.remaining() == headerBytes && header.getLong() == MAGIC) {
+                    int storedBytes = header.getInt();
+                    Precision stored = storedBytes == 4 ? Precision.FLOAT32 : Precision.FLOAT64;
+                    if (header.getInt() == n && header.getInt() == X[0].length && header.getLong() == fingerprint
+                        && header.getInt() == kernelBytes.length && sameBytes(header, kernelBytes)
+                        && channel.size() == headerBytes + (long) n * n * stored.bytes) {
+                        return new MappedGramMatrix(channel, stored, n, kernelBytes, fingerprint, true);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+            channel.close();
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            // the header is written last, so an interrupted run never leaves a file that looks valid
+            channel.write(ByteBuffer.allocate((int) headerBytes), 0);
+            MappedGramMatrix gram = new MappedGramMatrix(channel, precision, n, kernelBytes, fingerprint, false);
+            gram.compute(X, kernel, pool);
+            for (MappedByteBuffer segment : gram.segments) {
+                segment.force();
+            }
+            channel.write(gram.header(X[0].length), 0);
+            channel.force(false);
+            return gram;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Computes every tile on or above the diagonal and writes it together with its mirror image.
+     */
+    private void compute(double[][] X, SVMKernel kernel, ForkJoinPool pool) {
+        int tiles = (n + TILE - 1) / TILE;
+        if (pool == null) {
+            for (int ti = 0; ti < tiles; ti++) {
+                computeTileRow(X, kernel, ti);
+            }
+            return;
+        }
+
+        List<RecursiveAction> tasks = new ArrayList<>();
+        for (int ti = 0; ti < tiles; ti++) {
+            int row = ti;
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    computeTileRow(X, kernel, row);
+                }
+            });
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    /**
+     * Computes the tiles (ti, tj) for tj ≥ ti.
+     */
+    private void computeTileRow(double[][] X, SVMKernel kernel, int ti) {
+        int i0 = ti * TILE;
+        int i1 = Math.min(i0 + TILE, n);
+        double[][] block = new double[i1 - i0][TILE];
+        double[] column = new double[i1 - i0];
+
+        for (int j0 = i0; j0 < n; j0 += TILE) {
+            int j1 = Math.min(j0 + TILE, n);
+            kernel.computeBlock(X, i0, i1, X, j0, j1, block);
+
+            for (int i = i0; i < i1; i++) {
+                write(i, j0, block[i - i0], j1 - j0);
+            }
+            // mirror image: column j of the tile is row j of the matrix at columns i0..i1
+            if (j0 != i0) {
+                for (int j = j0; j < j1; j++) {
+                    for (int i = i0; i < i1; i++) {
+                        column[i - i0] = block[i - i0][j - j0];
+                    }
+                    write(j, i0, column, i1 - i0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes count values to row i starting at column j (on a private view of the mapping, so
+     * tiles can be written concurrently).
+     */
+    private void write(int i, int j, double[] values, int count) {
+        ByteBuffer target = rowView(i, j);
+        if (precision == Precision.FLOAT32) {
+            for (int k = 0; k < count; k++) {
+                target.putFloat((float) values[k]);
+            }
+        } else {
+            target.asDoubleBuffer().put(values, 0, count);
+        }
+    }
+
+    /**
+     * Gets a private view of the mapping positioned at row i, column j.
+     */
+    private ByteBuffer rowView(int i, int j) {
+        ByteBuffer view = segments.get(i / rowsPerSegment).duplicate().order(ORDER);
+        view.position((int) ((i % rowsPerSegment) * rowBytes + (long) j * precision.bytes));
+        return view;
+    }
+
+    /**
+     * Reads row i of the matrix, K(x_i, x_k) for every k (the matrix is symmetric, so this is
+     * also column i).
+     *
+     * @param i Row index
+     * @param out Output array with at least size() entries
+     */
+    public void readRow(int i, double[] out) {
+        ByteBuffer source = rowView(i, 0);
+        if (precision == Precision.FLOAT32) {
+            for (int k = 0; k < n; k++) {
+                out[k] = source.getFloat();
+            }
+        } else {
+            source.asDoubleBuffer().get(out, 0, n);
+        }
+    }
+
+    /**
+     * Reads column i of Q, out[k] = y_k·y_i·K(x_k, x_i), straight from the mapping for every
+     * row k, or only for rows[0..count) when rows is not null (the active set while SMO is
+     * shrunk). Entries for other rows are left unset.
+     */
+    void readColumn(int i, double[] y, int[] rows, int count, double[] out) {
+        ByteBuffer segment = segments.get(i / rowsPerSegment);
+        long start = (i % rowsPerSegment) * rowBytes;
+        double label = y[i];
+        int size = rows == null ? n : count;
+        for (int a = 0; a < size; a++) {
+            int k = rows == null ? a : rows[a];
+            int offset = (int) (start + (long) k * precision.bytes);
+            double value = precision == Precision.FLOAT32 ? segment.getFloat(offset) : segment.getDouble(offset);
+            out[k] = value * y[k] * label;
+        }
+    }
+
+    /**
+     * Gets a single kernel value.
+     *
+     * @param i Row index
+     * @param j Column index
+     * @return K(x_i, x_j)
+     */
+    public double get(int i, int j) {
+        ByteBuffer segment = segments.get(i / rowsPerSegment);
+        int offset = (int) ((i % rowsPerSegment) * rowBytes + (long) j * precision.bytes);
+        return precision == Precision.FLOAT32 ? segment.getFloat(offset) : segment.getDouble(offset);
+    }
+
+    /**
+     * Checks whether this matrix was built for the given data and kernel.
+     *
+     * @param X Training features
+     * @param kernel Kernel function
+     * @return True if the size, kernel and data fingerprint match
+     */
+    public boolean matches(double[][] X, SVMKernel kernel) {
+        return X.length == n && Arrays.equals(kernelBytes(kernel), kernelBytes) && fingerprint(X) == fingerprint;
+    }
+
+    /**
+     * Whether open() reused an existing file instead of computing the matrix.
+     *
+     * @return True if the file was reused
+     */
+    public boolean wasReused() {
+        return reused;
+    }
+
+    /**
+     * Gets the number of rows (and columns).
+     *
+     * @return The matrix size
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Gets the storage type of the entries.
+     *
+     * @return The precision
+     */
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Closes the file. The mappings stay readable until they are garbage collected, but the
+     * matrix should not be used after closing.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private ByteBuffer header(int features) {
+        ByteBuffer header = ByteBuffer.allocate((int) headerBytes);
+        header.putLong(MAGIC).putInt(precision.bytes).putInt(n).putInt(features).putLong(fingerprint)
+              .putInt(kernelBytes.length).put(kernelBytes);
+        header.rewind();
+        return header;
+    }
+
+    /**
+     * Size of a header holding a serialized kernel of the given length, rounded up so the
+     * entries start aligned.
+     */
+    private static long headerBytes(int kernelLength) {
+        long bytes = FIXED_HEADER_BYTES + kernelLength;
+        return (bytes + HEADER_ALIGNMENT - 1) / HEADER_ALIGNMENT * HEADER_ALIGNMENT;
+    }
+
+    /**
+     * Checks that the next bytes of the header are the given serialized kernel.
+     */
+    private static boolean sameBytes(ByteBuffer header, byte[] expected) {
+        if (header.remaining() < expected.length) {
+            return false;
+        }
+        byte[] stored = new byte[expected.length];
+        header.get(stored);
+        return Arrays.equals(stored, expected);
+    }
+
+    /**
+     * Identifies a kernel exactly by its serialized form, which holds its class and the value of
+     * every parameter (e.g. both gamma and the approximate exp flag of an RBFKernel).
+     */
+    private static byte[] kernelBytes(SVMKernel kernel) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(kernel);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("kernel cannot be serialized", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 64 bit FNV-1a hash over the size and the bits of every feature value.
+     */
+    private static long fingerprint(double[][] X) {
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ X.length) * 0x100000001b3L;
+        for (double[] row : X) {
+            hash = (hash ^ row.length) * 0x100000001b3L;
+            for (double v : row) {
+                hash = (hash ^ Double.doubleToLongBits(v)) * 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+}
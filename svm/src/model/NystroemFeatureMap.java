@@ -0,0 +1,130 @@
+package model;
+
+import java.util.Random;
+
+import math.MatrixOps;
+
+/**
+ * Nyström feature map for any kernel.
+ * 
+ * m landmark rows L are sampled from the training data. With the eigendecomposition of their
+ * kernel matrix K_LL = U·Λ·Uᵀ the map is
+ *    z(x) = Λ^(-1/2)·Uᵀ·k(x),   k(x) = (K(l₁, x), ..., K(l_m, x))
+ * so z(x)·z(y) = k(x)ᵀ·K_LL⁻¹·k(y), the Nyström approximation of K(x, y). It is exact on the
+ * landmarks. Eigenvalues below a small fraction of the largest are dropped, so the output
+ * dimension can be less than m for redundant landmarks. Transforming a row costs m kernel
+ * evaluations plus an m x m product.
+ * 
+ * Reference: "Using the Nyström Method to Speed Up Kernel Machines" by Christopher Williams and
+ * Matthias Seeger.
+ */
+public class NystroemFeatureMap implements FeatureMap {
+    
+    private static final long serialVersionUID = 1L;
+    
+    // Eigenvalues below this fraction of the largest one are treated as zero
+    private static final double EIGENVALUE_CUTOFF = 1e-10;
+    
+    // Kernel being approximated
+    private final SVMKernel kernel;
+    
+    // Number of landmarks
+    private final int m;
+    
+    // Seed for sampling the landmarks
+    private final long seed;
+    
+    // Landmark rows and the projection Λ^(-1/2)·Uᵀ (one row per output feature), set by fit
+    private double[][] landmarks;
+    private double[][] projection;
+    
+    /**
+     * Creates a Nyström feature map.
+     * 
+     * @param kernel Kernel to approximate
+     * @param m Number of landmarks
+     * @param seed Random seed for sampling the landmarks
+     */
+    public NystroemFeatureMap(SVMKernel kernel, int m, long seed) {
+        if (m < 1) {
+            throw new IllegalArgumentException("number of landmarks must be at least 1");
+        }
+        this.kernel = kernel;
+        this.m = m;
+        this.seed = seed;
+    }
+    
+    @Override
+    public FeatureMap fit(double[][] X) {
+        int count = Math.min(m, X.length);
+        
+        // partial Fisher-Yates shuffle picks count distinct rows
+        int[] order = new int[X.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Random random = new Random(seed);
+        landmarks = new double[count][];
+        for (int i = 0; i < count; i++) {
+            int k = i + random.nextInt(X.length - i);
+            int tmp = order[i];
+            order[i] = order[k];
+            order[k] = tmp;
+            landmarks[i] = X[order[i]].clone();
+        }
+        
+        double[][] gram = new double[count][count];
+        kernel.computeBlock(landmarks, landmarks, gram);
+        
+        double[] eigenvalues = new double[count];
+        double[][] eigenvectors = new double[count][count];
+        MatrixOps.symmetricEigen(gram, eigenvalues, eigenvectors);
+        
+        double largest = 0.0;
+        for (double lambda : eigenvalues) {
+            largest = Math.max(largest, lambda);
+        }
+        int kept = 0;
+        for (double lambda : eigenvalues) {
+            if (lambda > EIGENVALUE_CUTOFF * largest) {
+                kept++;
+            }
+        }
+        
+        // row r of the projection is u_r / √λ_r
+        projection = new double[kept][];
+        int r = 0;
+        for (int e = 0; e < count; e++) {
+            if (eigenvalues[e] > EIGENVALUE_CUTOFF * largest) {
+                double scale = 1.0 / Math.sqrt(eigenvalues[e]);
+                double[] row = new double[count];
+                for (int i = 0; i < count; i++) {
+                    row[i] = eigenvectors[i][e] * scale;
+                }
+                projection[r++] = row;
+            }
+        }
+        return this;
+    }
+    
+    @Override
+    public double[] transform(double[] x) {
+        if (landmarks == null) {
+            throw new IllegalStateException("feature map has not been fitted");
+        }
+        
+        double[] k = new double[landmarks.length];
+        kernel.computeRow(x, landmarks, k);
+        return MatrixOps.multiply(projection, k);
+    }
+    
+    @Override
+    public int getOutputDimension() {
+        return projection == null ? m : projection.length;
+    }
+    
+    @Override
+    public String getName() {
+        return "Nystroem (" + kernel.getName() + ", m=" + m + ")";
+    }
+}
@@ -0,0 +1,71 @@
+package model;
+
+/**
+ * Result of an SVMOptimizer run: the dual solution, the bias and why training stopped.
+ * Linear solvers also report the primal weight vector.
+ */
+public class OptimizationResult {
+    
+    // Lagrange multipliers, one per training example
+    private final double[] alphas;
+    
+    // Bias term (b)
+    private final double bias;
+    
+    // Primal weight vector w = Σ αᵢ·yᵢ·xᵢ (null if the solver does not maintain it)
+    private final double[] weights;
+    
+    // Why the solver stopped
+    private final TerminationReason terminationReason;
+    
+    /**
+     * Creates an optimization result.
+     * 
+     * @param alphas Lagrange multipliers
+     * @param bias Bias term
+     * @param weights Primal weight vector, or null
+     * @param terminationReason Why the solver stopped
+     */
+    public OptimizationResult(double[] alphas, double bias, double[] weights, TerminationReason terminationReason) {
+        this.alphas = alphas;
+        this.bias = bias;
+        this.weights = weights;
+        this.terminationReason = terminationReason;
+    }
+    
+    /**
+     * Gets the Lagrange multipliers.
+     * 
+     * @return The alphas
+     */
+    public double[] getAlphas() {
+        return alphas;
+    }
+    
+    /**
+     * Gets the bias term.
+     * 
+     * @return The bias
+     */
+    public double getBias() {
+        return bias;
+    }
+    
+    /**
+     * Gets the primal weight vector.
+     * 
+     * @return w, or null if the solver does not maintain it
+     */
+    public double[] getWeights() {
+        return weights;
+    }
+    
+    /**
+     * Gets the reason the solver stopped.
+     * 
+     * @return The termination reason
+     */
+    public TerminationReason getTerminationReason() {
+        return terminationReason;
+    }
+}
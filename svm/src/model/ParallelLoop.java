@@ -0,0 +1,112 @@
+package model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits index ranges into chunks and runs them on a ForkJoinPool. Used for the per-example
+ * loops of SMO training and for batch scoring in SVMModel, where every index can be processed
+ * independently.
+ * 
+ * Each chunk gets its own index so reductions (e.g. finding a maximum) can write partial
+ * results into a per-chunk slot and merge them afterwards without any locking.
+ */
+final class ParallelLoop {
+    
+    // Smallest chunk worth handing to another thread
+    static final int MIN_CHUNK = 2048;
+    
+    /**
+     * Body of a parallel loop, called once per chunk.
+     */
+    interface ChunkBody {
+        /**
+         * Processes indices [from, to).
+         * 
+         * @param chunk Index of the chunk (0 to chunks - 1)
+         * @param from First index (inclusive)
+         * @param to Last index (exclusive)
+         */
+        void apply(int chunk, int from, int to);
+    }
+    
+    private ParallelLoop() {
+    }
+    
+    /**
+     * Gets the number of chunks a loop of the given size is split into.
+     * 
+     * @param pool Pool to run on, or null to run sequentially
+     * @param size Number of indices
+     * @return Number of chunks (1 when the loop runs on the calling thread)
+     */
+    static int chunks(ForkJoinPool pool, int size) {
+        if (pool == null || pool.getParallelism() < 2 || size < 2 * MIN_CHUNK) {
+            return 1;
+        }
+        return Math.min(pool.getParallelism() * 4, size / MIN_CHUNK);
+    }
+    
+    /**
+     * Runs body over [0, size) split into the given number of chunks.
+     * 
+     * @param pool Pool to run on (ignored when chunks is 1)
+     * @param size Number of indices
+     * @param chunks Number of chunks, from chunks(pool, size)
+     * @param body Loop body
+     */
+    static void run(ForkJoinPool pool, int size, int chunks, ChunkBody body) {
+        if (chunks <= 1) {
+            body.apply(0, 0, size);
+            return;
+        }
+        pool.invoke(new ChunkTask(body, size, chunks, 0, chunks));
+    }
+    
+    /**
+     * Runs body over [0, size), choosing the number of chunks automatically.
+     * 
+     * @param pool Pool to run on, or null to run sequentially
+     * @param size Number of indices
+     * @param body Loop body
+     */
+    static void run(ForkJoinPool pool, int size, ChunkBody body) {
+        run(pool, size, chunks(pool, size), body);
+    }
+    
+    /**
+     * Recursively splits a range of chunks in half until a single chunk is left.
+     */
+    private static class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final ChunkBody body;
+        private final int size;
+        private final int chunks;
+        private final int firstChunk;
+        private final int lastChunk;
+        
+        ChunkTask(ChunkBody body, int size, int chunks, int firstChunk, int lastChunk) {
+            this.body = body;
+            this.size = size;
+            this.chunks = chunks;
+            this.firstChunk = firstChunk;
+            this.lastChunk = lastChunk;
+        }
+        
+        @Override
+        protected void compute() {
+            if (lastChunk - firstChunk == 1) {
+                body.apply(firstChunk, start(firstChunk), start(firstChunk + 1));
+                return;
+            }
+            int middle = (firstChunk + lastChunk) >>> 1;
+            invokeAll(new ChunkTask(body, size, chunks, firstChunk, middle),
+                      new ChunkTask(body, size, chunks, middle, lastChunk));
+        }
+        
+        private int start(int chunk) {
+            return (int) ((long) size * chunk / chunks);
+        }
+    }
+}
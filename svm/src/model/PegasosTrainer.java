@@ -0,0 +1,172 @@
+package model;
+
+/**
+ * Mini-batch Pegasos trainer for linear SVMs on streamed data.
+ * 
+ * Minimizes the primal objective λ/2·||w||² + average hinge loss with stochastic sub-gradient
+ * steps. Rows are consumed one at a time from an Iterable (e.g. CSVReader.streamCSV), so
+ * memory use is constant: only w, the bias and one mini-batch gradient are kept, never the
+ * rows themselves. For a mini-batch A at step t, with step size η = 1/(λ·t):
+ *    A⁺ = {(x, y) in A : y·(w·x + b) < 1}
+ *    w ← (1 - η·λ)·w + η/|A|·Σ_{A⁺} y·x
+ *    b ← b + η/|A|·Σ_{A⁺} y              (the bias is not regularized)
+ *    w ← min(1, (1/√λ)/||w||)·w          (optional projection)
+ * 
+ * Reference: "Pegasos: Primal Estimated sub-GrAdient SOlver for SVM" by Shai Shalev-Shwartz,
+ * Yoram Singer, Nathan Srebro and Andrew Cotter.
+ */
+public class PegasosTrainer {
+    
+    // Regularization strength (plays the role of 1/(n·C))
+    private double lambda;
+    
+    // Number of rows per sub-gradient step
+    private int batchSize;
+    
+    // Number of passes over the stream
+    private int epochs;
+    
+    // Whether to project w onto the ball of radius 1/√λ after each step
+    private boolean projection = true;
+    
+    // Rows per second of each epoch in the most recent run
+    private double[] epochThroughput;
+    
+    /**
+     * Creates a Pegasos trainer.
+     * 
+     * @param lambda Regularization strength
+     * @param batchSize Number of rows per mini-batch
+     * @param epochs Number of passes over the data
+     */
+    public PegasosTrainer(double lambda, int batchSize, int epochs) {
+        if (lambda <= 0 || batchSize <= 0 || epochs <= 0) {
+            throw new IllegalArgumentException("lambda, batch size and epochs must be positive");
+        }
+        this.lambda = lambda;
+        this.batchSize = batchSize;
+        this.epochs = epochs;
+    }
+    
+    /**
+     * Trains a linear model on streamed rows. Each row holds the features plus a label column;
+     * labels greater than 0 are treated as +1 and all others as -1.
+     * 
+     * @param rows Re-iterable row source, iterated once per epoch
+     * @param labelColumn Index of the label within each row
+     * @return A linear SVMModel with the learned weights and bias
+     */
+    public SVMModel train(Iterable<double[]> rows, int labelColumn) {
+        double[] w = null;
+        double[] gradient = null;
+        double bias = 0.0;
+        long t = 0;
+        epochThroughput = new double[epochs];
+        
+        System.out.println("Starting Pegasos training with lambda=" + lambda + ", batchSize=" + batchSize + ", epochs=" + epochs);
+        
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            long start = System.nanoTime();
+            long rowCount = 0;
+            int inBatch = 0;
+            double biasGradient = 0.0;
+            
+            for (double[] row : rows) {
+                if (w == null) {
+                    w = new double[row.length - 1];
+                    gradient = new double[row.length - 1];
+                }
+                
+                double label = row[labelColumn] > 0 ? 1.0 : -1.0;
+                
+                // w·x + b, skipping the label column
+                double output = bias;
+                for (int c = 0, f = 0; c < row.length; c++) {
+                    if (c != labelColumn) {
+                        output += w[f++] * row[c];
+                    }
+                }
+                
+                // accumulate the hinge sub-gradient at the w of this batch
+                if (label * output < 1) {
+                    for (int c = 0, f = 0; c < row.length; c++) {
+                        if (c != labelColumn) {
+                            gradient[f++] += label * row[c];
+                        }
+                    }
+                    biasGradient += label;
+                }
+                
+                rowCount++;
+                if (++inBatch == batchSize) {
+                    bias = step(w, gradient, bias, biasGradient, inBatch, ++t);
+                    inBatch = 0;
+                    biasGradient = 0.0;
+                }
+            }
+            
+            // last partial batch of the pass
+            if (inBatch > 0) {
+                bias = step(w, gradient, bias, biasGradient, inBatch, ++t);
+            }
+            
+            double seconds = (System.nanoTime() - start) / 1e9;
+            epochThroughput[epoch] = rowCount / Math.max(seconds, 1e-9);
+            System.out.println("Epoch " + epoch + ": " + rowCount + " rows in " + String.format("%.3f", seconds) + " s ("
+                               + String.format("%.0f", epochThroughput[epoch]) + " rows/sec)");
+        }
+        
+        if (w == null) {
+            throw new IllegalArgumentException("no rows to train on");
+        }
+        
+        return new SVMModel(w, bias);
+    }
+    
+    /**
+     * Applies one Pegasos step with the accumulated batch gradient and clears it.
+     * 
+     * @return the new bias
+     */
+    private double step(double[] w, double[] gradient, double bias, double biasGradient, int count, long t) {
+        double eta = 1.0 / (lambda * t);
+        double shrink = 1.0 - eta * lambda;
+        double scale = eta / count;
+        
+        double squaredNorm = 0.0;
+        for (int f = 0; f < w.length; f++) {
+            w[f] = shrink * w[f] + scale * gradient[f];
+            gradient[f] = 0.0;
+            squaredNorm += w[f] * w[f];
+        }
+        
+        if (projection && squaredNorm > 0) {
+            double factor = Math.min(1.0, 1.0 / Math.sqrt(lambda * squaredNorm));
+            if (factor < 1.0) {
+                for (int f = 0; f < w.length; f++) {
+                    w[f] *= factor;
+                }
+            }
+        }
+        
+        return bias + scale * biasGradient;
+    }
+    
+    /**
+     * Enables or disables the projection onto the ball of radius 1/√λ (on by default).
+     * 
+     * @param projection Whether to project w after each step
+     */
+    public void setProjection(boolean projection) {
+        this.projection = projection;
+    }
+    
+    /**
+     * Gets the throughput of each epoch of the most recent run.
+     * 
+     * @return Rows per second for each epoch (null before the first run)
+     */
+    public double[] getEpochThroughput() {
+        return epochThroughput;
+    }
+}
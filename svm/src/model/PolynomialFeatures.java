@@ -0,0 +1,181 @@
+package model;
+
+/**
+ * Exact explicit feature map of the polynomial kernel K(x, y) = (x·y + c)^p.
+ *
+ * By the multinomial theorem
+ *    (x·y + c)^p = Σ p! / (k₀!·k₁!···k_n!) · c^k₀ · Π (xᵢ·yᵢ)^kᵢ
+ * over all exponents with k₀ + k₁ + ... + k_n = p, so mapping x to the monomials Π xᵢ^kᵢ of
+ * degree at most p, each scaled by √(p! / (k₀!·k₁!···k_n!) · c^k₀), gives z(x)·z(y) = K(x, y)
+ * exactly. There are C(n + p, p) such monomials (66 for 10 features at degree 2, 286 at degree
+ * 3), so for low degrees and few features a linear model on z(x) is the same model as the
+ * kernel SVM at a fraction of the cost. The constant c must not be negative.
+ */
+public class PolynomialFeatures implements FeatureMap {
+
+    private static final long serialVersionUID = 1L;
+
+    // Kernel parameters
+    private final double constant;
+    private final int degree;
+
+    // Monomial j is monomial parent[j] times x[variable[j]] (monomial 0 is the constant 1), set by fit
+    private int[] parent;
+    private int[] variable;
+
+    // Multinomial scale of each monomial, and the monomials with a non-zero scale
+    private double[] scale;
+    private int[] outputs;
+
+    // Number of input features seen by fit
+    private int features;
+
+    /**
+     * Creates the explicit feature map of a polynomial kernel.
+     *
+     * @param kernel Polynomial kernel to expand
+     * @throws IllegalArgumentException if the kernel constant is negative
+     */
+    public PolynomialFeatures(PolynomialKernel kernel) {
+        if (kernel.getConstant() < 0) {
+            throw new IllegalArgumentException("explicit expansion needs a non-negative kernel constant");
+        }
+        if (kernel.getDegree() < 0) {
+            throw new IllegalArgumentException("explicit expansion needs a non-negative degree");
+        }
+        this.constant = kernel.getConstant();
+        this.degree = kernel.getDegree();
+    }
+
+    /**
+     * Gets the number of monomials of degree at most p in n variables, C(n + p, p), which is the
+     * output dimension for a non-zero kernel constant.
+     *
+     * @param features Number of input features n
+     * @param degree Polynomial degree p
+     * @return The number of monomials (Long.MAX_VALUE if it overflows)
+     */
+    public static long outputDimension(int features, int degree) {
+        long count = 1;
+        for (int k = 1; k <= degree; k++) {
+            // C(n + k, k) = C(n + k - 1, k - 1) · (n + k) / k, exact at every step
+            if (count > Long.MAX_VALUE / (features + k)) {
+                return Long.MAX_VALUE;
+            }
+            count = count * (features + k) / k;
+        }
+        return count;
+    }
+
+    @Override
+    public FeatureMap fit(double[][] X) {
+        features = X[0].length;
+        long total = outputDimension(features, degree);
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("expansion of " + features + " features to degree " + degree + " is too wide");
+        }
+        int size = (int) total;
+
+        parent = new int[size];
+        variable = new int[size];
+        scale = new double[size];
+
+        // exponent state per monomial: the highest variable used, its total degree and the
+        // product of the factorials of its exponents
+        int[] last = new int[size];
+        int[] order = new int[size];
+        double[] factorials = new double[size];
+        int[] run = new int[size];
+
+        parent[0] = -1;
+        variable[0] = -1;
+        last[0] = 0;
+        factorials[0] = 1.0;
+
+        // monomials of degree q are built from those of degree q - 1 by multiplying with a
+        // variable no lower than their highest one, so each monomial is generated once
+        int count = 1;
+        int levelStart = 0;
+        int levelEnd = 1;
+        for (int q = 1; q <= degree; q++) {
+            for (int j = levelStart; j < levelEnd; j++) {
+                for (int i = last[j]; i < features; i++) {
+                    parent[count] = j;
+                    variable[count] = i;
+                    last[count] = i;
+                    order[count] = q;
+                    // exponent of variable i grows by one: its factorial gains a factor of run + 1
+                    run[count] = (j > 0 && variable[j] == i) ? run[j] + 1 : 1;
+                    factorials[count] = factorials[j] * run[count];
+                    count++;
+                }
+            }
+            levelStart = levelEnd;
+            levelEnd = count;
+        }
+
+        int nonZero = 0;
+        for (int j = 0; j < size; j++) {
+            // p! / (k₀!·Π kᵢ!) · c^k₀ with k₀ = p - q
+            int k0 = degree - order[j];
+            double coefficient = factorial(degree) / (factorial(k0) * factorials[j]) * Math.pow(constant, k0);
+            scale[j] = Math.sqrt(coefficient);
+            if (coefficient != 0.0) {
+                nonZero++;
+            }
+        }
+
+        outputs = new int[nonZero];
+        int o = 0;
+        for (int j = 0; j < size; j++) {
+            if (scale[j] != 0.0) {
+                outputs[o++] = j;
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public double[] transform(double[] x) {
+        if (parent == null) {
+            throw new IllegalStateException("feature map has not been fitted");
+        }
+        if (x.length != features) {
+            throw new IllegalArgumentException("expected " + features + " features, got " + x.length);
+        }
+
+        double[] monomials = new double[parent.length];
+        monomials[0] = 1.0;
+        for (int j = 1; j < parent.length; j++) {
+            monomials[j] = monomials[parent[j]] * x[variable[j]];
+        }
+
+        double[] z = new double[outputs.length];
+        for (int o = 0; o < outputs.length; o++) {
+            int j = outputs[o];
+            z[o] = scale[j] * monomials[j];
+        }
+        return z;
+    }
+
+    @Override
+    public int getOutputDimension() {
+        if (outputs == null) {
+            throw new IllegalStateException("feature map has not been fitted");
+        }
+        return outputs.length;
+    }
+
+    @Override
+    public String getName() {
+        return "Polynomial Features (degree " + degree + ")";
+    }
+
+    private static double factorial(int k) {
+        double result = 1.0;
+        for (int i = 2; i <= k; i++) {
+            result *= i;
+        }
+        return result;
+    }
+}
@@ -1,5 +1,7 @@
 package model;
 
+import math.MatrixOps;
+import math.SparseVector;
 import math.VectorOps;
 
 /**
@@ -8,6 +10,8 @@ import math.VectorOps;
  * K(x, y) = (x · y + c)^d where c is a constant and d is the degree.
  */
 public class PolynomialKernel implements SVMKernel {
+    private static final long serialVersionUID = 1L;
+    
     private final double constant;
     private final int degree;
     
@@ -29,6 +33,141 @@ public class PolynomialKernel implements SVMKernel {
         return Math.pow(dotProduct + this.constant, this.degree);
     }
 
+    @Override
+    public void computeRow(double[] x, double[][] X, int from, int to, double[] out) {
+        MatrixOps.multiplyTransposed(x, X, from, to, out);
+        for (int k = from; k < to; k++) {
+            out[k] = Math.pow(out[k] + constant, degree);
+        }
+    }
+    
+    @Override
+    public void computeRow(double[] x, double[][] X, int[] rows, int from, int to, double[] out) {
+        MatrixOps.multiplyTransposed(x, X, rows, from, to, out);
+        for (int a = from; a < to; a++) {
+            int k = rows[a];
+            out[k] = Math.pow(out[k] + constant, degree);
+        }
+    }
+    
+    @Override
+    public void computeBlock(double[][] Xa, double[][] Xb, double[][] out) {
+        computeBlock(Xa, 0, Xa.length, Xb, 0, Xb.length, out);
+    }
+    
+    @Override
+    public void computeBlock(double[][] Xa, int aFrom, int aTo, double[][] Xb, int bFrom, int bTo, double[][] out) {
+        MatrixOps.multiplyTransposed(Xa, aFrom, aTo, Xb, bFrom, bTo, out);
+        raise(out, aTo - aFrom, bTo - bFrom);
+    }
+    
+    @Override
+    public void computeBlock(double[][] Xa, int aFrom, int aTo, double[] rows, int from, int to, double[][] out) {
+        MatrixOps.multiplyTransposed(Xa, aFrom, aTo, rows, from, to, out);
+        raise(out, aTo - aFrom, to - from);
+    }
+    
+    @Override
+    public void computeBlock(float[][] Xa, int aFrom, int aTo, float[] rows, int from, int to, double[][] out) {
+        MatrixOps.multiplyTransposed(Xa, aFrom, aTo, rows, from, to, out);
+        raise(out, aTo - aFrom, to - from);
+    }
+    
+    /**
+     * Turns the dot products of a block into kernel values, (x · y + c)^d.
+     */
+    private void raise(double[][] block, int rows, int columns) {
+        for (int i = 0; i < rows; i++) {
+            double[] row = block[i];
+            for (int j = 0; j < columns; j++) {
+                row[j] = Math.pow(row[j] + constant, degree);
+            }
+        }
+    }
+    
+    @Override
+    public double compute(SparseVector x, SparseVector y) {
+        return Math.pow(VectorOps.dotProduct(x, y) + constant, degree);
+    }
+    
+    @Override
+    public double compute(SparseVector x, double[] y) {
+        return Math.pow(VectorOps.dotProduct(x, y) + constant, degree);
+    }
+    
+    @Override
+    public double compute(float[] x, float[] y) {
+        return Math.pow(VectorOps.dotProduct(x, y) + constant, degree);
+    }
+    
+    @Override
+    public void computeRow(float[] x, float[][] X, int from, int to, double[] out) {
+        for (int k = from; k < to; k++) {
+            out[k] = Math.pow(VectorOps.dotProduct(x, X[k]) + constant, degree);
+        }
+    }
+    
+    @Override
+    public void computeRow(float[] x, float[][] X, int[] rows, int from, int to, double[] out) {
+        for (int a = from; a < to; a++) {
+            int k = rows[a];
+            out[k] = Math.pow(VectorOps.dotProduct(x, X[k]) + constant, degree);
+        }
+    }
+    
+    @Override
+    public void computeRow(double[] x, double[] rows, int from, int to, double[] out) {
+        for (int k = from; k < to; k++) {
+            out[k] = Math.pow(VectorOps.dotProduct(x, rows, k * x.length) + constant, degree);
+        }
+    }
+    
+    @Override
+    public void computeRow(float[] x, float[] rows, int from, int to, double[] out) {
+        for (int k = from; k < to; k++) {
+            out[k] = Math.pow(VectorOps.dotProduct(x, rows, k * x.length) + constant, degree);
+        }
+    }
+    
+    @Override
+    public void computeRow(SparseVector x, double[] rows, int from, int to, double[] out) {
+        for (int k = from; k < to; k++) {
+            out[k] = Math.pow(VectorOps.dotProduct(x, rows, k * x.getDimension()) + constant, degree);
+        }
+    }
+    
+    /**
+     * Gets the constant term.
+     * 
+     * @return c in (x · y + c)^d
+     */
+    public double getConstant() {
+        return constant;
+    }
+    
+    /**
+     * Gets the degree.
+     * 
+     * @return d in (x · y + c)^d
+     */
+    public int getDegree() {
+        return degree;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof PolynomialKernel)) {
+            return false;
+        }
+        PolynomialKernel other = (PolynomialKernel) o;
+        return Double.compare(constant, other.constant) == 0 && degree == other.degree;
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(constant) + degree;
+    }
+    
     @Override
     public String getName() {
         return "Polynomial Kernel";
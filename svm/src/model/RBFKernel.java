@@ -1,41 +1,357 @@
 package model;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import math.FastExp;
+import math.MatrixOps;
+import math.SparseVector;
+import math.VectorOps;
+
 /**
  * Radial Basis Function (RBF) kernel implementation.
  * Useful for complex non-linear classification tasks.
  * K(x, y) = exp(-gamma * ||x - y||^2)
+ * 
+ * Rows and blocks against many rows (the training set in SMO, the support vectors of a model)
+ * expand ||x - y||² = ||x||² + ||y||² - 2·x·y, so the dot products run as the tiled multiply of
+ * MatrixOps (single rows only from 16 features on, since with fewer the exp dominates). The squared norms of those rows are computed the first time an array of rows is
+ * seen and cached by array identity, so the rows of an array passed to computeRow or
+ * computeBlock (as X or Xb) must not be modified in place afterwards: the kernel would keep
+ * using the old norms and return wrong values without any error. Pass a new array instead.
  */
 public class RBFKernel implements SVMKernel {
+    private static final long serialVersionUID = 1L;
+    
+    // Shortest rows for which a kernel row, or a block against rows stored back to back, uses
+    // the norm expansion; below this the exp dominates and the direct distance loop is as fast
+    // (measured 93 vs 102 ms for 2000 rows of 4000 entries at 10 features, 141 vs 125 ms at 20)
+    private static final int EXPANSION_MIN_FEATURES = 16;
+    
     private final double gamma;
     
+    // Whether to use FastExp instead of Math.exp
+    private final boolean approximateExp;
+    
+    // Squared row norms of the row arrays passed to computeRow and computeBlock (double[][], or
+    // flat double[] or float[] rows), keyed by array identity (arrays do not override equals)
+    // and dropped once an array is garbage collected
+    private final transient Map<Object, double[]> rowNorms = Collections.synchronizedMap(new WeakHashMap<>());
+    
     /**
      * Constructor with custom gamma parameter
      * 
      * @param gamma The gamma parameter in exp(-gamma * ||x - y||^2)
      */
     public RBFKernel(double gamma) {
+        this(gamma, false);
+    }
+    
+    /**
+     * Constructor that can switch to the approximate exponential. Kernel values then have a
+     * relative error of at most FastExp.MAX_RELATIVE_ERROR (1e-10), which is far below the SMO
+     * tolerances, in exchange for a cheaper exp.
+     * 
+     * @param gamma The gamma parameter in exp(-gamma * ||x - y||^2)
+     * @param approximateExp Whether to use FastExp.exp instead of Math.exp
+     */
+    public RBFKernel(double gamma, boolean approximateExp) {
         this.gamma = gamma;
+        this.approximateExp = approximateExp;
     }
 
     @Override
     public double compute(double[] x, double[] y) {
         // Calculate squared Euclidean distance ||x - y||^2
-        if (x.length != y.length) {
-            throw new IllegalArgumentException("Vectors must have the same length");
+        double squaredDistance = VectorOps.squaredDistance(x, y);
+        
+        // K(x, y) = exp(-gamma * ||x - y||^2)
+        return exp(-this.gamma * squaredDistance);
+    }
+
+    /*
+     * Rows (one kernel column in SMO) and blocks use the norm expansion: the cached squared norms
+     * of X or Xb, the squared norm of each query computed per call (queries are often reused
+     * buffers), and the dot products from MatrixOps, four rows at a time.
+     */
+    
+    @Override
+    public void computeRow(double[] x, double[][] X, int from, int to, double[] out) {
+        if (x.length < EXPANSION_MIN_FEATURES) {
+            for (int k = from; k < to; k++) {
+                out[k] = exp(-gamma * VectorOps.squaredDistance(x, X[k]));
+            }
+            return;
+        }
+        double[] norms = normsOf(X);
+        double norm = VectorOps.dotProduct(x, x);
+        MatrixOps.multiplyTransposed(x, X, from, to, out);
+        for (int k = from; k < to; k++) {
+            out[k] = fromDot(norm, norms[k], out[k]);
+        }
+    }
+    
+    @Override
+    public void computeRow(double[] x, double[][] X, int[] rows, int from, int to, double[] out) {
+        if (x.length < EXPANSION_MIN_FEATURES) {
+            for (int a = from; a < to; a++) {
+                int k = rows[a];
+                out[k] = exp(-gamma * VectorOps.squaredDistance(x, X[k]));
+            }
+            return;
+        }
+        double[] norms = normsOf(X);
+        double norm = VectorOps.dotProduct(x, x);
+        MatrixOps.multiplyTransposed(x, X, rows, from, to, out);
+        for (int a = from; a < to; a++) {
+            int k = rows[a];
+            out[k] = fromDot(norm, norms[k], out[k]);
+        }
+    }
+    
+    @Override
+    public void computeBlock(double[][] Xa, double[][] Xb, double[][] out) {
+        computeBlock(Xa, 0, Xa.length, Xb, 0, Xb.length, out);
+    }
+    
+    @Override
+    public void computeBlock(double[][] Xa, int aFrom, int aTo, double[][] Xb, int bFrom, int bTo, double[][] out) {
+        double[] normsB = normsOf(Xb);
+        MatrixOps.multiplyTransposed(Xa, aFrom, aTo, Xb, bFrom, bTo, out);
+        for (int i = aFrom; i < aTo; i++) {
+            double normA = VectorOps.dotProduct(Xa[i], Xa[i]);
+            double[] row = out[i - aFrom];
+            for (int j = bFrom; j < bTo; j++) {
+                row[j - bFrom] = fromDot(normA, normsB[j], row[j - bFrom]);
+            }
+        }
+    }
+    
+    @Override
+    public double compute(SparseVector x, SparseVector y) {
+        return exp(-gamma * VectorOps.squaredDistance(x, y));
+    }
+    
+    @Override
+    public double compute(SparseVector x, double[] y) {
+        return exp(-gamma * VectorOps.squaredDistance(x, y, VectorOps.dotProduct(y, y)));
+    }
+    
+    /*
+     * A sparse vector against dense rows reuses the cached squared norms of the rows, so each
+     * kernel value only touches the non-zeros of x.
+     */
+    
+    @Override
+    public void computeRow(SparseVector x, double[][] X, double[] out) {
+        double[] norms = normsOf(X);
+        for (int k = 0; k < X.length; k++) {
+            out[k] = exp(-gamma * VectorOps.squaredDistance(x, X[k], norms[k]));
+        }
+    }
+    
+    @Override
+    public double compute(float[] x, float[] y) {
+        return exp(-gamma * VectorOps.squaredDistance(x, y));
+    }
+    
+    @Override
+    public void computeRow(float[] x, float[][] X, int from, int to, double[] out) {
+        for (int k = from; k < to; k++) {
+            out[k] = exp(-gamma * VectorOps.squaredDistance(x, X[k]));
+        }
+    }
+    
+    @Override
+    public void computeRow(float[] x, float[][] X, int[] rows, int from, int to, double[] out) {
+        for (int a = from; a < to; a++) {
+            int k = rows[a];
+            out[k] = exp(-gamma * VectorOps.squaredDistance(x, X[k]));
+        }
+    }
+    
+    @Override
+    public void computeRow(double[] x, double[] rows, int from, int to, double[] out) {
+        for (int k = from; k < to; k++) {
+            out[k] = exp(-gamma * VectorOps.squaredDistance(x, rows, k * x.length));
+        }
+    }
+    
+    @Override
+    public void computeRow(float[] x, float[] rows, int from, int to, double[] out) {
+        for (int k = from; k < to; k++) {
+            out[k] = exp(-gamma * VectorOps.squaredDistance(x, rows, k * x.length));
+        }
+    }
+    
+    /*
+     * Blocks against rows stored back to back (the support vectors of a model) use the cached
+     * norms of the stored rows and one tiled multiply per block, except for rows too short for
+     * the expansion to pay off.
+     */
+    
+    @Override
+    public void computeBlock(double[][] Xa, int aFrom, int aTo, double[] rows, int from, int to, double[][] out) {
+        if (aFrom >= aTo) {
+            return;
+        }
+        int d = Xa[aFrom].length;
+        if (d < EXPANSION_MIN_FEATURES) {
+            for (int i = aFrom; i < aTo; i++) {
+                for (int k = from; k < to; k++) {
+                    out[i - aFrom][k - from] = exp(-gamma * VectorOps.squaredDistance(Xa[i], rows, k * d));
+                }
+            }
+            return;
         }
         
-        double squaredDistance = 0.0;
-        for (int i = 0; i < x.length; i++) {
-            double diff = x[i] - y[i];
-            squaredDistance += diff * diff;
+        double[] norms = normsOf(rows, d);
+        MatrixOps.multiplyTransposed(Xa, aFrom, aTo, rows, from, to, out);
+        for (int i = aFrom; i < aTo; i++) {
+            double normA = VectorOps.dotProduct(Xa[i], Xa[i]);
+            double[] row = out[i - aFrom];
+            for (int k = from; k < to; k++) {
+                row[k - from] = fromDot(normA, norms[k], row[k - from]);
+            }
+        }
+    }
+    
+    @Override
+    public void computeBlock(float[][] Xa, int aFrom, int aTo, float[] rows, int from, int to, double[][] out) {
+        if (aFrom >= aTo) {
+            return;
+        }
+        int d = Xa[aFrom].length;
+        if (d < EXPANSION_MIN_FEATURES) {
+            for (int i = aFrom; i < aTo; i++) {
+                for (int k = from; k < to; k++) {
+                    out[i - aFrom][k - from] = exp(-gamma * VectorOps.squaredDistance(Xa[i], rows, k * d));
+                }
+            }
+            return;
         }
         
-        // K(x, y) = exp(-gamma * ||x - y||^2)
-        return Math.exp(-this.gamma * squaredDistance);
+        double[] norms = normsOf(rows, d);
+        MatrixOps.multiplyTransposed(Xa, aFrom, aTo, rows, from, to, out);
+        for (int i = aFrom; i < aTo; i++) {
+            double normA = VectorOps.dotProduct(Xa[i], Xa[i]);
+            double[] row = out[i - aFrom];
+            for (int k = from; k < to; k++) {
+                row[k - from] = fromDot(normA, norms[k], row[k - from]);
+            }
+        }
     }
-
+    
+    @Override
+    public void computeRow(SparseVector x, double[] rows, int from, int to, double[] out) {
+        int d = x.getDimension();
+        double[] norms = normsOf(rows, d);
+        for (int k = from; k < to; k++) {
+            out[k] = exp(-gamma * VectorOps.squaredDistance(x, rows, k * d, norms[k]));
+        }
+    }
+    
+    /**
+     * K(x, y) from ||x||², ||y||² and x·y (rounding can make the distance slightly negative).
+     */
+    private double fromDot(double xNorm, double yNorm, double dot) {
+        return exp(-gamma * Math.max(xNorm + yNorm - 2 * dot, 0.0));
+    }
+    
+    /**
+     * e^x, exact or approximate depending on the mode.
+     */
+    private double exp(double x) {
+        return approximateExp ? FastExp.exp(x) : Math.exp(x);
+    }
+    
+    /**
+     * Whether this kernel uses the approximate exponential.
+     * 
+     * @return True if FastExp is used
+     */
+    public boolean isApproximateExp() {
+        return approximateExp;
+    }
+    
+    /**
+     * Gets the squared norms of the rows of X, computing them the first time X is seen.
+     */
+    private double[] normsOf(double[][] X) {
+        return rowNorms.computeIfAbsent(X, key -> {
+            double[] norms = new double[X.length];
+            for (int k = 0; k < X.length; k++) {
+                norms[k] = VectorOps.dotProduct(X[k], X[k]);
+            }
+            return norms;
+        });
+    }
+    
+    /**
+     * Gets the squared norms of rows of length d stored back to back, computing them the first
+     * time the array is seen.
+     */
+    private double[] normsOf(double[] rows, int d) {
+        return rowNorms.computeIfAbsent(rows, key -> {
+            double[] norms = new double[d == 0 ? 0 : rows.length / d];
+            for (int k = 0; k < norms.length; k++) {
+                for (int f = k * d; f < (k + 1) * d; f++) {
+                    norms[k] += rows[f] * rows[f];
+                }
+            }
+            return norms;
+        });
+    }
+    
+    /**
+     * Gets the squared norms of float rows of length d stored back to back (accumulated in
+     * double), computing them the first time the array is seen.
+     */
+    private double[] normsOf(float[] rows, int d) {
+        return rowNorms.computeIfAbsent(rows, key -> {
+            double[] norms = new double[d == 0 ? 0 : rows.length / d];
+            for (int k = 0; k < norms.length; k++) {
+                for (int f = k * d; f < (k + 1) * d; f++) {
+                    norms[k] += (double) rows[f] * rows[f];
+                }
+            }
+            return norms;
+        });
+    }
+    
+    /**
+     * Gets the gamma parameter.
+     * 
+     * @return gamma in exp(-gamma * ||x - y||^2)
+     */
+    public double getGamma() {
+        return gamma;
+    }
+    
+    /**
+     * Rebuilds a deserialized kernel through the constructor so it gets a fresh norm cache.
+     */
+    private Object readResolve() {
+        return new RBFKernel(gamma, approximateExp);
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof RBFKernel)) {
+            return false;
+        }
+        RBFKernel other = (RBFKernel) o;
+        return Double.compare(gamma, other.gamma) == 0 && approximateExp == other.approximateExp;
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(gamma) + (approximateExp ? 1 : 0);
+    }
+    
     @Override
     public String getName() {
-        return "RBF Kernel";
+        return approximateExp ? "RBF Kernel (approximate exp)" : "RBF Kernel";
     }
 }
@@ -0,0 +1,97 @@
+package model;
+
+import java.util.Random;
+
+/**
+ * Random Fourier features for the RBF kernel.
+ * 
+ * By Bochner's theorem exp(-γ·||x - y||²) = E[cos(w·x + b)·cos(w·y + b)]·2 for w drawn from
+ * N(0, 2γ·I) and b uniform on [0, 2π]. Drawing m such (w, b) pairs gives the map
+ *    z(x) = √(2/m) · (cos(w₁·x + b₁), ..., cos(w_m·x + b_m))
+ * with z(x)·z(y) → K(x, y) as m grows (the error shrinks like 1/√m). Transforming a row costs
+ * O(m·d).
+ * 
+ * Reference: "Random Features for Large-Scale Kernel Machines" by Ali Rahimi and Benjamin Recht.
+ */
+public class RandomFourierFeatures implements FeatureMap {
+    
+    private static final long serialVersionUID = 1L;
+    
+    // Kernel width of the RBF kernel being approximated
+    private final double gamma;
+    
+    // Number of random features
+    private final int m;
+    
+    // Seed for drawing the features
+    private final long seed;
+    
+    // Random directions (m x d) and phases (m), set by fit
+    private double[][] directions;
+    private double[] phases;
+    
+    /**
+     * Creates a random Fourier feature map for an RBF kernel.
+     * 
+     * @param kernel RBF kernel to approximate
+     * @param m Number of features
+     * @param seed Random seed
+     */
+    public RandomFourierFeatures(RBFKernel kernel, int m, long seed) {
+        if (m < 1) {
+            throw new IllegalArgumentException("number of features must be at least 1");
+        }
+        this.gamma = kernel.getGamma();
+        this.m = m;
+        this.seed = seed;
+    }
+    
+    @Override
+    public FeatureMap fit(double[][] X) {
+        int d = X[0].length;
+        Random random = new Random(seed);
+        double scale = Math.sqrt(2 * gamma);
+        
+        directions = new double[m][d];
+        phases = new double[m];
+        for (int j = 0; j < m; j++) {
+            for (int f = 0; f < d; f++) {
+                directions[j][f] = random.nextGaussian() * scale;
+            }
+            phases[j] = random.nextDouble() * 2 * Math.PI;
+        }
+        return this;
+    }
+    
+    @Override
+    public double[] transform(double[] x) {
+        if (directions == null) {
+            throw new IllegalStateException("feature map has not been fitted");
+        }
+        if (x.length != directions[0].length) {
+            throw new IllegalArgumentException("expected " + directions[0].length + " features, got " + x.length);
+        }
+        
+        double norm = Math.sqrt(2.0 / m);
+        double[] z = new double[m];
+        for (int j = 0; j < m; j++) {
+            double[] w = directions[j];
+            double projection = phases[j];
+            for (int f = 0; f < x.length; f++) {
+                projection += w[f] * x[f];
+            }
+            z[j] = norm * Math.cos(projection);
+        }
+        return z;
+    }
+    
+    @Override
+    public int getOutputDimension() {
+        return m;
+    }
+    
+    @Override
+    public String getName() {
+        return "Random Fourier Features (m=" + m + ")";
+    }
+}
@@ -0,0 +1,67 @@
+package model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random working set selection.
+ * 
+ * Picks two distinct examples uniformly at random. This is the original selection used by
+ * the simplified SMO and is kept mainly for comparison against smarter strategies.
+ * 
+ * Each thread draws from its own SplittableRandom split off a shared root, so selectors used
+ * by concurrent training runs never contend on a shared generator like Math.random() does.
+ */
+public class RandomWorkingSetSelector implements WorkingSetSelector {
+    
+    // Root generator, only touched (under its lock) to split off per-thread generators
+    private final SplittableRandom root;
+    
+    // Generator of the current thread
+    private final ThreadLocal<SplittableRandom> random = ThreadLocal.withInitial(this::split);
+    
+    /**
+     * Creates a random selector with a fixed seed, for reproducible runs.
+     * 
+     * @param seed Random seed
+     */
+    public RandomWorkingSetSelector(long seed) {
+        this.root = new SplittableRandom(seed);
+    }
+    
+    /**
+     * Creates a random selector with a random seed.
+     */
+    public RandomWorkingSetSelector() {
+        this.root = new SplittableRandom();
+    }
+    
+    private SplittableRandom split() {
+        synchronized (root) {
+            return root.split();
+        }
+    }
+    
+    @Override
+    public int[] select(int[] active, int activeSize, double[] alphas, double[] y, double[] errors, 
+                        double C, KernelCache cache) {
+        if (activeSize < 2) {
+            return null;
+        }
+        
+        SplittableRandom generator = random.get();
+        int i = generator.nextInt(activeSize);
+        int j = generator.nextInt(activeSize);
+        
+        // ensure different indices
+        while (j == i) {
+            j = generator.nextInt(activeSize);
+        }
+        
+        return new int[] {active[i], active[j]};
+    }
+    
+    @Override
+    public String getName() {
+        return "Random selection";
+    }
+}
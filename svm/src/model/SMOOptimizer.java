@@ -3,6 +3,10 @@ package model;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+
 /**
  * Simplified Sequential Minimal Optimization (SMO) algorithm implementation for SVM training.
  * 
@@ -12,7 +16,7 @@ import static java.lang.Math.min;
  * Reference: "Fast Training of Support Vector Machines using Sequential Minimal Optimization"
  * by John Platt.
  */
-public class SMOOptimizer {
+public class SMOOptimizer implements SVMOptimizer {
     
     // Regularization parameter (controls trade-off between margin and training error)
     private double C;
@@ -23,17 +27,71 @@ public class SMOOptimizer {
     // Kernel function to use (no kernel just means 'linear' kernel. we must make one)
     private SVMKernel kernel;
     
+    // Default byte budget for the kernel column cache (100 MB)
+    public static final long DEFAULT_CACHE_BYTES = 100L * 1024 * 1024;
+    
+    // Byte budget for the kernel column cache
+    private long cacheBytes;
+    
+    // Kernel column cache of the most recent optimize() call (kept for its statistics)
+    private KernelCache cache;
+    
+    // Strategy for picking the pair of alphas to optimize at each step
+    private WorkingSetSelector selector = new SecondOrderWorkingSetSelector();
+    
+    // Whether to temporarily drop examples stuck at their bounds from the working problem
+    private boolean shrinking = false;
+    
+    // Stopping rule, and the maximal KKT violation accepted by ConvergenceCriterion.KKT_GAP
+    private ConvergenceCriterion criterion = ConvergenceCriterion.KKT_GAP;
+    private double tolerance = 1e-3;
+    
+    // Wall-clock budget for one optimize() call in milliseconds (0 means no budget)
+    private long timeBudgetMillis = 0;
+    
+    // Why the most recent optimize() call stopped
+    private TerminationReason terminationReason;
+    
+    // Whether to maintain the primal weight vector instead of summing kernel values (linear kernel only)
+    private boolean linearFastPath;
+    
+    // Primal weight vector w = Σ αᵢ·yᵢ·xᵢ of the current run when the linear fast path is on
+    private double[] weights;
+    
+    // Pool for the per-example loops (null means everything runs on the calling thread)
+    private ForkJoinPool pool;
+    
+    // Kernel rows shared with other runs on the same data (null means this run computes its own)
+    private KernelStore kernelStore;
+    
+    // Precomputed kernel matrix of the training data (null means kernel values are computed)
+    private MappedGramMatrix gram;
+    
     /**
      * Creates an SMO optimizer with the specified parameters.
      * 
      * @param C Regularization parameter (controls how much room we leave for error)
      * @param maxIterations Maximum number of iterations
      * @param kernel Kernel function to use (linear most likely, rbf or poly if necessary)
+     * @param cacheBytes Maximum number of bytes to spend on cached kernel columns
      */
-    public SMOOptimizer(double C, int maxIterations, SVMKernel kernel) {
+    public SMOOptimizer(double C, int maxIterations, SVMKernel kernel, long cacheBytes) {
         this.C = C;
         this.maxIterations = maxIterations;
         this.kernel = kernel;
+        this.cacheBytes = cacheBytes;
+        this.linearFastPath = kernel instanceof LinearKernel;
+    }
+    
+    /**
+     * Creates an SMO optimizer with the default kernel cache size.
+     * 
+     * @param C Regularization parameter (controls how much room we leave for error)
+     * @param maxIterations Maximum number of iterations
+     * @param kernel Kernel function to use (linear most likely, rbf or poly if necessary)
+     */
+    public SMOOptimizer(double C, int maxIterations, SVMKernel kernel) {
+        this(C, maxIterations, kernel, DEFAULT_CACHE_BYTES);
     }
     
     /**
@@ -51,9 +109,90 @@ public class SMOOptimizer {
      * 
      * @param X Training features
      * @param y Training labels (should be +1 or -1)
-     * @return An array containing the Lagrange multipliers and bias term
+     * @return The Lagrange multipliers, bias term and termination reason
      */
-    public Object[] optimize(double[][] X, double[] y) {
+    @Override
+    public OptimizationResult optimize(double[][] X, double[] y) {
+        return solve(TrainingRows.of(X), y, randomAlphas(y.length), 0.0);
+    }
+    
+    /**
+     * Optimizes on rows stored as float, which halves the memory of the training data. Kernel
+     * values are still accumulated in double, so the only difference to the double rows is the
+     * rounding of the stored features. Kernel stores and precomputed Gram matrices are keyed by
+     * double rows and cannot be used.
+     * 
+     * @param X Training features
+     * @param y Training labels (should be +1 or -1)
+     * @return The Lagrange multipliers, bias term and termination reason
+     * @throws IllegalStateException if a kernel store or precomputed Gram matrix is set
+     */
+    public OptimizationResult optimize(float[][] X, double[] y) {
+        if (kernelStore != null || gram != null) {
+            throw new IllegalStateException("kernel stores and precomputed Gram matrices need double rows");
+        }
+        return solve(TrainingRows.of(X), y, randomAlphas(y.length), 0.0);
+    }
+    
+    /**
+     * Initializes alphas with small random values to break symmetry.
+     */
+    private static double[] randomAlphas(int n) {
+        double[] alphas = new double[n];
+        SplittableRandom random = new SplittableRandom();
+        for (int i = 0; i < n; i++) {
+            alphas[i] = random.nextDouble() * 0.01;
+        }
+        return alphas;
+    }
+    
+    /**
+     * Optimizes the SVM model starting from a previous solution for the same training set
+     * (alpha seeding). The alphas are scaled by C / initialC, so a solution found for a
+     * smaller C keeps its examples at the bound, and then clipped into [0, C]. A good seed
+     * leaves only a few pair updates to do.
+     * 
+     * @param X Training features
+     * @param y Training labels (should be +1 or -1)
+     * @param initialAlphas Alphas of the previous solution, one per training example
+     * @param initialBias Bias of the previous solution
+     * @param initialC C the previous solution was trained with
+     * @return The Lagrange multipliers, bias term and termination reason
+     */
+    public OptimizationResult optimize(double[][] X, double[] y, double[] initialAlphas, double initialBias, double initialC) {
+        if (initialAlphas.length != y.length) {
+            throw new IllegalArgumentException("expected " + y.length + " initial alphas, got " + initialAlphas.length);
+        }
+        if (initialC <= 0) {
+            throw new IllegalArgumentException("initial C must be positive");
+        }
+        
+        double scale = C / initialC;
+        double[] alphas = new double[y.length];
+        for (int i = 0; i < y.length; i++) {
+            alphas[i] = min(max(initialAlphas[i] * scale, 0.0), C);
+        }
+        
+        return solve(TrainingRows.of(X), y, alphas, initialBias);
+    }
+    
+    /**
+     * Optimizes the SVM model starting from a previous solution trained with the same C.
+     * 
+     * @param X Training features
+     * @param y Training labels (should be +1 or -1)
+     * @param initialAlphas Alphas of the previous solution, one per training example
+     * @param initialBias Bias of the previous solution
+     * @return The Lagrange multipliers, bias term and termination reason
+     */
+    public OptimizationResult optimize(double[][] X, double[] y, double[] initialAlphas, double initialBias) {
+        return optimize(X, y, initialAlphas, initialBias, C);
+    }
+    
+    /**
+     * Runs SMO from the given starting point. The alphas array is updated in place.
+     */
+    private OptimizationResult solve(TrainingRows X, double[] y, double[] alphas, double initialBias) {
         // EQUATIONS:
         // -----------------------
         // 1. SVM Decision Function (used for predictions and error calculation):
@@ -76,59 +215,160 @@ public class SMOOptimizer {
         //    b_new = b - E₁ - y₁·(α₁_new - α₁)·K(x₁,x₁) - y₂·(α₂_new - α₂)·K(x₁,x₂)
         
         // --- IMPLEMENTATION ---
-        // initialize alpha array to zeros, bias to small values, and prepare error cache array
-        double[] alphas = new double[y.length];
+        // prepare error cache array
         double[] errors = new double[y.length];
-        double bias = 0.0;
+        double bias = initialBias;
+        if (gram != null && !gram.matches(X.asDouble(), kernel)) {
+            throw new IllegalArgumentException("precomputed Gram matrix was built for different data or a different kernel");
+        }
+        cache = new KernelCache(X, y, kernel, cacheBytes);
+        cache.setParallelism(pool);
+        cache.setKernelStore(kernelStore);
+        cache.setGramMatrix(gram);
+        selector.setParallelism(pool);
         
-        // initialize alphas with small random values to break symmetry
-        for (int i = 0; i < y.length; i++) {
-            alphas[i] = Math.random() * 0.01;
+        // with a linear kernel f(x) = w·x + b, so build w once in O(n·d)
+        weights = null;
+        if (linearFastPath) {
+            weights = new double[X.dimension()];
+            for (int i = 0; i < y.length; i++) {
+                X.addScaled(weights, alphas[i] * y[i], i);
+            }
         }
         
-        // initialize error cache
-        for (int i = 0; i < y.length; i++) {
-            errors[i] = computeOutput(X[i], X, y, alphas, bias) - y[i];
+        // initialize error cache (in parallel mode straight from the kernel, since the cache is single-threaded)
+        if (linearFastPath) {
+            ParallelLoop.run(pool, y.length, (chunk, from, to) -> {
+                for (int k = from; k < to; k++) {
+                    errors[k] = computeOutput(k, X, y, alphas, initialBias) - y[k];
+                }
+            });
+        } else if (pool == null || kernelStore != null || gram != null) {
+            // only columns of non-zero alphas contribute, which a seeded start keeps to the support vectors
+            // (with a shared store or a precomputed matrix no kernel values are computed, so this path is used in parallel mode too)
+            for (int k = 0; k < y.length; k++) {
+                errors[k] = initialBias - y[k];
+            }
+            for (int i = 0; i < y.length; i++) {
+                if (alphas[i] > 0) {
+                    double[] column = cache.getColumn(i);
+                    for (int k = 0; k < y.length; k++) {
+                        errors[k] += y[k] * alphas[i] * column[k];
+                    }
+                }
+            }
+        } else {
+            ParallelLoop.run(pool, y.length, (chunk, from, to) -> {
+                double[] row = new double[y.length];
+                for (int k = from; k < to; k++) {
+                    X.computeRow(kernel, k, 0, y.length, row);
+                    double sum = 0.0;
+                    for (int i = 0; i < y.length; i++) {
+                        sum += alphas[i] * y[i] * row[i];
+                    }
+                    errors[k] = sum + initialBias - y[k];
+                }
+            });
         }
         
         System.out.println("Starting SMO optimization with C=" + C + ", maxIterations=" + maxIterations);
         int num_changed = 0;
         int below_10 = 0;
+        long deadline = System.currentTimeMillis() + timeBudgetMillis;
+        TerminationReason reason = TerminationReason.MAX_ITERATIONS;
         
-        // main optimization loop with early stopping if no progress is made
-        for (int iter = 0; iter < maxIterations; iter++) {
+        // active set: examples the selector may pick and whose errors are kept up to date
+        int[] active = new int[y.length];
+        for (int i = 0; i < y.length; i++) {
+            active[i] = i;
+        }
+        int activeSize = y.length;
+        int shrinkInterval = Math.min(y.length, 1000);
+        int stepsUntilShrink = shrinkInterval;
+        
+        // main optimization loop, stopping on the convergence criterion or the time budget
+        int[] lastUnchanged = null;
+        for (int iter = 0; iter < maxIterations && reason == TerminationReason.MAX_ITERATIONS; iter++) {
             num_changed = 0;
 
-            // random selection for other iterations (batches in 100 for our dataset)
+            // pair updates in batches of 100 for our dataset
             for (int attempt = 0; attempt < Math.min(100, y.length); attempt++) {
-                int i = (int) (Math.random() * y.length);
-                int j = (int) (Math.random() * y.length);
+                // every pair update only lowers the dual objective, so the current alphas are
+                // always the best solution found so far
+                if (timeBudgetMillis > 0 && System.currentTimeMillis() >= deadline) {
+                    reason = TerminationReason.TIME_BUDGET;
+                    break;
+                }
+                
+                int[] pair = selector.select(active, activeSize, alphas, y, errors, C, cache);
+                if (pair != null && criterion == ConvergenceCriterion.KKT_GAP) {
+                    // the selector reports the gap from its own scan when it has one
+                    double gap = selector.getLastGap();
+                    if (Double.isNaN(gap)) {
+                        gap = maxViolation(active, activeSize, y, alphas, errors);
+                    }
+                    if (gap < tolerance) {
+                        pair = null;
+                    }
+                }
+                
+                // a deterministic selector returns the same pair again if nothing changed
+                boolean repeated = pair != null && lastUnchanged != null 
+                                   && pair[0] == lastUnchanged[0] && pair[1] == lastUnchanged[1];
                 
-                // ensure different indices
-                while (j == i) {
-                    j = (int) (Math.random() * y.length);
+                if (pair == null || repeated) {
+                    // the shrunk problem is done, so check the full problem before stopping
+                    if (activeSize < y.length) {
+                        activeSize = unshrink(active, activeSize, X, y, alphas, errors, bias);
+                        lastUnchanged = null;
+                        continue;
+                    }
+                    
+                    reason = repeated ? TerminationReason.NO_PROGRESS : TerminationReason.CONVERGED;
+                    break;
                 }
                 
                 double oldBias = bias;
-                bias = optimizePair(i, j, X, y, alphas, errors, bias);
+                bias = optimizePair(pair[0], pair[1], X, y, alphas, errors, bias, active, activeSize);
                 if (bias != oldBias) {
                     num_changed++;
+                    lastUnchanged = null;
+                } else {
+                    lastUnchanged = pair;
+                }
+                
+                if (shrinking && --stepsUntilShrink == 0) {
+                    activeSize = shrink(active, activeSize, y, alphas, errors);
+                    stepsUntilShrink = shrinkInterval;
                 }
             }
 
-            System.out.println("Iteration " + iter + ": Random selection, " + num_changed + " alphas changed");
+            System.out.println("Iteration " + iter + ": " + selector.getName() + ", " + num_changed + " alphas changed");
             
-            // for early stopping if little progress is made
-            if (num_changed < 10) {
-                below_10++;
-            }
-
-            if (below_10 > 5) {
-                System.out.println("Early stopping at iteration " + iter + " - less than 10 alphas changed for 5 iterations");
-                break;
+            if (reason == TerminationReason.CONVERGED) {
+                System.out.println("Converged at iteration " + iter + " - maximal KKT violation below " + tolerance);
+            } else if (reason == TerminationReason.NO_PROGRESS) {
+                System.out.println("Stopping at iteration " + iter + " - selected pair cannot make progress");
+            } else if (reason == TerminationReason.TIME_BUDGET) {
+                System.out.println("Stopping at iteration " + iter + " - time budget of " + timeBudgetMillis + " ms used up");
+            } else if (criterion == ConvergenceCriterion.EARLY_STOPPING) {
+                // for early stopping if little progress is made
+                if (num_changed < 10) {
+                    below_10++;
+                }
+                
+                if (below_10 > 5) {
+                    System.out.println("Early stopping at iteration " + iter + " - less than 10 alphas changed for 5 iterations");
+                    reason = TerminationReason.EARLY_STOPPING;
+                }
             }
         }
         
+        // examples still shrunk away when the loop ends need their errors rebuilt too
+        if (activeSize < y.length) {
+            unshrink(active, activeSize, X, y, alphas, errors, bias);
+        }
+        
         // count support vectors
         int supportVectorCount = 0;
         for (int i = 0; i < alphas.length; i++) {
@@ -137,8 +377,11 @@ public class SMOOptimizer {
             }
         }
         System.out.println("Optimization completed with " + supportVectorCount + " support vectors out of " + y.length + " training examples");
+        System.out.println("Kernel cache: " + cache.getHits() + " hits, " + cache.getMisses() + " misses, " 
+                           + cache.getUsedBytes() + " of " + cache.getMaxBytes() + " bytes used");
 
-        return new Object[] {alphas, bias};
+        terminationReason = reason;
+        return new OptimizationResult(alphas, bias, weights, reason);
     }
     
     /**
@@ -149,17 +392,17 @@ public class SMOOptimizer {
      * @param X Training data
      * @param y Training labels
      * @param alphas Current alpha values
-     * @param errors Error cache
-     * @param b Current bias
+     * @param errors Error cache (E_k = f(x_k) - y_k, kept exact for every active k)
+     * @param bias Current bias
+     * @param active Indices of the active examples
+     * @param activeSize Number of valid entries in active
      * @return the new bias
      */
-    private double optimizePair(int i, int j, double[][] X, double[] y, double[] alphas, 
-                                double[] errors, double bias) {
-        // calculate the errors and cache them immediately: E_i = f(x_i) - y_i
-        double err_1 = computeOutput(X[i], X, y, alphas, bias) - y[i];
-        double err_2 = computeOutput(X[j], X, y, alphas, bias) - y[j]; // Fixed: using y[j] instead of y[i]
-        errors[i] = err_1;
-        errors[j] = err_2;
+    private double optimizePair(int i, int j, TrainingRows X, double[] y, double[] alphas, 
+                                double[] errors, double bias, int[] active, int activeSize) {
+        // the error cache is kept exact for every example, so E_i = f(x_i) - y_i is a lookup
+        double err_1 = errors[i];
+        double err_2 = errors[j];
 
         // grab old alphas for future bias update
         double old_a1 = alphas[i];
@@ -169,20 +412,20 @@ public class SMOOptimizer {
         double y1 = y[i];
         double y2 = y[j];
 
-        // x1 and x2 via X[i_r][i_c] and X[_r][_c]
-        // kernel(x1, x2), etc., via compute with ^ indices
-        double sim_11 = kernel.compute(X[i], X[i]);
-        double sim_12 = kernel.compute(X[i], X[j]);
-        double sim_22 = kernel.compute(X[j], X[j]);
+        // kernel(x1, x2), etc., via the kernel cache (Q(j,i) = y1·y2·K(x1,x2), so undo the labels)
+        double sim_11 = cache.getDiagonal(i);
+        double sim_12 = linearFastPath ? X.dot(i, j) : y1 * y2 * cache.getColumn(i)[j];
+        double sim_22 = cache.getDiagonal(j);
 
         // ALPHA UPDATE:
         // --------------------------------------------
         // compute η = 2·K(x₁,x₂) - K(x₁,x₁) - K(x₂,x₂)
         double eta = 2 * sim_12 - sim_11 - sim_22;
         
-        // if eta is not positive, we can't make progress with this pair
+        // if eta is not negative (e.g. duplicate rows) the objective is flat or concave along this
+        // pair, so use a tiny curvature instead: the step then runs to one of the bounds
         if (eta >= -1e-10) { // using a small negative threshold to account for numerical precision
-            return bias; // return without updating
+            eta = -SecondOrderWorkingSetSelector.TAU;
         }
 
         // calculate unconstrained α₂_new = α₂ - y₂·(E₁ - E₂)/η
@@ -226,41 +469,367 @@ public class SMOOptimizer {
         // bias_new = b - E₁ - y₁·(α₁_new - α₁)·K(x₁,x₁) - y₂·(α₂_new - α₂)·K(x₁,x₂)
         double bias_new = bias - err_1 - y1 * (new_a1 - old_a1) * sim_11 - y2 * ((new_a2 - old_a2)) * sim_12;
         
-        // update error cache
-        // only update errors for the two changed alphas and any other alphas that need recalculation
-        // this is more efficient than recalculating all errors
-        for (int k = 0; k < errors.length; k++) {
-            if (k == i || k == j) {
-                // always update errors for the two alphas we just changed
-                errors[k] = computeOutput(X[k], X, y, alphas, bias_new) - y[k];
-            } else if (alphas[k] > 0 && alphas[k] < C) {
-                // also update errors for non-bound support vectors
-                errors[k] = computeOutput(X[k], X, y, alphas, bias_new) - y[k];
-            }
+        // update error cache with a rank-2 delta instead of recomputing every output:
+        //   E_k += Δα₁·y₁·K(x₁,x_k) + Δα₂·y₂·K(x₂,x_k) + Δb
+        // with y₁·K(x₁,x_k) = y_k·Q(k,i), this needs only columns i and j (O(n) kernel values)
+        double delta_a1 = new_a1 - old_a1;
+        double delta_a2 = new_a2 - old_a2;
+        double delta_b = bias_new - bias;
+        
+        // linear fast path: move w in O(d) and re-evaluate w·x_k, without touching kernel columns
+        if (linearFastPath) {
+            X.addScaled(weights, delta_a1 * y1, i);
+            X.addScaled(weights, delta_a2 * y2, j);
+            ParallelLoop.run(pool, activeSize, (chunk, from, to) -> {
+                for (int a = from; a < to; a++) {
+                    int k = active[a];
+                    errors[k] = computeOutput(k, X, y, alphas, bias_new) - y[k];
+                }
+            });
+            return bias_new;
         }
         
+        // every k is independent, so the update is split across the pool
+        double[] column_i = cache.getColumn(i);
+        double[] column_j = cache.getColumn(j);
+        ParallelLoop.run(pool, activeSize, (chunk, from, to) -> {
+            for (int a = from; a < to; a++) {
+                int k = active[a];
+                errors[k] += y[k] * (delta_a1 * column_i[k] + delta_a2 * column_j[k]) + delta_b;
+            }
+        });
+        
         return bias_new;
     }
+    
+    /**
+     * Removes examples that are stuck at a bound from the active set. An example is shrunk
+     * when it can only move in one direction and its error shows that moving it would not
+     * reduce the maximal violation (see the KKT notes below):
+     * - only in I_up and -E_t below the smallest -E over I_low
+     * - only in I_low and -E_t above the largest -E over I_up
+     * 
+     * @param active Indices of the active examples (compacted in place)
+     * @param activeSize Number of valid entries in active
+     * @param y Training labels
+     * @param alphas Current alpha values
+     * @param errors Error cache
+     * @return the new active set size
+     */
+    private int shrink(int[] active, int activeSize, double[] y, double[] alphas, double[] errors) {
+        double[] bounds = violationBounds(active, activeSize, y, alphas, errors);
+        double gMax = bounds[0];
+        double gMin = bounds[1];
+        
+        int kept = 0;
+        for (int a = 0; a < activeSize; a++) {
+            int t = active[a];
+            boolean up = SecondOrderWorkingSetSelector.isUp(alphas[t], y[t], C);
+            boolean low = SecondOrderWorkingSetSelector.isLow(alphas[t], y[t], C);
+            boolean shrunk = (up && !low && -errors[t] < gMin) || (low && !up && -errors[t] > gMax);
+            if (!shrunk) {
+                active[kept++] = t;
+            }
+        }
+        
+        cache.setActiveSet(active, kept);
+        return kept;
+    }
+    
+    /**
+     * Computes the largest -E_t over I_up and the smallest -E_t over I_low among the active
+     * examples. The solution is optimal when the first is not larger than the second.
+     * 
+     * @param active Indices of the active examples
+     * @param activeSize Number of valid entries in active
+     * @param y Training labels
+     * @param alphas Current alpha values
+     * @param errors Error cache
+     * @return {max over I_up of -E_t, min over I_low of -E_t}
+     */
+    private double[] violationBounds(int[] active, int activeSize, double[] y, double[] alphas, double[] errors) {
+        int chunks = ParallelLoop.chunks(pool, activeSize);
+        double[] chunkMax = new double[chunks];
+        double[] chunkMin = new double[chunks];
+        ParallelLoop.run(pool, activeSize, chunks, (chunk, from, to) -> {
+            double gMax = Double.NEGATIVE_INFINITY;
+            double gMin = Double.POSITIVE_INFINITY;
+            for (int a = from; a < to; a++) {
+                int t = active[a];
+                if (SecondOrderWorkingSetSelector.isUp(alphas[t], y[t], C)) {
+                    gMax = Math.max(gMax, -errors[t]);
+                }
+                if (SecondOrderWorkingSetSelector.isLow(alphas[t], y[t], C)) {
+                    gMin = Math.min(gMin, -errors[t]);
+                }
+            }
+            chunkMax[chunk] = gMax;
+            chunkMin[chunk] = gMin;
+        });
+        
+        double gMax = Double.NEGATIVE_INFINITY;
+        double gMin = Double.POSITIVE_INFINITY;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            gMax = Math.max(gMax, chunkMax[chunk]);
+            gMin = Math.min(gMin, chunkMin[chunk]);
+        }
+        return new double[] {gMax, gMin};
+    }
+    
+    /**
+     * Computes the maximal KKT violation among the active examples (0 or less at the optimum).
+     * 
+     * @param active Indices of the active examples
+     * @param activeSize Number of valid entries in active
+     * @param y Training labels
+     * @param alphas Current alpha values
+     * @param errors Error cache
+     * @return max over I_up of -E_t minus min over I_low of -E_t
+     */
+    private double maxViolation(int[] active, int activeSize, double[] y, double[] alphas, double[] errors) {
+        double[] bounds = violationBounds(active, activeSize, y, alphas, errors);
+        return bounds[0] - bounds[1];
+    }
+    
+    /**
+     * Restores the full active set and rebuilds the errors of the shrunk examples, which were
+     * not updated while they were inactive.
+     * 
+     * @param active Indices of the active examples (reset to every example)
+     * @param activeSize Number of valid entries in active
+     * @param X Training features
+     * @param y Training labels
+     * @param alphas Current alpha values
+     * @param errors Error cache (exact for every example on return)
+     * @param bias Current bias
+     * @return the new active set size (all examples)
+     */
+    private int unshrink(int[] active, int activeSize, TrainingRows X, double[] y, double[] alphas, 
+                         double[] errors, double bias) {
+        boolean[] isActive = new boolean[y.length];
+        for (int a = 0; a < activeSize; a++) {
+            isActive[active[a]] = true;
+        }
+        cache.clearActiveSet();
+        
+        int nonZero = 0;
+        for (int i = 0; i < alphas.length; i++) {
+            if (alphas[i] > 0) {
+                nonZero++;
+            }
+        }
+        
+        // pull whichever set of columns is smaller: one per shrunk example or one per non-zero alpha
+        // (the linear fast path needs no columns at all)
+        if (linearFastPath) {
+            ParallelLoop.run(pool, y.length, (chunk, from, to) -> {
+                for (int k = from; k < to; k++) {
+                    if (!isActive[k]) {
+                        errors[k] = computeOutput(k, X, y, alphas, bias) - y[k];
+                    }
+                }
+            });
+        } else if (y.length - activeSize <= nonZero) {
+            for (int k = 0; k < y.length; k++) {
+                if (!isActive[k]) {
+                    errors[k] = computeOutput(k, X, y, alphas, bias) - y[k];
+                }
+            }
+        } else {
+            for (int k = 0; k < y.length; k++) {
+                if (!isActive[k]) {
+                    errors[k] = bias - y[k];
+                }
+            }
+            for (int i = 0; i < alphas.length; i++) {
+                if (alphas[i] > 0) {
+                    double[] column = cache.getColumn(i);
+                    double alpha = alphas[i];
+                    ParallelLoop.run(pool, y.length, (chunk, from, to) -> {
+                        for (int k = from; k < to; k++) {
+                            if (!isActive[k]) {
+                                errors[k] += y[k] * alpha * column[k];
+                            }
+                        }
+                    });
+                }
+            }
+        }
+        
+        System.out.println("Unshrinking: rebuilt errors for " + (y.length - activeSize) + " shrunk examples");
+        for (int i = 0; i < y.length; i++) {
+            active[i] = i;
+        }
+        return y.length;
+    }
 
     /**
-     * Computes the SVM output for a given input vector. determines what side of the decision
-     * boundary a point falls on (classifies new data points)
+     * Computes the SVM output for a training example. determines what side of the decision
+     * boundary a point falls on
      * 
-     * @param x Input vector
+     * @param k Index of the training example
      * @param X Training features
      * @param y Training labels
      * @param alphas Lagrange multipliers
      * @param b Bias term
      * @return The SVM output
      */
-    private double computeOutput(double[] x, double[][] X, double[] y, double[] alphas, double b) {
+    private double computeOutput(int k, TrainingRows X, double[] y, double[] alphas, double b) {
+        // linear kernel: f(x_k) = w·x_k + b in O(d)
+        if (linearFastPath) {
+            return X.dot(weights, k) + b;
+        }
+        
+        // f(x_k) = sum(alpha_i * y_i * K(x_i, x_k)) + b = y_k * sum(alpha_i * Q(i,k)) + b
+        double[] column = cache.getColumn(k);
         double sum = 0.0;
         for (int i = 0; i < y.length; i++) {
-            // f(x) = sum(alpha_i * y_i * K(x_i, x)) + b
-            sum += alphas[i] * y[i] * kernel.compute(X[i], x);
+            sum += alphas[i] * column[i];
         }
 
-        return sum + b;
+        return y[k] * sum + b;
+    }
+    
+    /**
+     * Gets the number of kernel column requests served from the cache during the last run.
+     * 
+     * @return Hit count (0 before the first run)
+     */
+    public long getCacheHits() {
+        return cache == null ? 0 : cache.getHits();
+    }
+    
+    /**
+     * Gets the number of kernel columns computed from scratch during the last run.
+     * 
+     * @return Miss count (0 before the first run)
+     */
+    public long getCacheMisses() {
+        return cache == null ? 0 : cache.getMisses();
+    }
+    
+    /**
+     * Sets the working set selection strategy (second order selection by default).
+     * 
+     * @param selector Strategy for picking the pair of alphas to optimize
+     */
+    public void setWorkingSetSelector(WorkingSetSelector selector) {
+        this.selector = selector;
+    }
+    
+    /**
+     * Enables or disables shrinking (off by default). With shrinking on, examples stuck at 0 or C
+     * are periodically removed from the working problem, and the full error cache is rebuilt and
+     * re-checked before the optimizer stops, so the result matches the unshrunk solve.
+     * 
+     * @param shrinking Whether to use the shrinking heuristic
+     */
+    public void setShrinking(boolean shrinking) {
+        this.shrinking = shrinking;
+    }
+    
+    /**
+     * Sets the stopping rule (ConvergenceCriterion.KKT_GAP by default).
+     * 
+     * @param criterion Convergence criterion
+     */
+    public void setConvergenceCriterion(ConvergenceCriterion criterion) {
+        this.criterion = criterion;
+    }
+    
+    /**
+     * Sets the maximal KKT violation accepted by ConvergenceCriterion.KKT_GAP (1e-3 by default).
+     * 
+     * @param tolerance Stopping tolerance (epsilon)
+     */
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+    
+    /**
+     * Sets a wall-clock budget for each optimize() call. When it runs out the optimizer stops
+     * and returns the best solution found so far.
+     * 
+     * @param timeBudgetMillis Budget in milliseconds (0 for no budget)
+     */
+    public void setTimeBudget(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+    
+    /**
+     * Gets the reason the most recent optimize() call stopped.
+     * 
+     * @return The termination reason (null before the first run)
+     */
+    public TerminationReason getTerminationReason() {
+        return terminationReason;
+    }
+    
+    /**
+     * Enables or disables the linear fast path, which is on by default for a LinearKernel. It keeps
+     * the primal weight vector w up to date in O(d) per alpha update so every output is w·x + b
+     * (O(d)) instead of a sum over all n training rows (O(n·d)).
+     * 
+     * @param linearFastPath Whether to maintain the primal weight vector
+     * @throws IllegalArgumentException if enabled for a kernel other than LinearKernel
+     */
+    public void setLinearFastPath(boolean linearFastPath) {
+        if (linearFastPath && !(kernel instanceof LinearKernel)) {
+            throw new IllegalArgumentException("linear fast path requires a linear kernel");
+        }
+        this.linearFastPath = linearFastPath;
+    }
+    
+    /**
+     * Runs the per-example loops of training (error initialization and updates, KKT checks,
+     * kernel column fills and the working set search) on the given pool. Pair updates stay
+     * sequential, so the result does not depend on the number of threads.
+     * 
+     * @param pool Pool to use, or null to train on the calling thread (the default)
+     */
+    public void setParallelism(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    
+    /**
+     * Shares kernel rows with other training runs through a store, so runs with an equal kernel
+     * on the same rows (or subsets of them) compute each kernel row only once. The per-run
+     * column cache still sits in front of the store.
+     * 
+     * @param kernelStore Store to use, or null for a private cache only (the default)
+     */
+    public void setKernelStore(KernelStore kernelStore) {
+        this.kernelStore = kernelStore;
+    }
+    
+    /**
+     * Trains from a precomputed, memory-mapped kernel matrix (see MappedGramMatrix.open), for
+     * training sets whose kernel matrix does not fit in the heap. Columns are read from the
+     * mapped file instead of computed; the column cache still holds the most recent ones.
+     * 
+     * @param gram Matrix built for the training data and kernel, or null to compute kernel values (the default)
+     */
+    public void setGramMatrix(MappedGramMatrix gram) {
+        this.gram = gram;
+    }
+    
+    /**
+     * Gets the working set selection strategy.
+     * 
+     * @return The selector
+     */
+    public WorkingSetSelector getWorkingSetSelector() {
+        return selector;
+    }
+    
+    @Override
+    public double getC() {
+        return C;
+    }
+    
+    @Override
+    public SVMKernel getKernel() {
+        return kernel;
     }
     
     
@@ -268,6 +837,7 @@ public class SMOOptimizer {
     
     /*
      * === ADVANCED POINT SELECTION STRATEGIES ===
+     * (second order selection is implemented in SecondOrderWorkingSetSelector)
      * 
      * 1. First Point Selection (I1):
      *    - Scan through non-bound examples (0 < alpha < C) to find points that violate KKT conditions
@@ -313,6 +883,7 @@ public class SMOOptimizer {
      * }
      * 
      * === SHRINKING HEURISTIC ===
+     * (implemented in shrink() and unshrink(), enabled with setShrinking)
      * 
      * Shrinking speeds up optimization by focusing on non-bound examples:
      * - Skip optimization for points where alphas are at bounds (0 or C)
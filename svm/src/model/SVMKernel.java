@@ -1,13 +1,24 @@
 package model;
 
+import java.io.Serializable;
+import java.util.Arrays;
+
+import math.CSRMatrix;
+import math.SparseVector;
+import math.VectorOps;
+
 /**
  * Interface for SVM kernel functions. Can be extended if we want to add RBF or
  * polynomial kernels (or any others in the future)
  * 
  * Kernel functions are used to transform the input space into a higher-dimensional
  * feature space, allowing SVMs to find non-linear decision boundaries.
+ * 
+ * Kernels are serializable so that trained models (which hold their kernel) can be saved, and
+ * compare by their parameters (equals and hashCode) so that KernelStore can share kernel rows
+ * between equal kernels.
  */
-public interface SVMKernel {
+public interface SVMKernel extends Serializable {
     
     /**
      * Computes the kernel function value for two vectors. a vector, in our case, is a list of
@@ -19,6 +30,293 @@ public interface SVMKernel {
      */
     double compute(double[] x, double[] y);
     
+    /**
+     * Computes the kernel values of one vector against a range of rows, out[k] = K(X[k], x)
+     * for from ≤ k < to. Implementations override this with a tight loop that does no
+     * allocation, so callers should prefer it over calling compute once per pair.
+     * 
+     * @param x Vector to compare against
+     * @param X Rows to compare with
+     * @param from First row (inclusive)
+     * @param to Last row (exclusive)
+     * @param out Output array, indexed like X
+     */
+    default void computeRow(double[] x, double[][] X, int from, int to, double[] out) {
+        for (int k = from; k < to; k++) {
+            out[k] = compute(X[k], x);
+        }
+    }
+    
+    /**
+     * Computes the kernel values of one vector against the selected rows,
+     * out[rows[a]] = K(X[rows[a]], x) for from ≤ a < to.
+     * 
+     * @param x Vector to compare against
+     * @param X Rows to compare with
+     * @param rows Indices of the rows to compute
+     * @param from First position in rows (inclusive)
+     * @param to Last position in rows (exclusive)
+     * @param out Output array, indexed like X
+     */
+    default void computeRow(double[] x, double[][] X, int[] rows, int from, int to, double[] out) {
+        for (int a = from; a < to; a++) {
+            int k = rows[a];
+            out[k] = compute(X[k], x);
+        }
+    }
+    
+    /**
+     * Computes the kernel values of one vector against every row, out[k] = K(X[k], x).
+     * 
+     * @param x Vector to compare against
+     * @param X Rows to compare with
+     * @param out Output array with at least X.length entries
+     */
+    default void computeRow(double[] x, double[][] X, double[] out) {
+        computeRow(x, X, 0, X.length, out);
+    }
+    
+    /**
+     * Computes a block of the kernel matrix, out[i][j] = K(Xa[i], Xb[j]).
+     * 
+     * @param Xa Rows of the block
+     * @param Xb Columns of the block
+     * @param out Output matrix with at least Xa.length rows of Xb.length entries
+     */
+    default void computeBlock(double[][] Xa, double[][] Xb, double[][] out) {
+        for (int i = 0; i < Xa.length; i++) {
+            computeRow(Xa[i], Xb, 0, Xb.length, out[i]);
+        }
+    }
+    
+    /**
+     * Computes the block of the kernel matrix between a range of rows of Xa and a range of rows
+     * of Xb, out[i - aFrom][j - bFrom] = K(Xa[i], Xb[j]), without copying the rows (e.g. the
+     * tiles of a Gram matrix, which all come from the same training set).
+     * 
+     * @param Xa Rows of the block
+     * @param aFrom First row of Xa (inclusive)
+     * @param aTo Last row of Xa (exclusive)
+     * @param Xb Columns of the block
+     * @param bFrom First row of Xb (inclusive)
+     * @param bTo Last row of Xb (exclusive)
+     * @param out Output matrix with at least aTo - aFrom rows of bTo - bFrom entries
+     */
+    default void computeBlock(double[][] Xa, int aFrom, int aTo, double[][] Xb, int bFrom, int bTo, double[][] out) {
+        for (int i = aFrom; i < aTo; i++) {
+            for (int j = bFrom; j < bTo; j++) {
+                out[i - aFrom][j - bFrom] = compute(Xa[i], Xb[j]);
+            }
+        }
+    }
+    
+    /**
+     * Computes the block of kernel values between a range of rows of Xa and a range of rows
+     * stored back to back (laid out as in computeRow(double[], double[], int, int, double[])),
+     * out[i - aFrom][k - from] = K(Xa[i], row k). Batch scoring calls it for each tile of
+     * queries against a tile of support vectors. The kernels in this package run it as one tiled
+     * multiply; the default copies each row out.
+     * 
+     * @param Xa Rows of the block
+     * @param aFrom First row of Xa (inclusive)
+     * @param aTo Last row of Xa (exclusive)
+     * @param rows Rows stored back to back
+     * @param from First stored row (inclusive)
+     * @param to Last stored row (exclusive)
+     * @param out Output matrix with at least aTo - aFrom rows of to - from entries
+     */
+    default void computeBlock(double[][] Xa, int aFrom, int aTo, double[] rows, int from, int to, double[][] out) {
+        for (int i = aFrom; i < aTo; i++) {
+            int d = Xa[i].length;
+            for (int k = from; k < to; k++) {
+                out[i - aFrom][k - from] = compute(Arrays.copyOfRange(rows, k * d, (k + 1) * d), Xa[i]);
+            }
+        }
+    }
+    
+    /**
+     * Computes the block of kernel values between a range of float rows and a range of float
+     * rows stored back to back, laid out as in the double version.
+     * 
+     * @param Xa Rows of the block
+     * @param aFrom First row of Xa (inclusive)
+     * @param aTo Last row of Xa (exclusive)
+     * @param rows Rows stored back to back
+     * @param from First stored row (inclusive)
+     * @param to Last stored row (exclusive)
+     * @param out Output matrix with at least aTo - aFrom rows of to - from entries
+     */
+    default void computeBlock(float[][] Xa, int aFrom, int aTo, float[] rows, int from, int to, double[][] out) {
+        for (int i = aFrom; i < aTo; i++) {
+            int d = Xa[i].length;
+            for (int k = from; k < to; k++) {
+                out[i - aFrom][k - from] = compute(Arrays.copyOfRange(rows, k * d, (k + 1) * d), Xa[i]);
+            }
+        }
+    }
+    
+    /**
+     * Computes the kernel function value for two sparse vectors. The kernels in this package
+     * override it to work on the non-zeros only; the default expands both vectors.
+     * 
+     * @param x First vector
+     * @param y Second vector
+     * @return The kernel function value K(x, y)
+     */
+    default double compute(SparseVector x, SparseVector y) {
+        return compute(x.toDense(), y.toDense());
+    }
+    
+    /**
+     * Computes the kernel function value for a sparse and a dense vector.
+     * 
+     * @param x Sparse vector
+     * @param y Dense vector
+     * @return The kernel function value K(x, y)
+     */
+    default double compute(SparseVector x, double[] y) {
+        return compute(x.toDense(), y);
+    }
+    
+    /**
+     * Computes the kernel values of a sparse vector against every row of a sparse matrix,
+     * out[k] = K(X_k, x).
+     * 
+     * @param x Vector to compare against
+     * @param X Rows to compare with
+     * @param out Output array with at least X.getRowCount() entries
+     */
+    default void computeRow(SparseVector x, CSRMatrix X, double[] out) {
+        for (int k = 0; k < X.getRowCount(); k++) {
+            out[k] = compute(X.getRow(k), x);
+        }
+    }
+    
+    /**
+     * Computes the kernel values of a sparse vector against dense rows (e.g. the support
+     * vectors of a model), out[k] = K(x, X[k]).
+     * 
+     * @param x Vector to compare against
+     * @param X Rows to compare with
+     * @param out Output array with at least X.length entries
+     */
+    default void computeRow(SparseVector x, double[][] X, double[] out) {
+        for (int k = 0; k < X.length; k++) {
+            out[k] = compute(x, X[k]);
+        }
+    }
+    
+    /**
+     * Computes the kernel function value for two float vectors (e.g. rows stored in float to
+     * halve their memory). The kernels in this package override it to accumulate in double
+     * without widening the vectors; the default widens both.
+     * 
+     * @param x First vector
+     * @param y Second vector
+     * @return The kernel function value K(x, y)
+     */
+    default double compute(float[] x, float[] y) {
+        return compute(VectorOps.toDouble(x), VectorOps.toDouble(y));
+    }
+    
+    /**
+     * Computes the kernel values of one float vector against a range of float rows,
+     * out[k] = K(X[k], x) for from ≤ k < to.
+     * 
+     * @param x Vector to compare against
+     * @param X Rows to compare with
+     * @param from First row (inclusive)
+     * @param to Last row (exclusive)
+     * @param out Output array, indexed like X
+     */
+    default void computeRow(float[] x, float[][] X, int from, int to, double[] out) {
+        for (int k = from; k < to; k++) {
+            out[k] = compute(X[k], x);
+        }
+    }
+    
+    /**
+     * Computes the kernel values of one float vector against the selected float rows,
+     * out[rows[a]] = K(X[rows[a]], x) for from ≤ a < to.
+     * 
+     * @param x Vector to compare against
+     * @param X Rows to compare with
+     * @param rows Indices of the rows to compute
+     * @param from First position in rows (inclusive)
+     * @param to Last position in rows (exclusive)
+     * @param out Output array, indexed like X
+     */
+    default void computeRow(float[] x, float[][] X, int[] rows, int from, int to, double[] out) {
+        for (int a = from; a < to; a++) {
+            int k = rows[a];
+            out[k] = compute(X[k], x);
+        }
+    }
+    
+    /**
+     * Computes the kernel values of one float vector against every float row, out[k] = K(X[k], x).
+     * 
+     * @param x Vector to compare against
+     * @param X Rows to compare with
+     * @param out Output array with at least X.length entries
+     */
+    default void computeRow(float[] x, float[][] X, double[] out) {
+        computeRow(x, X, 0, X.length, out);
+    }
+    
+    /**
+     * Computes the kernel values of one vector against rows stored back to back in a flat
+     * row-major array (e.g. the support vectors of a model), out[k] = K(row k, x) for
+     * from ≤ k < to, where row k is rows[k·d] to rows[(k + 1)·d - 1] and d = x.length. The
+     * kernels in this package read the rows in place; the default copies each row out.
+     * 
+     * @param x Vector to compare against
+     * @param rows Rows stored back to back
+     * @param from First row (inclusive)
+     * @param to Last row (exclusive)
+     * @param out Output array, indexed by row
+     */
+    default void computeRow(double[] x, double[] rows, int from, int to, double[] out) {
+        int d = x.length;
+        for (int k = from; k < to; k++) {
+            out[k] = compute(Arrays.copyOfRange(rows, k * d, (k + 1) * d), x);
+        }
+    }
+    
+    /**
+     * Computes the kernel values of one float vector against float rows stored back to back,
+     * out[k] = K(row k, x) for from ≤ k < to (laid out as in the double version).
+     * 
+     * @param x Vector to compare against
+     * @param rows Rows stored back to back
+     * @param from First row (inclusive)
+     * @param to Last row (exclusive)
+     * @param out Output array, indexed by row
+     */
+    default void computeRow(float[] x, float[] rows, int from, int to, double[] out) {
+        int d = x.length;
+        for (int k = from; k < to; k++) {
+            out[k] = compute(Arrays.copyOfRange(rows, k * d, (k + 1) * d), x);
+        }
+    }
+    
+    /**
+     * Computes the kernel values of a sparse vector against dense rows stored back to back,
+     * out[k] = K(x, row k) for from ≤ k < to, where the row length is the dimension of x.
+     * 
+     * @param x Vector to compare against
+     * @param rows Rows stored back to back
+     * @param from First row (inclusive)
+     * @param to Last row (exclusive)
+     * @param out Output array, indexed by row
+     */
+    default void computeRow(SparseVector x, double[] rows, int from, int to, double[] out) {
+        int d = x.getDimension();
+        for (int k = from; k < to; k++) {
+            out[k] = compute(x, Arrays.copyOfRange(rows, k * d, (k + 1) * d));
+        }
+    }
+    
     /**
      * Gets the name of the kernel.
      * 
@@ -1,24 +1,55 @@
 package model;
 
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import math.CSRMatrix;
+import math.SparseVector;
+import math.VectorOps;
+
 /**
  * Support Vector Machine (SVM) model implementation.
  * 
  * This class represents a basic SVM model and provides methods for training
  * and prediction. It uses a simplified SMO algorithm for training.
+ * 
+ * Trained models are serializable; the optimizer is not part of the saved state, so a
+ * deserialized model can predict but not be retrained.
  */
-public class SVMModel {
+public class SVMModel implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    // Queries that batch scoring runs together over each tile of support vectors
+    private static final int QUERY_TILE = 64;
     
-    // Lagrange multipliers (alpha values)
+    // Support vector values per tile (32 KB of doubles, so a tile stays in cache while a
+    // tile of queries is scored against it)
+    private static final int SUPPORT_VECTOR_TILE_VALUES = 4096;
+    
+    // Default stopping tolerance of the solver on a polynomial expansion (LIBLINEAR's default
+    // for the dual solvers)
+    private static final double DEFAULT_EXPANSION_TOLERANCE = 0.1;
+    
+    // Pass limit of the solver on a polynomial expansion; a safety net, since the tolerance
+    // normally stops it after tens of passes
+    private static final int EXPANSION_MAX_PASSES = 1000;
+    
+    // Lagrange multipliers of every training example (only kept to seed warm starts)
     private double[] alphas;
     
     // Bias term (b)
     private double bias;
     
-    // Support vectors (subset of training data)
-    private double[][] supportVectors;
+    // αᵢ·yᵢ of each support vector, in the order of the support vector rows
+    private double[] coefficients;
+    
+    // Support vectors stored back to back in row-major order (row s at s·d to (s + 1)·d - 1)
+    private double[] supportVectorData;
     
-    // Labels for support vectors
-    private double[] supportVectorLabels;
+    // The same for a model trained on float rows (null otherwise, and then supportVectorData is set)
+    private float[] floatSupportVectorData;
     
     // Kernel function
     private SVMKernel kernel;
@@ -26,8 +57,26 @@ public class SVMModel {
     // Regularization parameter
     private double C;
     
-    // SMO optimizer
-    private SMOOptimizer optimizer;
+    // Training engine (SMO unless another optimizer is supplied)
+    private transient SVMOptimizer optimizer;
+    
+    // Why the last training run stopped
+    private TerminationReason terminationReason;
+    
+    // Primal weight vector for models that are stored as w·x + b (e.g. from PegasosTrainer)
+    private double[] weights;
+    
+    // Explicit feature map applied before the linear model (null when training on raw features)
+    private FeatureMap featureMap;
+    
+    // Widest explicit polynomial expansion to train on instead of the kernel (0 means never expand)
+    private int expansionLimit;
+    
+    // Stopping tolerance of the dual coordinate descent run on an expansion
+    private double expansionTolerance = DEFAULT_EXPANSION_TOLERANCE;
+    
+    // Pool that batch scoring runs on (null for the calling thread); not part of the saved state
+    private transient ForkJoinPool pool;
     
     /**
      * Creates an SVM model with the specified parameters.
@@ -42,6 +91,114 @@ public class SVMModel {
         this.optimizer = new SMOOptimizer(C, maxIterations, kernel);
     }
     
+    /**
+     * Creates an SVM model around a preconfigured optimizer (e.g. an SMOOptimizer with a custom
+     * kernel cache size, or a DualCoordinateDescent solver). The kernel and C are taken from
+     * the optimizer.
+     * 
+     * @param optimizer Optimizer to train with
+     */
+    public SVMModel(SVMOptimizer optimizer) {
+        this.kernel = optimizer.getKernel();
+        this.C = optimizer.getC();
+        this.optimizer = optimizer;
+    }
+    
+    /**
+     * Creates a linear SVM model directly from a weight vector and bias, as produced by primal
+     * trainers such as PegasosTrainer. Predictions are sign(w·x + b).
+     * 
+     * @param weights Primal weight vector w
+     * @param bias Bias term b
+     */
+    public SVMModel(double[] weights, double bias) {
+        this.kernel = new LinearKernel();
+        this.weights = weights;
+        this.bias = bias;
+    }
+    
+    /**
+     * Creates an approximate kernel model: training fits the feature map, maps the data into its
+     * explicit feature space and trains the optimizer there, and the result is kept as a weight
+     * vector over the mapped features. The optimizer should be linear (a DualCoordinateDescent,
+     * or an SMOOptimizer with a LinearKernel). Predictions are sign(w·z(x) + b) and cost one
+     * transform plus one dot product, however many support vectors the exact model would have.
+     * 
+     * @param featureMap Feature map approximating the kernel (e.g. RandomFourierFeatures)
+     * @param optimizer Linear optimizer to train in the mapped space
+     */
+    public SVMModel(FeatureMap featureMap, SVMOptimizer optimizer) {
+        this.featureMap = featureMap;
+        this.kernel = optimizer.getKernel();
+        this.C = optimizer.getC();
+        this.optimizer = optimizer;
+    }
+    
+    /**
+     * Enables the automatic polynomial expansion. When the kernel is a PolynomialKernel with a
+     * non-negative constant and its monomial space for the training data has at most
+     * maxDimension features (66 for 10 features at degree 2), train() maps the rows with
+     * PolynomialFeatures and trains there with DualCoordinateDescent, whose passes cost O(n·D)
+     * instead of the O(n²) kernel work of SMO. The solver shares only C with the SMOOptimizer:
+     * SMO's iteration limit counts working set steps rather than passes, and its KKT tolerance
+     * is far tighter than a coordinate descent run needs, so neither (nor the time budget or
+     * thread settings) carries over. It stops at a projected gradient tolerance of 0.1 (the
+     * LIBLINEAR default) or after 1000 passes, and always runs on the calling thread. Since the
+     * expansion is exact this is the kernel SVM up to the bias, which DCD regularizes with w,
+     * and the model is kept as a weight vector over the monomials. Wider expansions, and other
+     * kernels, train through the kernel as before.
+     * 
+     * @param maxDimension Widest expansion to use, or 0 to always use the kernel
+     * @return This model instance (for method chaining)
+     * @throws IllegalStateException if the model does not train with an SMOOptimizer, or already has a feature map
+     */
+    public SVMModel setPolynomialExpansion(int maxDimension) {
+        return setPolynomialExpansion(maxDimension, DEFAULT_EXPANSION_TOLERANCE);
+    }
+    
+    /**
+     * Enables the automatic polynomial expansion with the given stopping tolerance for the
+     * coordinate descent solver (see setPolynomialExpansion(int)).
+     * 
+     * @param maxDimension Widest expansion to use, or 0 to always use the kernel
+     * @param tolerance Stopping tolerance on the projected gradient spread
+     * @return This model instance (for method chaining)
+     * @throws IllegalStateException if the model does not train with an SMOOptimizer, or already has a feature map
+     */
+    public SVMModel setPolynomialExpansion(int maxDimension, double tolerance) {
+        if (!(optimizer instanceof SMOOptimizer)) {
+            throw new IllegalStateException("polynomial expansion needs an SMOOptimizer");
+        }
+        if (featureMap != null && expansionLimit == 0) {
+            throw new IllegalStateException("model already has a feature map");
+        }
+        this.expansionLimit = maxDimension;
+        this.expansionTolerance = tolerance;
+        return this;
+    }
+    
+    /**
+     * Runs batch scoring (predict(double[][]) and decisionFunction) on the given pool, split
+     * into chunks of rows. Every row is scored exactly as on the calling thread, so the results
+     * do not depend on the number of threads. Training is configured on the optimizer instead.
+     * 
+     * @param pool Pool to use, or null to score on the calling thread (the default)
+     * @return This model instance (for method chaining)
+     */
+    public SVMModel setParallelism(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+    
+    /**
+     * Gets the optimizer used for training (e.g. to read kernel cache statistics).
+     * 
+     * @return The optimizer
+     */
+    public SVMOptimizer getOptimizer() {
+        return optimizer;
+    }
+    
     /**
      * Trains the SVM model on the provided data.
      * 
@@ -50,15 +207,152 @@ public class SVMModel {
      * @return This model instance (for method chaining)
      */
     public SVMModel train(double[][] X, double[] y) {
-        // 1. Use SMO optimizer to find alphas and bias
-        Object[] parameters = optimizer.optimize(X, y);
+        if (optimizer == null) {
+            throw new IllegalStateException("model was built from a weight vector and has no optimizer");
+        }
+        
+        if (expansionLimit > 0) {
+            featureMap = null;
+            if (kernel instanceof PolynomialKernel) {
+                PolynomialKernel poly = (PolynomialKernel) kernel;
+                if (poly.getConstant() >= 0 && PolynomialFeatures.outputDimension(X[0].length, poly.getDegree()) <= expansionLimit) {
+                    featureMap = new PolynomialFeatures(poly);
+                    DualCoordinateDescent linear = new DualCoordinateDescent(C, EXPANSION_MAX_PASSES);
+                    linear.setTolerance(expansionTolerance);
+                    double[][] Z = featureMap.fit(X).transform(X);
+                    return fitWeights(linear.optimize(Z, y), Z, y);
+                }
+            }
+        } else if (featureMap != null) {
+            double[][] Z = featureMap.fit(X).transform(X);
+            return fitWeights(optimizer.optimize(Z, y), Z, y);
+        }
+        
+        // 1. Use the optimizer to find alphas and bias
+        return fit(optimizer.optimize(X, y), X, y);
+    }
+    
+    /**
+     * Trains the SVM model on the provided data, seeding SMO with the solution of a model
+     * previously trained on the same data (e.g. with a neighbouring C during a grid search).
+     * 
+     * @param X Training features
+     * @param y Training labels (should be +1 or -1)
+     * @param previous Model trained on the same X and y
+     * @return This model instance (for method chaining)
+     */
+    public SVMModel train(double[][] X, double[] y, SVMModel previous) {
+        if (!(optimizer instanceof SMOOptimizer)) {
+            throw new IllegalStateException("warm starts need an SMOOptimizer");
+        }
+        if (featureMap != null) {
+            throw new IllegalStateException("warm starts are not supported with a feature map");
+        }
+        if (previous.alphas == null) {
+            throw new IllegalArgumentException("previous model has no alphas (built from a weight vector, or its support vectors were dropped)");
+        }
+        if (previous.alphas.length != X.length) {
+            throw new IllegalArgumentException("previous model was not trained on this data");
+        }
+        
+        SMOOptimizer smo = (SMOOptimizer) optimizer;
+        return fit(smo.optimize(X, y, previous.alphas, previous.bias, previous.C), X, y);
+    }
+    
+    /**
+     * Trains the SVM model on features stored as float (e.g. from CSVReader.readCSVFloat), which
+     * halves the memory of the training data and of the stored support vectors. Kernel values,
+     * alphas and weights stay in double, so the results differ from training on the same values
+     * as double only through the rounding of the stored features.
+     * 
+     * @param X Training features
+     * @param y Training labels (should be +1 or -1)
+     * @return This model instance (for method chaining)
+     * @throws IllegalStateException if the optimizer is neither an SMOOptimizer nor a DualCoordinateDescent, or a feature map is set
+     */
+    public SVMModel train(float[][] X, double[] y) {
+        if (featureMap != null || expansionLimit > 0) {
+            throw new IllegalStateException("float training works on raw features only");
+        }
+        
+        OptimizationResult result;
+        if (optimizer instanceof SMOOptimizer) {
+            result = ((SMOOptimizer) optimizer).optimize(X, y);
+        } else if (optimizer instanceof DualCoordinateDescent) {
+            result = ((DualCoordinateDescent) optimizer).optimize(X, y);
+        } else {
+            throw new IllegalStateException("float training needs an SMOOptimizer or a DualCoordinateDescent optimizer");
+        }
+        storeResult(result, X.length);
+        
+        int[] support = supportIndices(y);
+        int d = X[0].length;
+        floatSupportVectorData = new float[support.length * d];
+        for (int s = 0; s < support.length; s++) {
+            System.arraycopy(X[support[s]], 0, floatSupportVectorData, s * d, d);
+        }
+        supportVectorData = null;
+        
+        collapseWeights(d);
+        return this;
+    }
+    
+    /**
+     * Stores an optimizer result and extracts the support vectors. Package-private so that
+     * trainers solving the problem themselves (e.g. CascadeTrainer) can build the model.
+     */
+    SVMModel fit(OptimizationResult result, double[][] X, double[] y) {
+        storeResult(result, X.length);
+        
+        // 2. Identify support vectors (data points with non-zero alphas)
+        // 3. Store support vectors back to back, so prediction walks one contiguous array
+        int[] support = supportIndices(y);
+        int d = X[0].length;
+        supportVectorData = new double[support.length * d];
+        for (int s = 0; s < support.length; s++) {
+            System.arraycopy(X[support[s]], 0, supportVectorData, s * d, d);
+        }
+        floatSupportVectorData = null;
         
-        if (parameters != null && parameters.length >= 2) {
-            this.alphas = (double[]) parameters[0];
-            this.bias = (Double) parameters[1];
+        collapseWeights(d);
+        return this;
+    }
+    
+    /**
+     * For a linear kernel, f(x) = Σ αᵢ·yᵢ·xᵢ·x + b = w·x + b, so collapse the stored support
+     * vectors (double or float) into w once and predict with a single dot product.
+     */
+    private void collapseWeights(int d) {
+        if (!(kernel instanceof LinearKernel)) {
+            return;
+        }
+        weights = new double[d];
+        for (int s = 0; s < coefficients.length; s++) {
+            int offset = s * d;
+            if (supportVectorData != null) {
+                for (int f = 0; f < d; f++) {
+                    weights[f] += coefficients[s] * supportVectorData[offset + f];
+                }
+            } else {
+                for (int f = 0; f < d; f++) {
+                    weights[f] += coefficients[s] * floatSupportVectorData[offset + f];
+                }
+            }
+        }
+    }
+    
+    /**
+     * Stores the alphas, bias and termination reason of an optimizer result.
+     */
+    private void storeResult(OptimizationResult result, int n) {
+        if (result != null) {
+            this.alphas = result.getAlphas();
+            this.bias = result.getBias();
+            this.terminationReason = result.getTerminationReason();
+            System.out.println("Training stopped: " + terminationReason);
         } else {
             // Fallback initialization if optimizer returns null
-            this.alphas = new double[X.length];
+            this.alphas = new double[n];
             this.bias = 0.0;
             // Initialize with small random values for basic functionality
             for (int i = 0; i < alphas.length; i++) {
@@ -66,34 +360,100 @@ public class SVMModel {
             }
         }
         
-        // 2. Identify support vectors (data points with non-zero alphas)
-        // 3. Store support vectors and their labels
-        int supportVectorCount = 0;
+        this.weights = null;
+    }
+    
+    /**
+     * Gets the indices of the training examples with non-zero alphas, and stores their
+     * coefficients αᵢ·yᵢ in the same order.
+     */
+    private int[] supportIndices(double[] y) {
         double threshold = 1e-8;
-        
-        // Count support vectors
+        int supportVectorCount = 0;
         for (int i = 0; i < alphas.length; i++) {
             if (Math.abs(alphas[i]) > threshold) {
                 supportVectorCount++;
             }
         }
         
-        // Extract support vectors and their labels
-        supportVectors = new double[supportVectorCount][];
-        supportVectorLabels = new double[supportVectorCount];
-        
+        int[] support = new int[supportVectorCount];
+        coefficients = new double[supportVectorCount];
         int svIndex = 0;
         for (int i = 0; i < alphas.length; i++) {
             if (Math.abs(alphas[i]) > threshold) {
-                supportVectors[svIndex] = X[i].clone();
-                supportVectorLabels[svIndex] = y[i];
+                support[svIndex] = i;
+                coefficients[svIndex] = alphas[i] * y[i];
                 svIndex++;
             }
         }
-
+        return support;
+    }
+    
+    /**
+     * Stores the result of training in the mapped feature space (or on sparse rows) as
+     * w = Σ αᵢ·yᵢ·zᵢ and b. The rows are not kept, so the model does not grow with the training
+     * set. Z is only read when the optimizer returns no weight vector.
+     */
+    private SVMModel fitWeights(OptimizationResult result, double[][] Z, double[] y) {
+        this.bias = result.getBias();
+        this.terminationReason = result.getTerminationReason();
+        System.out.println("Training stopped: " + terminationReason);
+        
+        double[] w = result.getWeights();
+        if (w == null) {
+            double[] a = result.getAlphas();
+            w = new double[featureMap.getOutputDimension()];
+            for (int i = 0; i < a.length; i++) {
+                if (a[i] != 0.0) {
+                    double scale = a[i] * y[i];
+                    for (int f = 0; f < w.length; f++) {
+                        w[f] += scale * Z[i][f];
+                    }
+                }
+            }
+        }
+        this.weights = w;
+        this.alphas = null;
+        this.coefficients = null;
+        this.supportVectorData = null;
+        this.floatSupportVectorData = null;
         return this;
     }
     
+    /**
+     * Trains a linear model on sparse rows. Training runs on the non-zeros only, and the model
+     * is kept as a weight vector and bias.
+     * 
+     * @param X Training features in CSR format
+     * @param y Training labels (should be +1 or -1)
+     * @return This model instance (for method chaining)
+     * @throws IllegalStateException if the optimizer is not a DualCoordinateDescent, or a feature map is set
+     */
+    public SVMModel train(CSRMatrix X, double[] y) {
+        if (!(optimizer instanceof DualCoordinateDescent) || featureMap != null || expansionLimit > 0) {
+            throw new IllegalStateException("sparse training needs a DualCoordinateDescent optimizer on raw features");
+        }
+        return fitWeights(((DualCoordinateDescent) optimizer).optimize(X, y), null, y);
+    }
+    
+    /**
+     * Gets the feature map applied before the linear model.
+     * 
+     * @return The feature map (null if the model works on raw features)
+     */
+    public FeatureMap getFeatureMap() {
+        return featureMap;
+    }
+    
+    /**
+     * Gets the criterion that ended the last training run.
+     * 
+     * @return The termination reason (null if the model has not been trained)
+     */
+    public TerminationReason getTerminationReason() {
+        return terminationReason;
+    }
+    
     /**
      * Predicts the class label for a single input vector.
      * 
@@ -101,29 +461,69 @@ public class SVMModel {
      * @return Predicted class label (+1 or -1)
      */
     public double predict(double[] x) {
-        // 1. Compute SVM output: f(x) = sum(alpha_i * y_i * K(x_i, x)) + b
-        if (supportVectors == null || supportVectorLabels == null || alphas == null) {
-            return 0.0; // Model not trained
+        // approximate kernel model: f(x) = w·z(x) + b
+        if (featureMap != null && weights != null) {
+            return VectorOps.dotProduct(weights, featureMap.transform(x)) + bias >= 0 ? 1.0 : -1.0;
         }
         
-        double sum = 0.0;
-        int svIndex = 0;
+        // linear model stored as a weight vector: f(x) = w·x + b
+        if (weights != null) {
+            return VectorOps.dotProduct(weights, x) + bias >= 0 ? 1.0 : -1.0;
+        }
         
-        // Use original alphas array but only for support vectors
-        for (int i = 0; i < alphas.length; i++) {
-            if (Math.abs(alphas[i]) > 1e-8) { // This is a support vector
-                if (svIndex < supportVectors.length) {
-                    double kernelValue = kernel.compute(supportVectors[svIndex], x);
-                    sum += alphas[i] * supportVectorLabels[svIndex] * kernelValue;
-                    svIndex++;
-                }
-            }
+        // support vectors stored as float: round x the same way
+        if (floatSupportVectorData != null) {
+            return predict(VectorOps.toFloat(x));
         }
         
-        double output = sum + bias;
+        // 1. Compute SVM output: f(x) = sum(alpha_i * y_i * K(x_i, x)) + b
+        if (coefficients == null) {
+            return 0.0; // Model not trained
+        }
+        
+        // 2. Return sign of the output (scored as a batch of one, so it matches batch scoring)
+        double[] output = new double[1];
+        score(new double[][] {x}, null, output, true);
+        return output[0];
+    }
+    
+    /**
+     * Predicts the class label for an input vector stored as float. Kernel values are
+     * accumulated in double.
+     * 
+     * @param x Input feature vector
+     * @return Predicted class label (+1 or -1)
+     */
+    public double predict(float[] x) {
+        if (featureMap != null && weights != null) {
+            return predict(VectorOps.toDouble(x));
+        }
+        if (weights != null) {
+            return VectorOps.dotProduct(weights, x) + bias >= 0 ? 1.0 : -1.0;
+        }
+        if (floatSupportVectorData == null) {
+            return coefficients == null ? 0.0 : predict(VectorOps.toDouble(x));
+        }
         
-        // 2. Return sign of the output
-        return output >= 0 ? 1.0 : -1.0;
+        double[] output = new double[1];
+        score(null, new float[][] {x}, output, true);
+        return output[0];
+    }
+    
+    /**
+     * Predicts class labels for multiple input vectors stored as float. Scored like
+     * decisionFunction, in tiles on the pool.
+     * 
+     * @param X Input feature matrix (each row is a feature vector)
+     * @return Array of predicted class labels
+     */
+    public double[] predict(float[][] X) {
+        double[] predictions = new double[X.length];
+        if (weights == null && coefficients == null) {
+            return predictions; // Model not trained
+        }
+        score(null, X, predictions, true);
+        return predictions;
     }
     
     /**
@@ -133,23 +533,225 @@ public class SVMModel {
      * @return Array of predicted class labels
      */
     public double[] predict(double[][] X) {
-        double[] predictions = new double[X.length];
-        
-        // Apply predict() to each row of X
-        for (int i = 0; i < X.length; i++) {
-            predictions[i] = predict(X[i]);
+        return predict(X, new double[X.length]);
+    }
+    
+    /**
+     * Predicts class labels for multiple input vectors into a caller-provided array, so that
+     * scoring data in batches can reuse one output buffer. Scored like decisionFunction.
+     * 
+     * @param X Input feature matrix (each row is a feature vector)
+     * @param out Output array with at least X.length entries
+     * @return out, with out[i] the predicted class label of X[i]
+     * @throws IllegalArgumentException if out is shorter than X
+     */
+    public double[] predict(double[][] X, double[] out) {
+        checkOutput(X, out);
+        if (weights == null && coefficients == null) {
+            Arrays.fill(out, 0, X.length, 0.0); // Model not trained
+            return out;
+        }
+        score(X, null, out, true);
+        return out;
+    }
+    
+    /**
+     * Predicts the class label for a sparse input vector. Linear models and kernel models use
+     * the sparse kernel paths, so the cost scales with the non-zeros of x.
+     * 
+     * @param x Sparse input feature vector
+     * @return Predicted class label (+1 or -1)
+     */
+    public double predict(SparseVector x) {
+        if (featureMap != null && weights != null) {
+            return predict(x.toDense());
+        }
+        if (weights != null) {
+            return VectorOps.dotProduct(x, weights) + bias >= 0 ? 1.0 : -1.0;
+        }
+        if (floatSupportVectorData != null) {
+            return predict(x.toDense());
+        }
+        if (coefficients == null) {
+            return 0.0; // Model not trained
         }
         
+        double[] kernelRow = new double[coefficients.length];
+        kernel.computeRow(x, supportVectorData, 0, coefficients.length, kernelRow);
+        return decisionValue(kernelRow) >= 0 ? 1.0 : -1.0;
+    }
+    
+    /**
+     * Predicts class labels for the rows of a sparse matrix.
+     * 
+     * @param X Input features in CSR format
+     * @return Array of predicted class labels
+     */
+    public double[] predict(CSRMatrix X) {
+        double[] predictions = new double[X.getRowCount()];
+        for (int i = 0; i < predictions.length; i++) {
+            predictions[i] = predict(X.getRow(i));
+        }
         return predictions;
     }
     
-    // Additional methods for more advanced SVM implementations:
+    /**
+     * Computes f(x) = Σ αᵢ·yᵢ·K(xᵢ, x) + b from the kernel values of x against the support vectors.
+     */
+    private double decisionValue(double[] kernelRow) {
+        // coefficients[s] = αₛ·yₛ is aligned with the support vector rows
+        double sum = 0.0;
+        for (int s = 0; s < coefficients.length; s++) {
+            sum += coefficients[s] * kernelRow[s];
+        }
+        
+        return sum + bias;
+    }
     
-    /*
+    /**
      * Computes the decision function values (raw SVM outputs before taking the sign).
      * Useful for getting confidence scores or implementing multi-class classification.
+     * 
+     * @param X Input feature matrix (each row is a feature vector)
+     * @return Array of decision values f(x)
+     * @throws IllegalStateException if the model is not trained
+     */
+    public double[] decisionFunction(double[][] X) {
+        return decisionFunction(X, new double[X.length]);
+    }
+    
+    /**
+     * Computes the decision function values into a caller-provided array. Kernel models score
+     * the rows in tiles of QUERY_TILE queries against tiles of support vectors small enough to
+     * stay in cache, so the support vector data is read from memory once per query tile instead
+     * of once per query. Each pair of tiles is one kernel block (SVMKernel.computeBlock, a tiled
+     * multiply for the kernels in this package). The rows are split across the pool set with
+     * setParallelism.
+     * 
+     * @param X Input feature matrix (each row is a feature vector)
+     * @param out Output array with at least X.length entries
+     * @return out, with out[i] = f(X[i])
+     * @throws IllegalStateException if the model is not trained
+     * @throws IllegalArgumentException if out is shorter than X
      */
-    // public double[] decisionFunction(double[][] X) { ... }
+    public double[] decisionFunction(double[][] X, double[] out) {
+        checkOutput(X, out);
+        if (weights == null && coefficients == null) {
+            throw new IllegalStateException("model is not trained");
+        }
+        score(X, null, out, false);
+        return out;
+    }
+    
+    private static void checkOutput(double[][] X, double[] out) {
+        if (out.length < X.length) {
+            throw new IllegalArgumentException("output array has " + out.length + " entries for " + X.length + " rows");
+        }
+    }
+    
+    /**
+     * Writes f(x), or its sign if labels is set, to out[i] for every row x of doubleX or, when
+     * doubleX is null, of floatX, on the pool. Each kernel value depends only on its query and
+     * support vector, not on the rest of the tile, and each row sums its terms in support vector
+     * order, so the results do not depend on the tiling or the pool; single-row predict scores a
+     * batch of one so it matches exactly.
+     */
+    private void score(double[][] doubleX, float[][] floatX, double[] out, boolean labels) {
+        int n = doubleX != null ? doubleX.length : floatX.length;
+        
+        // weight vector models: one (mapped) dot product per row
+        if (weights != null) {
+            ParallelLoop.run(pool, n, (chunk, from, to) -> {
+                for (int i = from; i < to; i++) {
+                    double output;
+                    if (featureMap != null) {
+                        double[] x = doubleX != null ? doubleX[i] : VectorOps.toDouble(floatX[i]);
+                        output = VectorOps.dotProduct(weights, featureMap.transform(x)) + bias;
+                    } else if (doubleX != null) {
+                        output = VectorOps.dotProduct(weights, doubleX[i]) + bias;
+                    } else {
+                        output = VectorOps.dotProduct(weights, floatX[i]) + bias;
+                    }
+                    out[i] = labels ? (output >= 0 ? 1.0 : -1.0) : output;
+                }
+            });
+            return;
+        }
+        
+        int m = coefficients.length;
+        int d = n == 0 ? 1 : (doubleX != null ? doubleX[0].length : floatX[0].length);
+        int supportVectorTile = Math.max(1, Math.min(m, SUPPORT_VECTOR_TILE_VALUES / d));
+        boolean floatSupport = floatSupportVectorData != null;
+        
+        // every query costs a pass over all support vectors, so chunks of a few tiles are worth a thread
+        int chunks = 1;
+        if (pool != null && pool.getParallelism() > 1) {
+            chunks = Math.max(1, Math.min(pool.getParallelism() * 4, n / QUERY_TILE));
+        }
+        
+        ParallelLoop.run(pool, n, chunks, (chunk, from, to) -> {
+            int tileRows = Math.min(QUERY_TILE, to - from);
+            double[][] block = new double[tileRows][supportVectorTile];
+            
+            // queries in another precision than the support vectors are converted once per tile
+            double[][] doubleCopies = !floatSupport && doubleX == null ? new double[tileRows][d] : null;
+            float[][] floatCopies = floatSupport && floatX == null ? new float[tileRows][d] : null;
+            
+            for (int tileStart = from; tileStart < to; tileStart += QUERY_TILE) {
+                int tileEnd = Math.min(tileStart + QUERY_TILE, to);
+                int size = tileEnd - tileStart;
+                Arrays.fill(out, tileStart, tileEnd, 0.0);
+                
+                // the query tile as a row range of either the queries or their converted copies
+                double[][] doubleTile = doubleX;
+                float[][] floatTile = floatX;
+                int first = tileStart;
+                if (floatCopies != null) {
+                    // support vectors stored as float: round the queries the same way
+                    for (int t = 0; t < size; t++) {
+                        for (int f = 0; f < d; f++) {
+                            floatCopies[t][f] = (float) doubleX[tileStart + t][f];
+                        }
+                    }
+                    floatTile = floatCopies;
+                    first = 0;
+                } else if (doubleCopies != null) {
+                    for (int t = 0; t < size; t++) {
+                        for (int f = 0; f < d; f++) {
+                            doubleCopies[t][f] = floatX[tileStart + t][f];
+                        }
+                    }
+                    doubleTile = doubleCopies;
+                    first = 0;
+                }
+                
+                // one kernel block per tile of support vectors, then the coefficients
+                for (int s0 = 0; s0 < m; s0 += supportVectorTile) {
+                    int s1 = Math.min(s0 + supportVectorTile, m);
+                    if (floatSupport) {
+                        kernel.computeBlock(floatTile, first, first + size, floatSupportVectorData, s0, s1, block);
+                    } else {
+                        kernel.computeBlock(doubleTile, first, first + size, supportVectorData, s0, s1, block);
+                    }
+                    for (int t = 0; t < size; t++) {
+                        double[] values = block[t];
+                        double sum = out[tileStart + t];
+                        for (int s = s0; s < s1; s++) {
+                            sum += coefficients[s] * values[s - s0];
+                        }
+                        out[tileStart + t] = sum;
+                    }
+                }
+                
+                for (int i = tileStart; i < tileEnd; i++) {
+                    double output = out[i] + bias;
+                    out[i] = labels ? (output >= 0 ? 1.0 : -1.0) : output;
+                }
+            }
+        });
+    }
+    
+    // Additional methods for more advanced SVM implementations:
     
     /*
      * Gets the support vectors.
@@ -157,15 +759,49 @@ public class SVMModel {
      */
     // public double[][] getSupportVectors() { ... }
     
-    /*
+    /**
      * Gets the number of support vectors.
      * Useful for model complexity analysis.
+     * 
+     * @return The number of stored support vectors (0 for untrained models, models built from
+     *         a weight vector and models whose support vectors were dropped)
      */
-    // public int getNumSupportVectors() { ... }
+    public int getNumSupportVectors() {
+        return coefficients == null ? 0 : coefficients.length;
+    }
     
-    /*
-     * Gets the weight vector (only applicable for linear kernel).
+    /**
+     * Gets the weight vector w of a model that predicts with f(x) = w·x + b: models trained with
+     * a LinearKernel (w = Σ αᵢ·yᵢ·xᵢ, built once after training), models built from a weight
+     * vector, and feature map models (where w is over the mapped features).
      * Useful for feature importance analysis and visualization.
+     * 
+     * @return Copy of the weight vector
+     * @throws IllegalStateException if the model is an untrained or non-linear kernel model
+     */
+    public double[] getWeightVector() {
+        if (weights == null) {
+            throw new IllegalStateException("only linear models have a weight vector");
+        }
+        return weights.clone();
+    }
+    
+    /**
+     * Frees the support vectors, alphas and labels of a model that predicts with its weight
+     * vector. Predictions are unchanged and the model no longer grows with the number of
+     * support vectors, but it can no longer seed a warm start.
+     * 
+     * @return This model instance (for method chaining)
+     * @throws IllegalStateException if the model has no weight vector
      */
-    // public double[] getWeightVector() { ... }
+    public SVMModel dropSupportVectors() {
+        if (weights == null) {
+            throw new IllegalStateException("only models with a weight vector can drop their support vectors");
+        }
+        this.alphas = null;
+        this.coefficients = null;
+        this.supportVectorData = null;
+        this.floatSupportVectorData = null;
+        return this;
+    }
 }
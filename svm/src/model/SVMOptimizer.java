@@ -0,0 +1,31 @@
+package model;
+
+/**
+ * Interface for SVM training engines. Can be implemented by any solver that produces
+ * Lagrange multipliers and a bias for the standard soft-margin SVM dual.
+ */
+public interface SVMOptimizer {
+    
+    /**
+     * Trains on the given data.
+     * 
+     * @param X Training features
+     * @param y Training labels (should be +1 or -1)
+     * @return The trained parameters
+     */
+    OptimizationResult optimize(double[][] X, double[] y);
+    
+    /**
+     * Gets the regularization parameter.
+     * 
+     * @return C
+     */
+    double getC();
+    
+    /**
+     * Gets the kernel the resulting alphas are defined for.
+     * 
+     * @return The kernel
+     */
+    SVMKernel getKernel();
+}
@@ -0,0 +1,22 @@
+package model;
+
+/**
+ * Reasons an optimizer can stop training.
+ */
+public enum TerminationReason {
+    
+    /** The convergence criterion was met (or no pair violated the optimality conditions) */
+    CONVERGED,
+    
+    /** Too few alphas changed over several batches (ConvergenceCriterion.EARLY_STOPPING) */
+    EARLY_STOPPING,
+    
+    /** The selected pair could not be moved any further */
+    NO_PROGRESS,
+    
+    /** The maximum number of iterations was reached */
+    MAX_ITERATIONS,
+    
+    /** The wall-clock time budget ran out; the best solution so far was returned */
+    TIME_BUDGET
+}
@@ -0,0 +1,164 @@
+package model;
+
+import math.VectorOps;
+
+/**
+ * Training rows as seen by SMO and its kernel cache, stored either as double[][] or as
+ * float[][] (half the memory, for data without more than float precision such as the sensor
+ * readings). Kernel values and dot products are accumulated in double in both cases.
+ */
+abstract class TrainingRows {
+
+    /**
+     * Wraps double rows.
+     */
+    static TrainingRows of(double[][] X) {
+        return new DoubleRows(X);
+    }
+
+    /**
+     * Wraps float rows.
+     */
+    static TrainingRows of(float[][] X) {
+        return new FloatRows(X);
+    }
+
+    // Number of rows
+    abstract int size();
+
+    // Number of features per row
+    abstract int dimension();
+
+    // The rows as double[][], or null if they are stored as float
+    abstract double[][] asDouble();
+
+    // xᵢ·xⱼ
+    abstract double dot(int i, int j);
+
+    // w·xₖ
+    abstract double dot(double[] w, int k);
+
+    // w += scale·xᵢ
+    abstract void addScaled(double[] w, double scale, int i);
+
+    // K(xᵢ, xᵢ)
+    abstract double diagonal(SVMKernel kernel, int i);
+
+    // out[k] = K(xₖ, xᵢ) for from ≤ k < to
+    abstract void computeRow(SVMKernel kernel, int i, int from, int to, double[] out);
+
+    // out[rows[a]] = K(x_rows[a], xᵢ) for from ≤ a < to
+    abstract void computeRow(SVMKernel kernel, int i, int[] rows, int from, int to, double[] out);
+
+    private static final class DoubleRows extends TrainingRows {
+        private final double[][] X;
+
+        DoubleRows(double[][] X) {
+            this.X = X;
+        }
+
+        @Override
+        int size() {
+            return X.length;
+        }
+
+        @Override
+        int dimension() {
+            return X[0].length;
+        }
+
+        @Override
+        double[][] asDouble() {
+            return X;
+        }
+
+        @Override
+        double dot(int i, int j) {
+            return VectorOps.dotProduct(X[i], X[j]);
+        }
+
+        @Override
+        double dot(double[] w, int k) {
+            return VectorOps.dotProduct(w, X[k]);
+        }
+
+        @Override
+        void addScaled(double[] w, double scale, int i) {
+            double[] x = X[i];
+            for (int f = 0; f < w.length; f++) {
+                w[f] += scale * x[f];
+            }
+        }
+
+        @Override
+        double diagonal(SVMKernel kernel, int i) {
+            return kernel.compute(X[i], X[i]);
+        }
+
+        @Override
+        void computeRow(SVMKernel kernel, int i, int from, int to, double[] out) {
+            kernel.computeRow(X[i], X, from, to, out);
+        }
+
+        @Override
+        void computeRow(SVMKernel kernel, int i, int[] rows, int from, int to, double[] out) {
+            kernel.computeRow(X[i], X, rows, from, to, out);
+        }
+    }
+
+    private static final class FloatRows extends TrainingRows {
+        private final float[][] X;
+
+        FloatRows(float[][] X) {
+            this.X = X;
+        }
+
+        @Override
+        int size() {
+            return X.length;
+        }
+
+        @Override
+        int dimension() {
+            return X[0].length;
+        }
+
+        @Override
+        double[][] asDouble() {
+            return null;
+        }
+
+        @Override
+        double dot(int i, int j) {
+            return VectorOps.dotProduct(X[i], X[j]);
+        }
+
+        @Override
+        double dot(double[] w, int k) {
+            return VectorOps.dotProduct(w, X[k]);
+        }
+
+        @Override
+        void addScaled(double[] w, double scale, int i) {
+            float[] x = X[i];
+            for (int f = 0; f < w.length; f++) {
+                w[f] += scale * x[f];
+            }
+        }
+
+        @Override
+        double diagonal(SVMKernel kernel, int i) {
+            return kernel.compute(X[i], X[i]);
+        }
+
+        @Override
+        void computeRow(SVMKernel kernel, int i, int from, int to, double[] out) {
+            kernel.computeRow(X[i], X, from, to, out);
+        }
+
+        @Override
+        void computeRow(SVMKernel kernel, int i, int[] rows, int from, int to, double[] out) {
+            kernel.computeRow(X[i], X, rows, from, to, out);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package model;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Interface for SMO working set selection strategies.
+ * 
+ * Each SMO step optimizes one pair of Lagrange multipliers. How that pair is chosen has a
+ * large effect on how many kernel evaluations are needed before the optimizer converges.
+ */
+public interface WorkingSetSelector {
+    
+    /**
+     * Selects the next pair of examples to optimize from the active set.
+     * 
+     * @param active Indices of the examples that may be selected
+     * @param activeSize Number of valid entries in active
+     * @param alphas Current alpha values
+     * @param y Training labels (should be +1 or -1)
+     * @param errors Error cache (E_k = f(x_k) - y_k, exact for every active k)
+     * @param C Regularization parameter
+     * @param cache Kernel cache for the training data
+     * @return The pair {i, j}, or null if no pair violates the optimality conditions
+     */
+    int[] select(int[] active, int activeSize, double[] alphas, double[] y, double[] errors, double C, KernelCache cache);
+    
+    /**
+     * Sets the pool the selector may use to scan the active set in parallel. Selectors that
+     * do not parallelize can ignore it.
+     * 
+     * @param pool Pool to use, or null to run on the calling thread
+     */
+    default void setParallelism(ForkJoinPool pool) {
+    }
+    
+    /**
+     * Gets the optimality gap seen by the last select call, max over I_up of -E_t minus min
+     * over I_low of -E_t, so the optimizer can test its stopping tolerance without a scan of
+     * its own. Selectors that do not compute it return NaN.
+     * 
+     * @return The gap, or NaN if unknown
+     */
+    default double getLastGap() {
+        return Double.NaN;
+    }
+    
+    /**
+     * Gets the name of the selection strategy.
+     * 
+     * @return The strategy name
+     */
+    String getName();
+}
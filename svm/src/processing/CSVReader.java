@@ -27,12 +27,7 @@ public class CSVReader {
 
         while ((line = reader.readLine()) != null) {
             if (line.trim().isEmpty()) continue; // Skip empty lines
-            String[] tokens = line.split(delimiter);
-            double[] values = new double[tokens.length];
-            for (int i = 0; i < tokens.length; i++) {
-                values[i] = Double.parseDouble(tokens[i].trim());
-            }
-            rows.add(values);
+            rows.add(parseLine(line, delimiter));
         }
         reader.close();
 
@@ -56,6 +51,214 @@ public class CSVReader {
     public static double[][] readCSV(String filename) throws IOException {
         return readCSV(filename, true, ";");
     }
+    
+    /**
+     * Reads a CSV file into float rows, which take half the memory of double rows. Each value
+     * is parsed straight to the nearest float, so it is rounded once.
+     * 
+     * @param filename The path to the CSV file
+     * @param hasHeader Whether the CSV file has a header row to skip
+     * @param delimiter The delimiter used in the CSV file (e.g., "," or ";")
+     * @return A 2D array containing the data from the CSV file
+     * @throws IOException If there's an error reading the file
+     */
+    public static float[][] readCSVFloat(String filename, boolean hasHeader, String delimiter) throws IOException {
+        List<float[]> rows = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+            String line;
+            if (hasHeader) {
+                reader.readLine();
+            }
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) continue; // Skip empty lines
+                rows.add(parseLineFloat(line, delimiter));
+            }
+        }
+
+        return rows.toArray(new float[0][]);
+    }
+    
+    /**
+     * Reads a semicolon delimited CSV file with a header (the dataset.csv format) into float rows.
+     * 
+     * @param filename The path to the CSV file
+     * @return A 2D array containing the data from the CSV file
+     * @throws IOException If there's an error reading the file
+     */
+    public static float[][] readCSVFloat(String filename) throws IOException {
+        return readCSVFloat(filename, true, ";");
+    }
+    
+    /**
+     * Streams the rows of a CSV file without loading the whole file into memory. Each call to
+     * iterator() reopens the file, so the result can be passed over several times (e.g. one
+     * pass per training epoch). Only the current row is held in memory.
+     * 
+     * A file is closed once its last row has been read. Callers that may stop early (or fail
+     * part way through a pass) should open the stream in a try-with-resources block, so that
+     * close() releases the files of unfinished passes.
+     * 
+     * @param filename The path to the CSV file
+     * @param hasHeader Whether the CSV file has a header row to skip
+     * @param delimiter The delimiter used in the CSV file (e.g., "," or ";")
+     * @return A re-iterable sequence of rows
+     */
+    public static RowStream streamCSV(String filename, boolean hasHeader, String delimiter) {
+        return new RowStream(filename, hasHeader, delimiter);
+    }
+    
+    /**
+     * Streams the rows of a semicolon delimited CSV file with a header (the dataset.csv format).
+     * 
+     * @param filename The path to the CSV file
+     * @return A re-iterable sequence of rows
+     */
+    public static RowStream streamCSV(String filename) {
+        return streamCSV(filename, true, ";");
+    }
+    
+    /**
+     * Parses one CSV line into doubles.
+     */
+    private static double[] parseLine(String line, String delimiter) {
+        String[] tokens = tokenize(line, delimiter);
+        double[] values = new double[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            values[i] = Double.parseDouble(tokens[i]);
+        }
+        return values;
+    }
+    
+    /**
+     * Parses one CSV line into floats, each rounded once from its text.
+     */
+    private static float[] parseLineFloat(String line, String delimiter) {
+        String[] tokens = tokenize(line, delimiter);
+        float[] values = new float[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            values[i] = Float.parseFloat(tokens[i]);
+        }
+        return values;
+    }
+    
+    /**
+     * Splits one CSV line into its trimmed fields.
+     */
+    private static String[] tokenize(String line, String delimiter) {
+        String[] tokens = line.split(delimiter);
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = tokens[i].trim();
+        }
+        return tokens;
+    }
+    
+    /**
+     * Rows of a CSV file that can be iterated over several times, returned by streamCSV.
+     * Closing it closes the files of every pass that has not reached the end of the file.
+     */
+    public static class RowStream implements Iterable<double[]>, AutoCloseable {
+        private final String filename;
+        private final boolean hasHeader;
+        private final String delimiter;
+        private final List<RowIterator> open = new ArrayList<>();
+        
+        RowStream(String filename, boolean hasHeader, String delimiter) {
+            this.filename = filename;
+            this.hasHeader = hasHeader;
+            this.delimiter = delimiter;
+        }
+        
+        @Override
+        public synchronized Iterator<double[]> iterator() {
+            open.removeIf(RowIterator::isClosed);
+            RowIterator rows = new RowIterator(filename, hasHeader, delimiter);
+            open.add(rows);
+            return rows;
+        }
+        
+        /**
+         * Closes the files of unfinished passes. The stream can still be iterated afterwards.
+         */
+        @Override
+        public synchronized void close() {
+            for (RowIterator rows : open) {
+                rows.close();
+            }
+            open.clear();
+        }
+    }
+    
+    /**
+     * Lazily reads one row at a time, closing the file once the last row has been returned.
+     * I/O errors are rethrown as UncheckedIOException since Iterator methods cannot throw
+     * checked exceptions.
+     */
+    private static class RowIterator implements Iterator<double[]> {
+        private final BufferedReader reader;
+        private final String delimiter;
+        private double[] next;
+        private boolean closed;
+        
+        RowIterator(String filename, boolean hasHeader, String delimiter) {
+            this.delimiter = delimiter;
+            try {
+                this.reader = new BufferedReader(new FileReader(filename));
+                if (hasHeader) {
+                    reader.readLine();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            advance();
+        }
+        
+        private void advance() {
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.trim().isEmpty()) continue; // Skip empty lines
+                    next = parseLine(line, delimiter);
+                    return;
+                }
+                close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        boolean isClosed() {
+            return closed;
+        }
+        
+        void close() {
+            next = null;
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+        
+        @Override
+        public double[] next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            double[] row = next;
+            advance();
+            return row;
+        }
+    }
 }
 
 
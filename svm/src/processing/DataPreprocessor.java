@@ -100,6 +100,77 @@ public class DataPreprocessor {
         return standardized;
     }
     
+    /**
+     * Normalizes float data to values between 0 and 1. The minimum and range are taken in
+     * double and only the results are rounded to float.
+     * 
+     * @param data The input data matrix to normalize
+     * @return Normalized data matrix
+     */
+    public float[][] normalize(float[][] data) {
+        if (data == null || data.length == 0) {
+            return new float[0][0];
+        }
+        
+        int rows = data.length;
+        int cols = data[0].length;
+        float[][] normalized = new float[rows][cols];
+        
+        for (int col = 0; col < cols; col++) {
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            for (int row = 0; row < rows; row++) {
+                min = Math.min(min, data[row][col]);
+                max = Math.max(max, data[row][col]);
+            }
+            
+            double range = max - min;
+            for (int row = 0; row < rows; row++) {
+                normalized[row][col] = range == 0 ? 0.5f : (float) ((data[row][col] - min) / range);
+            }
+        }
+        
+        return normalized;
+    }
+    
+    /**
+     * Standardizes float data to zero mean and unit variance. The mean and variance are
+     * accumulated in double and only the results are rounded to float.
+     * 
+     * @param data The input data matrix to standardize
+     * @return Standardized data matrix
+     */
+    public float[][] standardize(float[][] data) {
+        if (data == null || data.length == 0) {
+            return new float[0][0];
+        }
+        
+        int rows = data.length;
+        int cols = data[0].length;
+        float[][] standardized = new float[rows][cols];
+        
+        for (int col = 0; col < cols; col++) {
+            double sum = 0;
+            for (int row = 0; row < rows; row++) {
+                sum += data[row][col];
+            }
+            double mean = sum / rows;
+            
+            double variance = 0;
+            for (int row = 0; row < rows; row++) {
+                double diff = data[row][col] - mean;
+                variance += diff * diff;
+            }
+            double stdDev = Math.sqrt(variance / rows);
+            
+            for (int row = 0; row < rows; row++) {
+                standardized[row][col] = stdDev < 1e-10 ? 0f : (float) ((data[row][col] - mean) / stdDev);
+            }
+        }
+        
+        return standardized;
+    }
+    
     /**
      * Splits the data into features and labels. one return is the 2D array of datapoints (row
      * is a data point, column is a feature), the other return is the 1D array of labels (row is a
@@ -141,4 +212,39 @@ public class DataPreprocessor {
         
         return new Object[]{features, labels};
     }
+    
+    /**
+     * Splits float data into float features and double labels (labels are small integers, so
+     * they are exact either way, and the optimizers take them as double).
+     * 
+     * @param data The input data matrix
+     * @param labelColumn The column index containing the labels
+     * @return An array with two elements: float features matrix and labels array
+     */
+    public Object[] splitFeaturesAndLabels(float[][] data, int labelColumn) {
+        if (data == null || data.length == 0) {
+            return new Object[]{new float[0][0], new double[0]};
+        }
+        
+        int rows = data.length;
+        int cols = data[0].length;
+        if (labelColumn < 0 || labelColumn >= cols) {
+            throw new IllegalArgumentException("label column index out of bounds");
+        }
+        
+        float[][] features = new float[rows][cols - 1];
+        double[] labels = new double[rows];
+        for (int row = 0; row < rows; row++) {
+            int featureCol = 0;
+            for (int col = 0; col < cols; col++) {
+                if (col == labelColumn) {
+                    labels[row] = data[row][col];
+                } else {
+                    features[row][featureCol++] = data[row][col];
+                }
+            }
+        }
+        
+        return new Object[]{features, labels};
+    }
 }
@@ -0,0 +1,172 @@
+package testing;
+
+import java.util.Random;
+
+import math.FastExp;
+import model.OptimizationResult;
+import model.RBFKernel;
+import model.SMOOptimizer;
+import model.SVMModel;
+
+/**
+ * Test class for the approximate exponential and the RBF kernel mode that uses it
+ */
+public class FastExpTest {
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+
+        testErrorBound(random);
+        testTrainingAgreement(random);
+        benchmark(random);
+    }
+
+    /**
+     * Test that FastExp stays within its documented relative error
+     */
+    private static void testErrorBound(Random random) {
+        System.out.println("\n--- Testing Error Bound ---");
+
+        // dense sweep over the RBF range plus random arguments over the whole normal range
+        double worst = 0.0;
+        for (int i = 0; i <= 1000000; i++) {
+            worst = Math.max(worst, relativeError(-50.0 * i / 1000000));
+        }
+        for (int i = 0; i < 1000000; i++) {
+            worst = Math.max(worst, relativeError(-708.0 + random.nextDouble() * 1417.0));
+        }
+        System.out.println("Largest relative error: " + worst + " (bound " + FastExp.MAX_RELATIVE_ERROR + ")");
+
+        if (worst <= FastExp.MAX_RELATIVE_ERROR) {
+            System.out.println("PASS: FastExp is within the documented error");
+        } else {
+            System.out.println("FAIL: FastExp exceeds the documented error");
+        }
+
+        if (FastExp.exp(0.0) == 1.0 && FastExp.exp(-1000.0) == 0.0 && Double.isNaN(FastExp.exp(Double.NaN))
+            && FastExp.exp(1000.0) == Double.POSITIVE_INFINITY) {
+            System.out.println("PASS: FastExp handles 0, underflow, overflow and NaN");
+        } else {
+            System.out.println("FAIL: FastExp mishandles special arguments");
+        }
+    }
+
+    /**
+     * Test that training and prediction give the same results in exact and approximate mode
+     */
+    private static void testTrainingAgreement(Random random) {
+        System.out.println("\n--- Testing Exact vs Approximate Training ---");
+
+        int n = 2000;
+        double[][] X = new double[n][10];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            y[i] = i % 2 == 0 ? 1.0 : -1.0;
+            for (int f = 0; f < 10; f++) {
+                X[i][f] = y[i] * 0.3 + random.nextGaussian();
+            }
+        }
+
+        // start both runs from zero alphas so they only differ in the kernel values
+        SMOOptimizer exact = new SMOOptimizer(1.0, 500, new RBFKernel(0.1));
+        SMOOptimizer approximate = new SMOOptimizer(1.0, 500, new RBFKernel(0.1, true));
+        OptimizationResult exactResult = exact.optimize(X, y, new double[n], 0.0);
+        OptimizationResult approximateResult = approximate.optimize(X, y, new double[n], 0.0);
+
+        double largest = 0.0;
+        for (int i = 0; i < n; i++) {
+            largest = Math.max(largest, Math.abs(exactResult.getAlphas()[i] - approximateResult.getAlphas()[i]));
+        }
+        System.out.println("Largest alpha difference: " + largest + ", bias difference: "
+                           + Math.abs(exactResult.getBias() - approximateResult.getBias()));
+
+        if (largest <= 1e-3) {
+            System.out.println("PASS: Alphas match within the SMO tolerance");
+        } else {
+            System.out.println("FAIL: Alphas differ by " + largest);
+        }
+
+        // both models are seeded from the same solution (at a different C) so they start alike
+        SVMModel seed = new SVMModel(0.5, 500, new RBFKernel(0.1)).train(X, y);
+        SVMModel exactModel = new SVMModel(1.0, 500, new RBFKernel(0.1)).train(X, y, seed);
+        SVMModel approximateModel = new SVMModel(1.0, 500, new RBFKernel(0.1, true)).train(X, y, seed);
+        double[] exactPredictions = exactModel.predict(X);
+        double[] approximatePredictions = approximateModel.predict(X);
+        int agree = 0;
+        for (int i = 0; i < n; i++) {
+            if (exactPredictions[i] == approximatePredictions[i]) {
+                agree++;
+            }
+        }
+
+        if (agree >= n * 0.999) {
+            System.out.println("PASS: Predictions match (" + agree + "/" + n + ")");
+        } else {
+            System.out.println("FAIL: Predictions differ (" + agree + "/" + n + ")");
+        }
+    }
+
+    /**
+     * Times kernel rows and Math.exp against FastExp
+     */
+    private static void benchmark(Random random) {
+        System.out.println("\n--- Benchmark ---");
+
+        double[] arguments = new double[1000000];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = -random.nextDouble() * 20.0;
+        }
+
+        double[][] X = new double[5000][10];
+        for (double[] row : X) {
+            for (int f = 0; f < row.length; f++) {
+                row[f] = random.nextGaussian();
+            }
+        }
+        RBFKernel exactKernel = new RBFKernel(0.1);
+        RBFKernel approximateKernel = new RBFKernel(0.1, true);
+        double[] out = new double[X.length];
+
+        double sink = 0.0;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (double x : arguments) {
+                sink += Math.exp(x);
+            }
+            long exactTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (double x : arguments) {
+                sink += FastExp.exp(x);
+            }
+            long fastTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < 500; i++) {
+                exactKernel.computeRow(X[i], X, out);
+                sink += out[i];
+            }
+            long exactRows = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < 500; i++) {
+                approximateKernel.computeRow(X[i], X, out);
+                sink += out[i];
+            }
+            long approximateRows = System.nanoTime() - start;
+
+            if (round == 2) {
+                System.out.println("1M exp calls: Math.exp " + exactTime / 1000000 + " ms, FastExp " + fastTime / 1000000 + " ms");
+                System.out.println("500 RBF rows of 5000: exact " + exactRows / 1000000 + " ms, approximate " + approximateRows / 1000000 + " ms");
+            }
+        }
+        if (Double.isNaN(sink)) {
+            System.out.println("unreachable");
+        }
+    }
+
+    private static double relativeError(double x) {
+        double exact = Math.exp(x);
+        return Math.abs(FastExp.exp(x) - exact) / exact;
+    }
+}
@@ -0,0 +1,299 @@
+package testing;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+
+import math.MatrixOps;
+import model.DualCoordinateDescent;
+import model.NystroemFeatureMap;
+import model.PolynomialFeatures;
+import model.PolynomialKernel;
+import model.RBFKernel;
+import model.RandomFourierFeatures;
+import model.SVMModel;
+import model.TerminationReason;
+
+/**
+ * Test class for the kernel feature maps (random Fourier features, Nyström and polynomial expansion)
+ */
+public class FeatureMapTest {
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+
+        testEigenDecomposition(random);
+        testKernelApproximation(random);
+        testTraining(random);
+        testPolynomialExpansion(random);
+    }
+
+    /**
+     * Test that the Jacobi eigen solver reconstructs a symmetric matrix
+     */
+    private static void testEigenDecomposition(Random random) {
+        System.out.println("\n--- Testing Symmetric Eigen Decomposition ---");
+
+        int n = 40;
+        double[][] a = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j <= i; j++) {
+                a[i][j] = random.nextGaussian();
+                a[j][i] = a[i][j];
+            }
+        }
+
+        double[] eigenvalues = new double[n];
+        double[][] v = new double[n][n];
+        MatrixOps.symmetricEigen(a, eigenvalues, v);
+
+        // A = V·Λ·Vᵀ and VᵀV = I
+        double worst = 0.0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                double reconstructed = 0.0;
+                double gram = 0.0;
+                for (int e = 0; e < n; e++) {
+                    reconstructed += v[i][e] * eigenvalues[e] * v[j][e];
+                    gram += v[e][i] * v[e][j];
+                }
+                worst = Math.max(worst, Math.abs(reconstructed - a[i][j]));
+                worst = Math.max(worst, Math.abs(gram - (i == j ? 1.0 : 0.0)));
+            }
+        }
+
+        if (worst <= 1e-10) {
+            System.out.println("PASS: Eigen decomposition reconstructs the matrix (error " + worst + ")");
+        } else {
+            System.out.println("FAIL: Eigen decomposition is off by " + worst);
+        }
+    }
+
+    /**
+     * Test that mapped dot products approximate RBF kernel values
+     */
+    private static void testKernelApproximation(Random random) {
+        System.out.println("\n--- Testing Kernel Approximation ---");
+
+        double[][] X = new double[300][];
+        for (int k = 0; k < X.length; k++) {
+            X[k] = new double[5];
+            for (int f = 0; f < 5; f++) {
+                X[k][f] = random.nextGaussian();
+            }
+        }
+        RBFKernel kernel = new RBFKernel(0.2);
+
+        RandomFourierFeatures rff = new RandomFourierFeatures(kernel, 2000, 7);
+        NystroemFeatureMap nystroem = new NystroemFeatureMap(kernel, 300, 7);
+        double[][] zRff = rff.fit(X).transform(X);
+        double[][] zNystroem = nystroem.fit(X).transform(X);
+
+        double worstRff = 0.0;
+        double worstNystroem = 0.0;
+        for (int i = 0; i < X.length; i++) {
+            for (int j = 0; j < X.length; j++) {
+                double exact = kernel.compute(X[i], X[j]);
+                worstRff = Math.max(worstRff, Math.abs(dot(zRff[i], zRff[j]) - exact));
+                worstNystroem = Math.max(worstNystroem, Math.abs(dot(zNystroem[i], zNystroem[j]) - exact));
+            }
+        }
+        System.out.println("Largest kernel error: RFF (m=2000) " + worstRff + ", Nystroem (all landmarks) " + worstNystroem);
+
+        if (worstRff <= 0.15) {
+            System.out.println("PASS: Random Fourier features approximate the kernel");
+        } else {
+            System.out.println("FAIL: Random Fourier features are off by " + worstRff);
+        }
+        // with every row as a landmark the Nyström approximation is exact
+        if (worstNystroem <= 1e-6) {
+            System.out.println("PASS: Nystroem is exact on its landmarks");
+        } else {
+            System.out.println("FAIL: Nystroem is off by " + worstNystroem + " on its landmarks");
+        }
+    }
+
+    /**
+     * Test that linear training on mapped features matches the exact RBF model on a non-linear
+     * problem, that the models survive serialization, and time their predictions
+     */
+    private static void testTraining(Random random) {
+        System.out.println("\n--- Testing Training on Mapped Features ---");
+
+        // two noisy concentric circles, which no linear model separates
+        double[][] XTrain = new double[3000][];
+        double[] yTrain = new double[XTrain.length];
+        double[][] XTest = new double[1000][];
+        double[] yTest = new double[XTest.length];
+        circles(random, XTrain, yTrain);
+        circles(random, XTest, yTest);
+
+        RBFKernel kernel = new RBFKernel(1.0);
+        SVMModel exact = new SVMModel(1.0, 1000, kernel).train(XTrain, yTrain);
+        SVMModel rff = new SVMModel(new RandomFourierFeatures(kernel, 300, 1), new DualCoordinateDescent(1.0, 1000))
+            .train(XTrain, yTrain);
+        SVMModel nystroem = new SVMModel(new NystroemFeatureMap(kernel, 100, 1), new DualCoordinateDescent(1.0, 1000))
+            .train(XTrain, yTrain);
+
+        double exactAccuracy = LinearSolverTest.accuracy(exact, XTest, yTest);
+        double rffAccuracy = LinearSolverTest.accuracy(rff, XTest, yTest);
+        double nystroemAccuracy = LinearSolverTest.accuracy(nystroem, XTest, yTest);
+        System.out.println("Test accuracy: exact RBF " + exactAccuracy + ", RFF " + rffAccuracy + ", Nystroem " + nystroemAccuracy);
+
+        if (rffAccuracy >= exactAccuracy - 0.03 && nystroemAccuracy >= exactAccuracy - 0.03) {
+            System.out.println("PASS: Approximate models are within 3% of the exact model");
+        } else {
+            System.out.println("FAIL: Approximate models lose more than 3% accuracy");
+        }
+
+        try {
+            SVMModel restored = roundTrip(nystroem);
+            SVMModel restoredRff = roundTrip(rff);
+            SVMModel restoredExact = roundTrip(exact);
+            boolean same = true;
+            double[] before = nystroem.predict(XTest);
+            double[] after = restored.predict(XTest);
+            double[] beforeRff = rff.predict(XTest);
+            double[] afterRff = restoredRff.predict(XTest);
+            double[] beforeExact = exact.predict(XTest);
+            double[] afterExact = restoredExact.predict(XTest);
+            for (int i = 0; i < XTest.length; i++) {
+                same &= before[i] == after[i] && beforeRff[i] == afterRff[i] && beforeExact[i] == afterExact[i];
+            }
+            if (same) {
+                System.out.println("PASS: Serialized models predict identically");
+            } else {
+                System.out.println("FAIL: Serialized models predict differently");
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            System.out.println("FAIL: Serialization threw " + e);
+        }
+
+        // prediction cost: one m-feature transform against a pass over every support vector
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            exact.predict(XTest);
+            long exactTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            rff.predict(XTest);
+            long rffTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            nystroem.predict(XTest);
+            long nystroemTime = System.nanoTime() - start;
+
+            if (round == 2) {
+                System.out.println("Predicting 1000 rows: exact " + exactTime / 1000 + " us, RFF " + rffTime / 1000
+                                   + " us, Nystroem " + nystroemTime / 1000 + " us");
+            }
+        }
+    }
+
+    /**
+     * Test that the explicit polynomial expansion reproduces the kernel, and that the automatic
+     * expansion mode trains the same model as the kernel path
+     */
+    private static void testPolynomialExpansion(Random random) {
+        System.out.println("\n--- Testing Polynomial Expansion ---");
+
+        double[][] X = new double[2000][];
+        double[] y = new double[X.length];
+        for (int k = 0; k < X.length; k++) {
+            X[k] = new double[10];
+            for (int f = 0; f < 10; f++) {
+                X[k][f] = random.nextDouble() * 2 - 1;
+            }
+            // quadratic boundary: inside or outside an ellipsoid
+            y[k] = X[k][0] * X[k][0] + 2 * X[k][1] * X[k][1] + X[k][2] * X[k][3] > 0.5 ? 1.0 : -1.0;
+        }
+
+        boolean exact = true;
+        for (PolynomialKernel kernel : new PolynomialKernel[] {new PolynomialKernel(1.0, 2), new PolynomialKernel(1.0, 3),
+                                                               new PolynomialKernel(0.0, 2), new PolynomialKernel(0.5, 3)}) {
+            PolynomialFeatures expansion = new PolynomialFeatures(kernel);
+            double[][] Z = expansion.fit(X).transform(X);
+            double worst = 0.0;
+            for (int i = 0; i < 100; i++) {
+                for (int j = 0; j < 100; j++) {
+                    double expected = kernel.compute(X[i], X[j]);
+                    worst = Math.max(worst, Math.abs(dot(Z[i], Z[j]) - expected) / Math.max(1.0, Math.abs(expected)));
+                }
+            }
+            System.out.println("c=" + kernel.getConstant() + ", degree " + kernel.getDegree() + ": " + expansion.getOutputDimension()
+                               + " features, largest kernel error " + worst);
+            exact &= worst <= 1e-12;
+        }
+        if (exact && PolynomialFeatures.outputDimension(10, 2) == 66 && PolynomialFeatures.outputDimension(10, 3) == 286) {
+            System.out.println("PASS: Expansion reproduces the polynomial kernel");
+        } else {
+            System.out.println("FAIL: Expansion differs from the polynomial kernel");
+        }
+
+        PolynomialKernel kernel = new PolynomialKernel(1.0, 2);
+        long start = System.nanoTime();
+        SVMModel kernelModel = new SVMModel(1.0, 1000, kernel).train(X, y);
+        long kernelTrain = System.nanoTime() - start;
+        start = System.nanoTime();
+        SVMModel expanded = new SVMModel(1.0, 1000, kernel).setPolynomialExpansion(100).train(X, y);
+        long expandedTrain = System.nanoTime() - start;
+        SVMModel tooWide = new SVMModel(1.0, 1000, kernel).setPolynomialExpansion(50).train(X, y);
+
+        if (expanded.getFeatureMap() instanceof PolynomialFeatures) {
+            System.out.println("PASS: Expansion is used within its limit");
+        } else {
+            System.out.println("FAIL: Expansion was not used within its limit");
+        }
+        // the solver on the expansion stops at its own tolerance, long before its pass limit
+        if (expanded.getTerminationReason() == TerminationReason.CONVERGED) {
+            System.out.println("PASS: Expansion solver stops at its tolerance");
+        } else {
+            System.out.println("FAIL: Expansion solver stopped by " + expanded.getTerminationReason());
+        }
+        LinearSolverTest.checkAgreement("Expanded model", kernelModel, expanded, X, 0.995);
+        if (tooWide.getFeatureMap() == null) {
+            System.out.println("PASS: Expansions wider than the limit fall back to the kernel");
+        } else {
+            System.out.println("FAIL: Expansion used beyond its limit");
+        }
+
+        start = System.nanoTime();
+        kernelModel.predict(X);
+        long kernelPredict = System.nanoTime() - start;
+        start = System.nanoTime();
+        expanded.predict(X);
+        long expandedPredict = System.nanoTime() - start;
+        System.out.println("Training: kernel " + kernelTrain / 1000000 + " ms, expanded " + expandedTrain / 1000000
+                           + " ms; predicting 2000 rows: kernel " + kernelPredict / 1000 + " us, expanded " + expandedPredict / 1000 + " us");
+    }
+
+    private static void circles(Random random, double[][] X, double[] y) {
+        for (int i = 0; i < X.length; i++) {
+            y[i] = i % 2 == 0 ? 1.0 : -1.0;
+            double radius = (y[i] > 0 ? 1.0 : 2.0) + random.nextGaussian() * 0.25;
+            double angle = random.nextDouble() * 2 * Math.PI;
+            X[i] = new double[] {radius * Math.cos(angle), radius * Math.sin(angle)};
+        }
+    }
+
+    private static SVMModel roundTrip(SVMModel model) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(model);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (SVMModel) in.readObject();
+        }
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,202 @@
+package testing;
+
+import java.io.IOException;
+import java.util.Random;
+
+import math.VectorOps;
+import model.DualCoordinateDescent;
+import model.KernelStore;
+import model.LinearKernel;
+import model.PolynomialKernel;
+import model.RBFKernel;
+import model.SMOOptimizer;
+import model.SVMKernel;
+import model.SVMModel;
+import processing.CSVReader;
+import processing.DataPreprocessor;
+
+/**
+ * Test class for the float feature storage path (reading, preprocessing, training and
+ * prediction on float rows), comparing it with the double path
+ */
+public class FloatStorageTest {
+
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(42);
+
+        testKernels(random);
+        testPreprocessing();
+        testTraining(random);
+    }
+
+    /**
+     * Test that float kernels accumulate in double, so they match the double kernels on the
+     * same (rounded) values
+     */
+    private static void testKernels(Random random) {
+        System.out.println("\n--- Testing Float Kernels ---");
+
+        float[][] X = new float[200][10];
+        for (float[] row : X) {
+            for (int f = 0; f < row.length; f++) {
+                row[f] = (float) random.nextGaussian();
+            }
+        }
+        double[][] widened = new double[X.length][];
+        for (int i = 0; i < X.length; i++) {
+            widened[i] = VectorOps.toDouble(X[i]);
+        }
+
+        SVMKernel[] kernels = {new LinearKernel(), new RBFKernel(0.1), new PolynomialKernel(1.0, 3)};
+        for (SVMKernel kernel : kernels) {
+            double[] floatRow = new double[X.length];
+            double[] doubleRow = new double[X.length];
+            kernel.computeRow(X[0], X, floatRow);
+            kernel.computeRow(widened[0], widened, doubleRow);
+
+            double worst = 0.0;
+            for (int k = 0; k < X.length; k++) {
+                double scale = Math.max(1.0, Math.abs(doubleRow[k]));
+                worst = Math.max(worst, Math.abs(floatRow[k] - doubleRow[k]) / scale);
+                worst = Math.max(worst, Math.abs(kernel.compute(X[k], X[0]) - doubleRow[k]) / scale);
+            }
+            if (worst <= 1e-12) {
+                System.out.println("PASS: " + kernel.getName() + " on float rows matches the double kernel");
+            } else {
+                System.out.println("FAIL: " + kernel.getName() + " on float rows differs by " + worst);
+            }
+        }
+    }
+
+    /**
+     * Test that float reading and preprocessing give the double results rounded to float
+     */
+    private static void testPreprocessing() throws IOException {
+        System.out.println("\n--- Testing Float Reading and Preprocessing ---");
+
+        double[][] data = CSVReader.readCSV("svm/src/data/dataset.csv");
+        float[][] floatData = CSVReader.readCSVFloat("svm/src/data/dataset.csv");
+
+        boolean rounded = data.length == floatData.length;
+        for (int i = 0; i < data.length && rounded; i++) {
+            for (int f = 0; f < data[i].length; f++) {
+                rounded &= floatData[i][f] == (float) data[i][f];
+            }
+        }
+        if (rounded) {
+            System.out.println("PASS: Float reader rounds every value once");
+        } else {
+            System.out.println("FAIL: Float reader differs from the double reader");
+        }
+
+        DataPreprocessor preprocessor = new DataPreprocessor();
+        double[][] normalized = preprocessor.normalize(data);
+        float[][] floatNormalized = preprocessor.normalize(floatData);
+        double[][] standardized = preprocessor.standardize(data);
+        float[][] floatStandardized = preprocessor.standardize(floatData);
+
+        double worst = 0.0;
+        for (int i = 0; i < data.length; i++) {
+            for (int f = 0; f < data[i].length; f++) {
+                worst = Math.max(worst, Math.abs(floatNormalized[i][f] - normalized[i][f]));
+                worst = Math.max(worst, Math.abs(floatStandardized[i][f] - standardized[i][f]) / Math.max(1.0, Math.abs(standardized[i][f])));
+            }
+        }
+        if (worst <= 1e-5) {
+            System.out.println("PASS: Float preprocessing matches double preprocessing (worst difference " + worst + ")");
+        } else {
+            System.out.println("FAIL: Float preprocessing differs by " + worst);
+        }
+    }
+
+    /**
+     * Train on dataset.csv with both paths and report the accuracy deltas and memory
+     */
+    private static void testTraining(Random random) throws IOException {
+        System.out.println("\n--- Testing Float Training on dataset.csv ---");
+
+        DataPreprocessor preprocessor = new DataPreprocessor();
+        double[][] data = CSVReader.readCSV("svm/src/data/dataset.csv");
+        float[][] floatData = CSVReader.readCSVFloat("svm/src/data/dataset.csv");
+        int labelColumn = data[0].length - 1;
+        Object[] split = preprocessor.splitFeaturesAndLabels(data, labelColumn);
+        Object[] floatSplit = preprocessor.splitFeaturesAndLabels(floatData, labelColumn);
+        double[][] X = preprocessor.normalize((double[][]) split[0]);
+        float[][] floatX = preprocessor.normalize((float[][]) floatSplit[0]);
+        double[] y = (double[]) split[1];
+
+        // the same shuffled 80/20 split for both paths
+        int n = X.length;
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        int trainSize = (int) (n * 0.8);
+        double[][] XTrain = new double[trainSize][];
+        float[][] floatXTrain = new float[trainSize][];
+        double[] yTrain = new double[trainSize];
+        double[][] XTest = new double[n - trainSize][];
+        float[][] floatXTest = new float[n - trainSize][];
+        double[] yTest = new double[n - trainSize];
+        for (int i = 0; i < n; i++) {
+            int k = order[i];
+            if (i < trainSize) {
+                XTrain[i] = X[k];
+                floatXTrain[i] = floatX[k];
+                yTrain[i] = y[k];
+            } else {
+                XTest[i - trainSize] = X[k];
+                floatXTest[i - trainSize] = floatX[k];
+                yTest[i - trainSize] = y[k];
+            }
+        }
+        System.out.println("Training data: double " + 8L * trainSize * X[0].length / 1024 + " KB, float "
+                           + 4L * trainSize * X[0].length / 1024 + " KB");
+
+        SVMKernel[] kernels = {new LinearKernel(), new RBFKernel(1.0)};
+        for (SVMKernel kernel : kernels) {
+            SVMModel doubleModel = new SVMModel(5.0, 200, kernel).train(XTrain, yTrain);
+            SVMModel floatModel = new SVMModel(5.0, 200, kernel).train(floatXTrain, yTrain);
+            compare(kernel.getName() + " SMO", LinearSolverTest.accuracy(doubleModel, XTest, yTest),
+                    LinearSolverTest.accuracy(floatModel.predict(floatXTest), yTest));
+        }
+
+        DualCoordinateDescent doubleSolver = new DualCoordinateDescent(5.0, 1000);
+        DualCoordinateDescent floatSolver = new DualCoordinateDescent(5.0, 1000);
+        doubleSolver.setSeed(7);
+        floatSolver.setSeed(7);
+        SVMModel doubleModel = new SVMModel(doubleSolver).train(XTrain, yTrain);
+        SVMModel floatModel = new SVMModel(floatSolver).train(floatXTrain, yTrain);
+        compare("Dual coordinate descent", LinearSolverTest.accuracy(doubleModel, XTest, yTest),
+                LinearSolverTest.accuracy(floatModel.predict(floatXTest), yTest));
+
+        try {
+            SMOOptimizer shared = new SMOOptimizer(5.0, 200, new RBFKernel(1.0));
+            shared.setKernelStore(new KernelStore());
+            shared.optimize(floatXTrain, yTrain);
+            System.out.println("FAIL: Kernel store accepted float rows");
+        } catch (IllegalStateException e) {
+            System.out.println("PASS: Kernel store rejected for float rows");
+        }
+    }
+
+    /**
+     * Reports the accuracy of both paths, which should agree to within one percent
+     */
+    private static void compare(String name, double doubleAccuracy, double floatAccuracy) {
+        double delta = floatAccuracy - doubleAccuracy;
+        String report = name + ": double " + String.format("%.4f", doubleAccuracy) + ", float "
+                        + String.format("%.4f", floatAccuracy) + ", delta " + String.format("%+.4f", delta);
+        if (Math.abs(delta) <= 0.01) {
+            System.out.println("PASS: " + report);
+        } else {
+            System.out.println("FAIL: " + report);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package testing;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import distributed.AdmmCoordinator;
+import distributed.LocalCluster;
+
+import model.DualCoordinateDescent;
+import model.LinearKernel;
+import model.OptimizationResult;
+import model.PegasosTrainer;
+import model.PolynomialKernel;
+import model.RBFKernel;
+import model.SVMModel;
+import processing.CSVReader;
+
+/**
+ * Test class for the linear SVM training engines
+ */
+public class LinearSolverTest {
+
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(42);
+
+        testDualCoordinateDescent(random);
+        testPegasos(random);
+        testAdmm(random);
+        testWeightVector(random);
+    }
+
+    /**
+     * Test that dual coordinate descent matches SMO and scales to large data
+     */
+    private static void testDualCoordinateDescent(Random random) {
+        System.out.println("\n--- Testing Dual Coordinate Descent ---");
+
+        double[][] X = new double[2000][];
+        double[] y = new double[2000];
+        generateData(random, X, y);
+
+        SVMModel smoModel = new SVMModel(1.0, 500, new LinearKernel()).train(X, y);
+
+        DualCoordinateDescent dcd = new DualCoordinateDescent(1.0, 1000);
+        dcd.setSeed(42);
+        dcd.setTolerance(1e-3);
+        SVMModel dcdModel = new SVMModel(dcd).train(X, y);
+
+        checkAgreement("Dual coordinate descent", smoModel, dcdModel, X, 0.99);
+
+        // large problem: should finish in seconds
+        int n = 200000;
+        double[][] XLarge = new double[n][];
+        double[] yLarge = new double[n];
+        generateData(random, XLarge, yLarge);
+
+        DualCoordinateDescent large = new DualCoordinateDescent(1.0, 1000);
+        large.setSeed(42);
+        long start = System.currentTimeMillis();
+        OptimizationResult result = large.optimize(XLarge, yLarge);
+        long elapsed = System.currentTimeMillis() - start;
+
+        double accuracy = accuracy(new SVMModel(result.getWeights(), result.getBias()), XLarge, yLarge);
+        System.out.println("Trained on " + n + " rows in " + elapsed + " ms");
+
+        if (accuracy > 0.8) {
+            System.out.println("PASS: Large dual coordinate descent model accuracy " + String.format("%.4f", accuracy));
+        } else {
+            System.out.println("FAIL: Large dual coordinate descent model accuracy " + String.format("%.4f", accuracy));
+        }
+    }
+
+    /**
+     * Test that Pegasos trains from a streamed CSV file
+     */
+    private static void testPegasos(Random random) throws IOException {
+        System.out.println("\n--- Testing Pegasos Streaming Trainer ---");
+
+        int n = 50000;
+        double[][] X = new double[n][];
+        double[] y = new double[n];
+        generateData(random, X, y);
+
+        // write the rows out in the dataset.csv format (label in the last column)
+        File file = File.createTempFile("pegasos", ".csv");
+        file.deleteOnExit();
+        writeCSV(file, X, y, 0, n);
+
+        PegasosTrainer trainer = new PegasosTrainer(1e-4, 64, 3);
+        SVMModel model;
+        try (CSVReader.RowStream rows = CSVReader.streamCSV(file.getPath())) {
+            model = trainer.train(rows, 10);
+        }
+
+        if (trainer.getEpochThroughput().length == 3 && trainer.getEpochThroughput()[0] > 0) {
+            System.out.println("PASS: Throughput reported for every epoch");
+        } else {
+            System.out.println("FAIL: Throughput missing");
+        }
+
+        // stochastic steps only get close to the exact optimum, so compare accuracy rather than predictions
+        DualCoordinateDescent dcd = new DualCoordinateDescent(1.0, 1000);
+        dcd.setSeed(42);
+        double exactAccuracy = accuracy(new SVMModel(dcd).train(X, y), X, y);
+        double pegasosAccuracy = accuracy(model, X, y);
+        System.out.println("Accuracy: dual coordinate descent " + String.format("%.4f", exactAccuracy) 
+                           + ", Pegasos " + String.format("%.4f", pegasosAccuracy));
+
+        if (pegasosAccuracy >= exactAccuracy - 0.01) {
+            System.out.println("PASS: Pegasos accuracy within 1% of the exact solver");
+        } else {
+            System.out.println("FAIL: Pegasos accuracy more than 1% below the exact solver");
+        }
+    }
+
+    /**
+     * Test that consensus ADMM over worker processes matches the single-machine solver
+     */
+    private static void testAdmm(Random random) throws IOException {
+        System.out.println("\n--- Testing Consensus ADMM ---");
+
+        int n = 30000;
+        int shards = 3;
+        double[][] X = new double[n][];
+        double[] y = new double[n];
+        generateData(random, X, y);
+
+        // one shard file per worker process
+        List<String> shardFiles = new ArrayList<>();
+        for (int s = 0; s < shards; s++) {
+            File file = File.createTempFile("admm-shard" + s, ".csv");
+            file.deleteOnExit();
+            writeCSV(file, X, y, n * s / shards, n * (s + 1) / shards);
+            shardFiles.add(file.getPath());
+        }
+
+        AdmmCoordinator coordinator = new AdmmCoordinator(1.0, 1000.0);
+        long start = System.currentTimeMillis();
+        SVMModel model = LocalCluster.train(coordinator, shardFiles);
+        long elapsed = System.currentTimeMillis() - start;
+        System.out.println("Trained on " + shards + " workers in " + elapsed + " ms (" + coordinator.getRounds() + " rounds, "
+                           + (coordinator.getBytesSent() + coordinator.getBytesReceived()) + " bytes exchanged)");
+
+        // every round moves exactly one weight vector each way per worker, plus a small header
+        long vectorBytes = 8L * (X[0].length + 1) * shards * coordinator.getRounds();
+        if (coordinator.getBytesReceived() >= vectorBytes && coordinator.getBytesSent() >= vectorBytes
+            && coordinator.getBytesSent() < 2 * vectorBytes) {
+            System.out.println("PASS: Only weight vectors are exchanged");
+        } else {
+            System.out.println("FAIL: Unexpected communication volume");
+        }
+
+        DualCoordinateDescent dcd = new DualCoordinateDescent(1.0, 1000);
+        dcd.setSeed(42);
+        dcd.setTolerance(1e-3);
+        SVMModel dcdModel = new SVMModel(dcd).train(X, y);
+        checkAgreement("Consensus ADMM", dcdModel, model, X, 0.99);
+    }
+
+    /**
+     * Writes rows [from, to) in the dataset.csv format (label in the last column)
+     */
+    private static void writeCSV(File file, double[][] X, double[] y, int from, int to) throws IOException {
+        try (PrintWriter writer = new PrintWriter(file)) {
+            writer.println("col1;col2;col3;col4;col5;col6;col7;col8;col9;col10;target");
+            for (int i = from; i < to; i++) {
+                StringBuilder line = new StringBuilder();
+                for (int f = 0; f < X[i].length; f++) {
+                    line.append(X[i][f]).append(';');
+                }
+                writer.println(line.append((int) y[i]));
+            }
+        }
+    }
+
+    /**
+     * Computes the accuracy of a model on the given data
+     */
+    static double accuracy(SVMModel model, double[][] X, double[] y) {
+        return accuracy(model.predict(X), y);
+    }
+
+    /**
+     * Computes the fraction of predictions that match the labels
+     */
+    static double accuracy(double[] predictions, double[] y) {
+        int correct = 0;
+        for (int i = 0; i < y.length; i++) {
+            if (predictions[i] == y[i]) {
+                correct++;
+            }
+        }
+        return (double) correct / y.length;
+    }
+
+    /**
+     * Test that linear models predict with their weight vector like the support vector sum, and
+     * that the support vectors can be dropped
+     */
+    private static void testWeightVector(Random random) {
+        System.out.println("\n--- Testing Linear Weight Vector ---");
+
+        double[][] X = new double[3000][];
+        double[] y = new double[3000];
+        generateData(random, X, y);
+
+        // (x·y + 0)^1 is the linear kernel, but predicts through the support vectors
+        SVMModel linear = new SVMModel(1.0, 500, new LinearKernel()).train(X, y);
+        SVMModel supportVectorSum = new SVMModel(1.0, 500, new PolynomialKernel(0.0, 1)).train(X, y);
+        checkAgreement("Weight vector", supportVectorSum, linear, X, 0.995);
+
+        double[][] queries = new double[200000][];
+        double[] unused = new double[queries.length];
+        generateData(random, queries, unused);
+        long start = System.nanoTime();
+        double[] before = linear.predict(queries);
+        long weightTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        double[] sum = supportVectorSum.predict(queries);
+        long sumTime = System.nanoTime() - start;
+        // the timing is information only; the check is that both paths predict the same labels
+        System.out.println("Predicting " + queries.length + " rows: weight vector " + weightTime / 1000000 + " ms, support vector sum "
+                           + sumTime / 1000000 + " ms (" + String.format("%.0f", (double) sumTime / weightTime) + "x)");
+        checkAgreement("Weight vector (new rows)", sum, before, 0.995);
+
+        double[] w = linear.getWeightVector();
+        linear.dropSupportVectors();
+        if (Arrays.equals(before, linear.predict(queries)) && Arrays.equals(w, linear.getWeightVector())) {
+            System.out.println("PASS: Predictions unchanged after dropping the support vectors");
+        } else {
+            System.out.println("FAIL: Predictions changed after dropping the support vectors");
+        }
+
+        try {
+            new SVMModel(1.0, 500, new LinearKernel()).train(X, y, linear);
+            System.out.println("FAIL: Model without support vectors accepted as a warm start");
+        } catch (IllegalArgumentException e) {
+            System.out.println("PASS: Model without support vectors rejected as a warm start");
+        }
+
+        try {
+            new SVMModel(1.0, 100, new RBFKernel(0.1)).train(Arrays.copyOf(X, 300), Arrays.copyOf(y, 300)).getWeightVector();
+            System.out.println("FAIL: RBF model returned a weight vector");
+        } catch (IllegalStateException e) {
+            System.out.println("PASS: RBF model has no weight vector");
+        }
+    }
+
+    /**
+     * Fills X and y with 10-feature rows from two overlapping classes
+     */
+    static void generateData(Random random, double[][] X, double[] y) {
+        for (int i = 0; i < y.length; i++) {
+            y[i] = i % 2 == 0 ? 1.0 : -1.0;
+            X[i] = new double[10];
+            for (int f = 0; f < 10; f++) {
+                X[i][f] = y[i] * 0.4 + random.nextGaussian();
+            }
+        }
+    }
+
+    /**
+     * Checks that two models predict (almost) the same labels
+     */
+    static void checkAgreement(String name, SVMModel expected, SVMModel actual, double[][] X, double minimum) {
+        checkAgreement(name, expected.predict(X), actual.predict(X), minimum);
+    }
+
+    /**
+     * Checks that two sets of predictions agree on at least the given fraction of rows
+     */
+    static void checkAgreement(String name, double[] expectedPredictions, double[] actualPredictions, double minimum) {
+        int agree = 0;
+        for (int i = 0; i < expectedPredictions.length; i++) {
+            if (expectedPredictions[i] == actualPredictions[i]) {
+                agree++;
+            }
+        }
+
+        if (agree >= expectedPredictions.length * minimum) {
+            System.out.println("PASS: " + name + " predictions match (" + agree + "/" + expectedPredictions.length + ")");
+        } else {
+            System.out.println("FAIL: " + name + " predictions differ (" + agree + "/" + expectedPredictions.length + ")");
+        }
+    }
+}
@@ -0,0 +1,884 @@
+package testing;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import math.SparseVector;
+import math.VectorOps;
+import model.CascadeTrainer;
+import model.ConvergenceCriterion;
+import model.KernelStore;
+import model.LinearKernel;
+import model.MappedGramMatrix;
+import model.RBFKernel;
+import model.RandomWorkingSetSelector;
+import model.SMOOptimizer;
+import model.SVMModel;
+import model.TerminationReason;
+
+/**
+ * Test class for SMOOptimizer functionality
+ */
+public class SMOOptimizerTest {
+
+    public static void main(String[] args) {
+        // generate two well separated gaussian blobs
+        Random random = new Random(42);
+        int n = 300;
+        double[][] X = new double[n][2];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            y[i] = i % 2 == 0 ? 1.0 : -1.0;
+            X[i][0] = y[i] * 2.0 + random.nextGaussian() * 0.5;
+            X[i][1] = y[i] * 2.0 + random.nextGaussian() * 0.5;
+        }
+
+        testKernelCache(X, y);
+        testWorkingSetSelection(X, y);
+        testShrinking(random);
+        testStoppingCriteria(X, y);
+        testLinearFastPath(random);
+        testParallelism(random);
+        testCascade(random);
+        testWarmStart(random);
+        testKernelStore(random);
+        testMappedGram(random);
+        testCompactSupportVectors(random);
+        testBatchScoring(random);
+        benchmarkTiledScoring(random);
+    }
+
+    /**
+     * Test that the kernel cache is used and that a tiny cache still trains correctly
+     */
+    private static void testKernelCache(double[][] X, double[] y) {
+        System.out.println("\n--- Testing Kernel Cache ---");
+
+        // cache large enough for every column
+        SMOOptimizer largeCache = new SMOOptimizer(1.0, 50, new RBFKernel(0.5), 8L * y.length * y.length);
+        SVMModel largeModel = new SVMModel(largeCache).train(X, y);
+        System.out.println("Large cache: " + largeCache.getCacheHits() + " hits, " + largeCache.getCacheMisses() + " misses");
+
+        if (largeCache.getCacheHits() > 0 && largeCache.getCacheMisses() <= y.length) {
+            System.out.println("PASS: Large cache computes each column at most once");
+        } else {
+            System.out.println("FAIL: Large cache recomputed columns");
+        }
+
+        // cache that holds only a handful of columns
+        SMOOptimizer smallCache = new SMOOptimizer(1.0, 50, new RBFKernel(0.5), 8L * y.length * 4);
+        new SVMModel(smallCache).train(X, y);
+        System.out.println("Small cache: " + smallCache.getCacheHits() + " hits, " + smallCache.getCacheMisses() + " misses");
+
+        if (smallCache.getCacheMisses() > largeCache.getCacheMisses()) {
+            System.out.println("PASS: Small cache evicts columns");
+        } else {
+            System.out.println("FAIL: Small cache did not evict columns");
+        }
+
+        checkAccuracy("Large cache model", largeModel, X, y);
+        checkAccuracy("Linear kernel model", new SVMModel(1.0, 50, new LinearKernel()).train(X, y), X, y);
+    }
+
+    /**
+     * Test that second order and random selection both train a usable model
+     */
+    private static void testWorkingSetSelection(double[][] X, double[] y) {
+        System.out.println("\n--- Testing Working Set Selection ---");
+
+        SMOOptimizer secondOrder = new SMOOptimizer(1.0, 50, new RBFKernel(0.5));
+        checkAccuracy("Second order selection", new SVMModel(secondOrder).train(X, y), X, y);
+
+        SMOOptimizer random = new SMOOptimizer(1.0, 50, new RBFKernel(0.5));
+        random.setWorkingSetSelector(new RandomWorkingSetSelector());
+        checkAccuracy("Random selection", new SVMModel(random).train(X, y), X, y);
+
+        // compare how many kernel columns each strategy needed
+        long secondOrderColumns = secondOrder.getCacheHits() + secondOrder.getCacheMisses();
+        long randomColumns = random.getCacheHits() + random.getCacheMisses();
+        System.out.println("Column requests: second order " + secondOrderColumns + ", random " + randomColumns);
+    }
+
+    /**
+     * Test that shrinking reaches the same solution as the unshrunk solve
+     */
+    private static void testShrinking(Random random) {
+        System.out.println("\n--- Testing Shrinking ---");
+
+        // overlapping blobs, so many alphas end up at 0 or C
+        int n = 2000;
+        double[][] X = new double[n][2];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            y[i] = i % 2 == 0 ? 1.0 : -1.0;
+            X[i][0] = y[i] + random.nextGaussian();
+            X[i][1] = y[i] + random.nextGaussian();
+        }
+
+        SMOOptimizer plain = new SMOOptimizer(1.0, 500, new RBFKernel(0.5));
+        long start = System.currentTimeMillis();
+        SVMModel plainModel = new SVMModel(plain).train(X, y);
+        long plainTime = System.currentTimeMillis() - start;
+
+        SMOOptimizer shrinking = new SMOOptimizer(1.0, 500, new RBFKernel(0.5));
+        shrinking.setShrinking(true);
+        start = System.currentTimeMillis();
+        SVMModel shrinkingModel = new SVMModel(shrinking).train(X, y);
+        long shrinkingTime = System.currentTimeMillis() - start;
+
+        System.out.println("Training time: unshrunk " + plainTime + " ms, shrinking " + shrinkingTime + " ms");
+
+        checkAgreement("Shrinking", plainModel, shrinkingModel, X);
+    }
+
+    /**
+     * Test that each stopping rule is reported by the model
+     */
+    private static void testStoppingCriteria(double[][] X, double[] y) {
+        System.out.println("\n--- Testing Stopping Criteria ---");
+
+        SVMModel gapModel = new SVMModel(1.0, 50, new RBFKernel(0.5)).train(X, y);
+        checkReason("KKT gap", gapModel, TerminationReason.CONVERGED);
+
+        SMOOptimizer earlyStopping = new SMOOptimizer(1.0, 50, new RBFKernel(0.5));
+        earlyStopping.setWorkingSetSelector(new RandomWorkingSetSelector());
+        earlyStopping.setConvergenceCriterion(ConvergenceCriterion.EARLY_STOPPING);
+        checkReason("Early stopping", new SVMModel(earlyStopping).train(X, y), TerminationReason.EARLY_STOPPING);
+
+        // a tiny tolerance with a budget that runs out on the first batch
+        SMOOptimizer budget = new SMOOptimizer(1.0, 50, new RBFKernel(0.5));
+        budget.setWorkingSetSelector(new RandomWorkingSetSelector());
+        budget.setTolerance(1e-12);
+        budget.setTimeBudget(1);
+        SVMModel budgetModel = new SVMModel(budget).train(X, y);
+        checkReason("Time budget", budgetModel, TerminationReason.TIME_BUDGET);
+        checkAccuracyAtLeast("Time budget model", budgetModel, X, y, 0.5);
+    }
+
+    /**
+     * Test that the linear fast path matches the kernel path
+     */
+    private static void testLinearFastPath(Random random) {
+        System.out.println("\n--- Testing Linear Fast Path ---");
+
+        // 10 features like the sensor data, with overlapping classes
+        int n = 2000;
+        double[][] X = new double[n][10];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            y[i] = i % 2 == 0 ? 1.0 : -1.0;
+            for (int f = 0; f < 10; f++) {
+                X[i][f] = y[i] * 0.3 + random.nextGaussian();
+            }
+        }
+
+        SMOOptimizer kernelPath = new SMOOptimizer(1.0, 500, new LinearKernel());
+        kernelPath.setLinearFastPath(false);
+        long start = System.currentTimeMillis();
+        SVMModel kernelModel = new SVMModel(kernelPath).train(X, y);
+        long kernelTime = System.currentTimeMillis() - start;
+
+        SMOOptimizer fastPath = new SMOOptimizer(1.0, 500, new LinearKernel());
+        start = System.currentTimeMillis();
+        SVMModel fastModel = new SVMModel(fastPath).train(X, y);
+        long fastTime = System.currentTimeMillis() - start;
+
+        System.out.println("Training time: kernel path " + kernelTime + " ms, fast path " + fastTime + " ms");
+        checkAgreement("Linear fast path", kernelModel, fastModel, X);
+
+        try {
+            new SMOOptimizer(1.0, 10, new RBFKernel(0.5)).setLinearFastPath(true);
+            System.out.println("FAIL: Linear fast path accepted an RBF kernel");
+        } catch (IllegalArgumentException e) {
+            System.out.println("PASS: Linear fast path rejects an RBF kernel");
+        }
+    }
+
+    /**
+     * Test that training on a fork-join pool matches sequential training
+     */
+    private static void testParallelism(Random random) {
+        System.out.println("\n--- Testing Parallel Training ---");
+
+        // large enough that every per-example loop is split into several chunks
+        int n = 6000;
+        double[][] X = new double[n][2];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            y[i] = i % 2 == 0 ? 1.0 : -1.0;
+            X[i][0] = y[i] + random.nextGaussian();
+            X[i][1] = y[i] + random.nextGaussian();
+        }
+
+        SMOOptimizer sequential = new SMOOptimizer(1.0, 500, new RBFKernel(0.5));
+        sequential.setShrinking(true);
+        long start = System.currentTimeMillis();
+        SVMModel sequentialModel = new SVMModel(sequential).train(X, y);
+        long sequentialTime = System.currentTimeMillis() - start;
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        SMOOptimizer parallel = new SMOOptimizer(1.0, 500, new RBFKernel(0.5));
+        parallel.setShrinking(true);
+        parallel.setParallelism(pool);
+        start = System.currentTimeMillis();
+        SVMModel parallelModel = new SVMModel(parallel).train(X, y);
+        long parallelTime = System.currentTimeMillis() - start;
+        pool.shutdown();
+
+        System.out.println("Training time: sequential " + sequentialTime + " ms, 4 threads " + parallelTime + " ms");
+        checkAgreement("Parallel training", sequentialModel, parallelModel, X);
+        checkReason("Parallel training", parallelModel, TerminationReason.CONVERGED);
+    }
+
+    /**
+     * Test that the cascade trainer is about as accurate as a single SMO solve
+     */
+    private static void testCascade(Random random) {
+        System.out.println("\n--- Testing Cascade Training ---");
+
+        int n = 4000;
+        double[][] X = new double[n][2];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            y[i] = i % 2 == 0 ? 1.0 : -1.0;
+            X[i][0] = y[i] + random.nextGaussian();
+            X[i][1] = y[i] + random.nextGaussian();
+        }
+
+        long start = System.currentTimeMillis();
+        SVMModel fullModel = new SVMModel(1.0, 500, new RBFKernel(0.5)).train(X, y);
+        long fullTime = System.currentTimeMillis() - start;
+
+        CascadeTrainer cascade = new CascadeTrainer(1.0, 500, new RBFKernel(0.5), 4);
+        cascade.setFeedbackPasses(1);
+        start = System.currentTimeMillis();
+        SVMModel cascadeModel = cascade.train(X, y);
+        long cascadeTime = System.currentTimeMillis() - start;
+
+        System.out.println("Training time: single solve " + fullTime + " ms, cascade " + cascadeTime + " ms");
+        System.out.println("Cascade level times (ms): " + cascade.getLevelTimes());
+
+        // 4 partitions give 3 levels per pass, and the model comes from the last one
+        if (cascade.getLevelTimes().size() >= 3 && cascade.getLevelTimes().size() % 3 == 0) {
+            System.out.println("PASS: Cascade reports the time of each level");
+        } else {
+            System.out.println("FAIL: Cascade reported " + cascade.getLevelTimes().size() + " level times");
+        }
+
+        int correct = 0;
+        double[] predictions = fullModel.predict(X);
+        for (int i = 0; i < n; i++) {
+            if (predictions[i] == y[i]) {
+                correct++;
+            }
+        }
+        checkAccuracyAtLeast("Cascade model", cascadeModel, X, y, (double) correct / n - 0.01);
+    }
+
+    /**
+     * Test that seeding SMO from the previous C gives the same models as cold starts
+     */
+    private static void testWarmStart(Random random) {
+        System.out.println("\n--- Testing Warm Start ---");
+
+        int n = 2000;
+        double[][] X = new double[n][2];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            y[i] = i % 2 == 0 ? 1.0 : -1.0;
+            X[i][0] = y[i] + random.nextGaussian();
+            X[i][1] = y[i] + random.nextGaussian();
+        }
+        double[] cValues = {0.1, 0.3, 1.0, 3.0, 10.0};
+
+        SVMModel[] coldModels = new SVMModel[cValues.length];
+        long start = System.currentTimeMillis();
+        for (int c = 0; c < cValues.length; c++) {
+            coldModels[c] = new SVMModel(cValues[c], 500, new RBFKernel(0.5)).train(X, y);
+        }
+        long coldTime = System.currentTimeMillis() - start;
+
+        SVMModel[] warmModels = new SVMModel[cValues.length];
+        start = System.currentTimeMillis();
+        for (int c = 0; c < cValues.length; c++) {
+            warmModels[c] = new SVMModel(cValues[c], 500, new RBFKernel(0.5));
+            if (c == 0) {
+                warmModels[c].train(X, y);
+            } else {
+                warmModels[c].train(X, y, warmModels[c - 1]);
+            }
+        }
+        long warmTime = System.currentTimeMillis() - start;
+
+        System.out.println("Grid of " + cValues.length + " C values: cold starts " + coldTime + " ms, warm starts " + warmTime + " ms");
+        for (int c = 0; c < cValues.length; c++) {
+            checkAgreement("Warm start at C=" + cValues[c], coldModels[c], warmModels[c], X);
+        }
+
+        // seeds outside [0, C] are clipped
+        double[] seed = new double[n];
+        java.util.Arrays.fill(seed, 5.0);
+        double[] alphas = new SMOOptimizer(1.0, 500, new RBFKernel(0.5)).optimize(X, y, seed, 0.0).getAlphas();
+        double largest = 0.0;
+        for (double alpha : alphas) {
+            largest = Math.max(largest, alpha);
+        }
+        if (largest <= 1.0) {
+            System.out.println("PASS: Seeded alphas stay within [0, C]");
+        } else {
+            System.out.println("FAIL: Seeded alpha " + largest + " exceeds C");
+        }
+    }
+
+    /**
+     * Test that a shared kernel store gives identical results across a C grid and concurrent
+     * cross-validation folds, while reusing kernel rows
+     */
+    private static void testKernelStore(Random random) {
+        System.out.println("\n--- Testing Kernel Store ---");
+
+        // 200 features, so kernel rows are a large part of the training cost
+        int n = 2000;
+        double[][] X = new double[n][200];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            y[i] = i % 2 == 0 ? 1.0 : -1.0;
+            for (int f = 0; f < 200; f++) {
+                X[i][f] = y[i] * 0.1 + random.nextGaussian();
+            }
+        }
+        double[] cValues = {0.1, 1.0, 10.0};
+
+        // C grid: each run gets its own (equal) kernel object
+        KernelStore store = new KernelStore();
+        double worst = 0.0;
+        long plainTime = 0;
+        long storeTime = 0;
+        for (double c : cValues) {
+            long start = System.currentTimeMillis();
+            double[] plain = new SMOOptimizer(c, 500, new RBFKernel(0.005)).optimize(X, y, new double[n], 0.0).getAlphas();
+            plainTime += System.currentTimeMillis() - start;
+
+            start = System.currentTimeMillis();
+            SMOOptimizer shared = new SMOOptimizer(c, 500, new RBFKernel(0.005));
+            shared.setKernelStore(store);
+            double[] stored = shared.optimize(X, y, new double[n], 0.0).getAlphas();
+            storeTime += System.currentTimeMillis() - start;
+
+            for (int i = 0; i < n; i++) {
+                worst = Math.max(worst, Math.abs(plain[i] - stored[i]));
+            }
+        }
+        System.out.println("C grid: private caches " + plainTime + " ms, shared store " + storeTime + " ms; store holds "
+                           + store.getUsedBytes() + " bytes, reuse ratio " + store.getReuseRatio());
+        if (worst == 0.0) {
+            System.out.println("PASS: Shared store gives identical alphas");
+        } else {
+            System.out.println("FAIL: Shared store changes alphas by " + worst);
+        }
+        if (store.getReuseRatio() > 0.5) {
+            System.out.println("PASS: Later C values reuse stored kernel rows");
+        } else {
+            System.out.println("FAIL: Kernel rows were not reused");
+        }
+
+        // 4 CV folds that select rows of X (sharing the row arrays), trained concurrently
+        int folds = 4;
+        long hitsBefore = store.getHits();
+        long missesBefore = store.getMisses();
+        ExecutorService executor = Executors.newFixedThreadPool(folds);
+        try {
+            List<Future<double[]>> shared = new ArrayList<>();
+            List<double[]> expected = new ArrayList<>();
+            for (int k = 0; k < folds; k++) {
+                int size = n - n / folds;
+                double[][] foldX = new double[size][];
+                double[] foldY = new double[size];
+                int next = 0;
+                for (int i = 0; i < n; i++) {
+                    if (i % folds != k) {
+                        foldX[next] = X[i];
+                        foldY[next] = y[i];
+                        next++;
+                    }
+                }
+                expected.add(new SMOOptimizer(1.0, 500, new RBFKernel(0.005)).optimize(foldX, foldY, new double[size], 0.0).getAlphas());
+                shared.add(executor.submit(() -> {
+                    SMOOptimizer optimizer = new SMOOptimizer(1.0, 500, new RBFKernel(0.005));
+                    optimizer.setKernelStore(store);
+                    return optimizer.optimize(foldX, foldY, new double[size], 0.0).getAlphas();
+                }));
+            }
+
+            worst = 0.0;
+            for (int k = 0; k < folds; k++) {
+                double[] alphas = shared.get(k).get();
+                for (int i = 0; i < alphas.length; i++) {
+                    worst = Math.max(worst, Math.abs(alphas[i] - expected.get(k)[i]));
+                }
+            }
+            long hits = store.getHits() - hitsBefore;
+            long misses = store.getMisses() - missesBefore;
+            System.out.println("Folds: " + hits + " hits, " + misses + " misses on the shared store");
+            if (worst == 0.0 && hits > misses) {
+                System.out.println("PASS: Concurrent folds share stored rows with identical results");
+            } else {
+                System.out.println("FAIL: Concurrent folds differ by " + worst + " or did not reuse rows");
+            }
+        } catch (Exception e) {
+            System.out.println("FAIL: Concurrent folds threw " + e);
+        } finally {
+            executor.shutdown();
+        }
+
+        // a single held-out fold is too small to pay for whole rows of X on every miss, so it
+        // gets rows of its own length (less than ten rows of X for the whole run)
+        int held = n / 20;
+        double[][] heldX = new double[held][];
+        double[] heldY = new double[held];
+        for (int i = 0; i < held; i++) {
+            heldX[i] = X[i * 20 + i % 2];
+            heldY[i] = y[i * 20 + i % 2];
+        }
+        int datasetsBefore = store.getDatasetCount();
+        long bytesBefore = store.getUsedBytes();
+        long start = System.currentTimeMillis();
+        double[] plainHeld = new SMOOptimizer(1.0, 500, new RBFKernel(0.005)).optimize(heldX, heldY, new double[held], 0.0).getAlphas();
+        long plainHeldTime = System.currentTimeMillis() - start;
+        SMOOptimizer heldOptimizer = new SMOOptimizer(1.0, 500, new RBFKernel(0.005));
+        heldOptimizer.setKernelStore(store);
+        start = System.currentTimeMillis();
+        double[] storedHeld = heldOptimizer.optimize(heldX, heldY, new double[held], 0.0).getAlphas();
+        long storedHeldTime = System.currentTimeMillis() - start;
+        long grown = store.getUsedBytes() - bytesBefore;
+        System.out.println("Held-out fold of " + held + " rows: private cache " + plainHeldTime + " ms, shared store "
+                           + storedHeldTime + " ms, store grew by " + grown + " bytes");
+        worst = 0.0;
+        for (int i = 0; i < held; i++) {
+            worst = Math.max(worst, Math.abs(plainHeld[i] - storedHeld[i]));
+        }
+        if (datasetsBefore == 1 && store.getDatasetCount() == 2 && grown < 8L * n * 10 && worst == 0.0) {
+            System.out.println("PASS: Small fold after the full set stores rows of its own length");
+        } else {
+            System.out.println("FAIL: Small fold after the full set (" + datasetsBefore + " -> " + store.getDatasetCount()
+                               + " datasets, " + grown + " bytes, alphas differ by " + worst + ")");
+        }
+
+        // a budget of 100 rows: training on a second dataset evicts every row of the first,
+        // which is then dropped along with its row index
+        KernelStore small = new KernelStore(8L * 200 * 100);
+        for (int part = 0; part < 2; part++) {
+            double[][] partX = new double[200][];
+            double[] partY = new double[200];
+            for (int i = 0; i < 200; i++) {
+                partX[i] = X[part * 200 + i].clone();
+                partY[i] = y[part * 200 + i];
+            }
+            SMOOptimizer optimizer = new SMOOptimizer(1.0, 500, new RBFKernel(0.005));
+            optimizer.setKernelStore(small);
+            optimizer.optimize(partX, partY, new double[200], 0.0);
+        }
+        if (small.getDatasetCount() == 1 && small.getUsedBytes() > 8L * 200 * 100) {
+            System.out.println("PASS: Evicted dataset dropped, row index counted (" + small.getUsedBytes() + " bytes)");
+        } else {
+            System.out.println("FAIL: Store holds " + small.getDatasetCount() + " datasets, " + small.getUsedBytes() + " bytes");
+        }
+    }
+
+    /**
+     * Test that training from a memory-mapped Gram matrix gives the same model, and that the
+     * file is reused only for the same data and kernel
+     */
+    private static void testMappedGram(Random random) {
+        System.out.println("\n--- Testing Memory-Mapped Gram Matrix ---");
+
+        int n = 3000;
+        double[][] X = new double[n][10];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            y[i] = i % 2 == 0 ? 1.0 : -1.0;
+            for (int f = 0; f < 10; f++) {
+                X[i][f] = y[i] * 0.3 + random.nextGaussian();
+            }
+        }
+        RBFKernel kernel = new RBFKernel(0.1);
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        Path file = null;
+        Path file32 = null;
+        try {
+            file = Files.createTempFile("gram", ".bin");
+            file32 = Files.createTempFile("gram32", ".bin");
+
+            long start = System.currentTimeMillis();
+            MappedGramMatrix gram = MappedGramMatrix.open(file, X, kernel, MappedGramMatrix.Precision.FLOAT64, pool);
+            long buildTime = System.currentTimeMillis() - start;
+
+            double worst = 0.0;
+            for (int t = 0; t < 10000; t++) {
+                int i = random.nextInt(n);
+                int j = random.nextInt(n);
+                worst = Math.max(worst, Math.abs(gram.get(i, j) - kernel.compute(X[i], X[j])));
+                worst = Math.max(worst, Math.abs(gram.get(i, j) - gram.get(j, i)));
+            }
+            if (!gram.wasReused() && worst <= 1e-12) {
+                System.out.println("PASS: Mapped matrix holds the kernel values");
+            } else {
+                System.out.println("FAIL: Mapped matrix differs from the kernel by " + worst);
+            }
+
+            SVMModel plain = new SVMModel(1.0, 500, kernel).train(X, y);
+            SMOOptimizer mapped = new SMOOptimizer(1.0, 500, kernel);
+            mapped.setGramMatrix(gram);
+            checkAgreement("Mapped float64 matrix", plain, new SVMModel(mapped).train(X, y), X);
+            gram.close();
+
+            start = System.currentTimeMillis();
+            MappedGramMatrix reopened = MappedGramMatrix.open(file, X, new RBFKernel(0.1), MappedGramMatrix.Precision.FLOAT64, pool);
+            long reopenTime = System.currentTimeMillis() - start;
+            System.out.println("Building " + n + " x " + n + " matrix: " + buildTime + " ms, reopening: " + reopenTime + " ms");
+            if (reopened.wasReused()) {
+                System.out.println("PASS: File is reused for the same data and kernel");
+            } else {
+                System.out.println("FAIL: File was recomputed for the same data and kernel");
+            }
+            reopened.close();
+
+            MappedGramMatrix approximate = MappedGramMatrix.open(file, X, new RBFKernel(0.1, true), MappedGramMatrix.Precision.FLOAT64, pool);
+            if (!approximate.wasReused()) {
+                System.out.println("PASS: File is rebuilt when only a kernel option differs");
+            } else {
+                System.out.println("FAIL: File was reused for a kernel with a different option");
+            }
+            approximate.close();
+
+            MappedGramMatrix otherKernel = MappedGramMatrix.open(file, X, new RBFKernel(0.2), MappedGramMatrix.Precision.FLOAT64, pool);
+            if (!otherKernel.wasReused() && Math.abs(otherKernel.get(0, 1) - new RBFKernel(0.2).compute(X[0], X[1])) <= 1e-12) {
+                System.out.println("PASS: File is rebuilt for a different kernel");
+            } else {
+                System.out.println("FAIL: File was reused for a different kernel");
+            }
+
+            try {
+                SMOOptimizer wrongData = new SMOOptimizer(1.0, 500, new RBFKernel(0.2));
+                wrongData.setGramMatrix(otherKernel);
+                wrongData.optimize(java.util.Arrays.copyOf(X, 100), java.util.Arrays.copyOf(y, 100));
+                System.out.println("FAIL: Matrix accepted for different data");
+            } catch (IllegalArgumentException e) {
+                System.out.println("PASS: Matrix rejected for different data");
+            }
+            otherKernel.close();
+
+            MappedGramMatrix gram32 = MappedGramMatrix.open(file32, X, kernel, MappedGramMatrix.Precision.FLOAT32, pool);
+            SMOOptimizer mapped32 = new SMOOptimizer(1.0, 500, kernel);
+            mapped32.setGramMatrix(gram32);
+            System.out.println("File sizes: float64 " + Files.size(file) / 1024 + " KB, float32 " + Files.size(file32) / 1024 + " KB");
+            checkAgreement("Mapped float32 matrix", plain, new SVMModel(mapped32).train(X, y), X);
+            gram32.close();
+        } catch (IOException e) {
+            System.out.println("FAIL: Mapped matrix threw " + e);
+        } finally {
+            pool.shutdown();
+            for (Path path : new Path[] {file, file32}) {
+                try {
+                    if (path != null) {
+                        Files.deleteIfExists(path);
+                    }
+                } catch (IOException e) {
+                    // temporary file, nothing else to do
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that a model keeps only its support vectors, and that the batch, single-row and
+     * sparse prediction paths read them alike
+     */
+    private static void testCompactSupportVectors(Random random) {
+        System.out.println("\n--- Testing Compact Support Vector Storage ---");
+
+        // well separated classes, so only a small share of the rows become support vectors
+        int n = 8000;
+        double[][] X = new double[n][10];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            y[i] = i % 2 == 0 ? 1.0 : -1.0;
+            for (int f = 0; f < 10; f++) {
+                X[i][f] = y[i] * 1.5 + random.nextGaussian();
+            }
+        }
+        SVMModel model = new SVMModel(1.0, 500, new RBFKernel(0.1)).train(X, y);
+
+        int supportVectors = model.getNumSupportVectors();
+        if (supportVectors > 0 && supportVectors < n / 4) {
+            System.out.println("PASS: Model keeps " + supportVectors + " of " + n + " training rows");
+        } else {
+            System.out.println("FAIL: Model keeps " + supportVectors + " of " + n + " training rows");
+        }
+
+        double[][] queries = new double[20000][10];
+        for (double[] q : queries) {
+            for (int f = 0; f < 10; f++) {
+                q[f] = random.nextGaussian() * 2;
+            }
+        }
+        long start = System.nanoTime();
+        double[] batch = model.predict(queries);
+        long batchTime = System.nanoTime() - start;
+
+        int singleAgree = 0;
+        int sparseAgree = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < queries.length; i++) {
+            if (model.predict(queries[i]) == batch[i]) {
+                singleAgree++;
+            }
+        }
+        long singleTime = System.nanoTime() - start;
+        for (int i = 0; i < 2000; i++) {
+            if (model.predict(SparseVector.fromDense(queries[i])) == batch[i]) {
+                sparseAgree++;
+            }
+        }
+        System.out.println("Per query: batch " + batchTime / queries.length / 1000.0 + " us, single " + singleTime / queries.length / 1000.0 + " us");
+        if (singleAgree == queries.length && sparseAgree >= 1998) {
+            System.out.println("PASS: Batch, single-row and sparse predictions agree");
+        } else {
+            System.out.println("FAIL: Prediction paths disagree (single " + singleAgree + "/" + queries.length
+                               + ", sparse " + sparseAgree + "/2000)");
+        }
+    }
+
+    /**
+     * Test decisionFunction and tiled batch prediction into caller-provided arrays, on the
+     * calling thread and on a pool
+     */
+    private static void testBatchScoring(Random random) {
+        System.out.println("\n--- Testing Batch Scoring ---");
+
+        int n = 6000;
+        double[][] X = new double[n][10];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            y[i] = i % 2 == 0 ? 1.0 : -1.0;
+            for (int f = 0; f < 10; f++) {
+                X[i][f] = y[i] * 1.5 + random.nextGaussian();
+            }
+        }
+        SVMModel model = new SVMModel(1.0, 500, new RBFKernel(0.1)).train(X, y);
+
+        double[][] queries = new double[200000][10];
+        for (double[] q : queries) {
+            for (int f = 0; f < 10; f++) {
+                q[f] = random.nextGaussian() * 2;
+            }
+        }
+
+        long start = System.nanoTime();
+        double[] sequential = model.decisionFunction(queries);
+        long sequentialTime = System.nanoTime() - start;
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        double[] parallel = new double[queries.length];
+        start = System.nanoTime();
+        model.setParallelism(pool).decisionFunction(queries, parallel);
+        long parallelTime = System.nanoTime() - start;
+        System.out.println(queries.length + " rows against " + model.getNumSupportVectors() + " support vectors: calling thread "
+                           + sequentialTime / 1000000 + " ms, pool of 4 " + parallelTime / 1000000 + " ms ("
+                           + Runtime.getRuntime().availableProcessors() + " cores available)");
+
+        // every row is summed in the same order, so the results are bit-identical
+        boolean identical = true;
+        boolean signsMatch = true;
+        double[] labels = new double[queries.length];
+        model.predict(queries, labels);
+        for (int i = 0; i < queries.length; i++) {
+            identical &= sequential[i] == parallel[i];
+            signsMatch &= labels[i] == (sequential[i] >= 0 ? 1.0 : -1.0);
+        }
+        for (int i = 0; i < 2000; i++) {
+            signsMatch &= labels[i] == model.predict(queries[i]);
+        }
+        if (identical && signsMatch) {
+            System.out.println("PASS: Pooled decision values match the calling thread, and labels are their signs");
+        } else {
+            System.out.println("FAIL: Batch scoring differs (identical " + identical + ", signs " + signsMatch + ")");
+        }
+
+        // linear models score with their weight vector
+        SVMModel linear = new SVMModel(new double[] {1.0, -2.0}, 0.5).setParallelism(pool);
+        double[] values = linear.decisionFunction(new double[][] {{1.0, 1.0}, {3.0, 0.0}}, new double[3]);
+        if (values[0] == -0.5 && values[1] == 3.5 && values[2] == 0.0) {
+            System.out.println("PASS: Linear decision values are w·x + b, written into the given array");
+        } else {
+            System.out.println("FAIL: Linear decision values " + values[0] + ", " + values[1] + ", " + values[2]);
+        }
+
+        // float queries and float support vectors go through the same tiles, converted once per tile
+        float[][] floatX = new float[n][];
+        for (int i = 0; i < n; i++) {
+            floatX[i] = VectorOps.toFloat(X[i]);
+        }
+        float[][] floatQueries = new float[20000][];
+        for (int i = 0; i < floatQueries.length; i++) {
+            floatQueries[i] = VectorOps.toFloat(queries[i]);
+        }
+        SVMModel floatModel = new SVMModel(1.0, 500, new RBFKernel(0.1)).train(floatX, y).setParallelism(pool);
+        double[] floatBatch = floatModel.predict(floatQueries);
+        double[] roundedBatch = floatModel.predict(java.util.Arrays.copyOf(queries, floatQueries.length));
+        double[] widenedBatch = model.predict(floatQueries);
+        boolean floatMatches = true;
+        for (int i = 0; i < floatQueries.length; i++) {
+            floatMatches &= floatBatch[i] == floatModel.predict(floatQueries[i])
+                            && roundedBatch[i] == floatModel.predict(queries[i])
+                            && widenedBatch[i] == model.predict(floatQueries[i]);
+        }
+        if (floatMatches) {
+            System.out.println("PASS: Pooled float batch predictions match single-row predictions");
+        } else {
+            System.out.println("FAIL: Pooled float batch predictions differ from single-row predictions");
+        }
+        pool.shutdown();
+
+        try {
+            model.predict(queries, new double[10]);
+            System.out.println("FAIL: Short output array accepted");
+        } catch (IllegalArgumentException e) {
+            System.out.println("PASS: Short output array rejected");
+        }
+        try {
+            new SVMModel(1.0, 10, new RBFKernel(0.1)).decisionFunction(queries);
+            System.out.println("FAIL: Untrained model returned decision values");
+        } catch (IllegalStateException e) {
+            System.out.println("PASS: Untrained model rejected by decisionFunction");
+        }
+    }
+
+    /**
+     * Checks that two models predict (almost) the same labels
+     */
+    private static void checkAgreement(String name, SVMModel expected, SVMModel actual, double[][] X) {
+        double[] expectedPredictions = expected.predict(X);
+        double[] actualPredictions = actual.predict(X);
+        int agree = 0;
+        for (int i = 0; i < X.length; i++) {
+            if (expectedPredictions[i] == actualPredictions[i]) {
+                agree++;
+            }
+        }
+
+        if (agree >= X.length * 0.995) {
+            System.out.println("PASS: " + name + " predictions match (" + agree + "/" + X.length + ")");
+        } else {
+            System.out.println("FAIL: " + name + " predictions differ (" + agree + "/" + X.length + ")");
+        }
+    }
+
+    /**
+     * Checks the reason a model's training stopped
+     */
+    private static void checkReason(String name, SVMModel model, TerminationReason expected) {
+        if (model.getTerminationReason() == expected) {
+            System.out.println("PASS: " + name + " stopped with " + expected);
+        } else {
+            System.out.println("FAIL: " + name + " stopped with " + model.getTerminationReason() + ", expected " + expected);
+        }
+    }
+
+    /**
+     * Checks that a model separates the training blobs
+     */
+    private static void checkAccuracy(String name, SVMModel model, double[][] X, double[] y) {
+        checkAccuracyAtLeast(name, model, X, y, 0.95);
+    }
+
+    /**
+     * Checks that a model reaches the given training accuracy
+     */
+    private static void checkAccuracyAtLeast(String name, SVMModel model, double[][] X, double[] y, double minimum) {
+        int correct = 0;
+        double[] predictions = model.predict(X);
+        for (int i = 0; i < y.length; i++) {
+            if (predictions[i] == y[i]) {
+                correct++;
+            }
+        }
+        double accuracy = (double) correct / y.length;
+
+        if (accuracy >= minimum) {
+            System.out.println("PASS: " + name + " training accuracy " + String.format("%.4f", accuracy));
+        } else {
+            System.out.println("FAIL: " + name + " training accuracy " + String.format("%.4f", accuracy));
+        }
+    }
+
+    /**
+     * Benchmark batch scoring, which computes one kernel block per query tile and support vector
+     * tile, against scoring the same rows one at a time. The timings are information only; the
+     * check is that both give the same decision values.
+     */
+    private static void benchmarkTiledScoring(Random random) {
+        System.out.println("\n--- Benchmarking Tiled Scoring ---");
+
+        // heavily overlapping classes, so most rows end up as support vectors
+        int n = 5000;
+        int d = 50;
+        double[][] X = new double[n][d];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            y[i] = i % 2 == 0 ? 1.0 : -1.0;
+            for (int f = 0; f < d; f++) {
+                X[i][f] = y[i] * 0.1 + random.nextGaussian();
+            }
+        }
+        SVMModel model = new SVMModel(1.0, 500, new RBFKernel(1.0 / d)).train(X, y);
+
+        double[][] queries = new double[4000][d];
+        for (double[] q : queries) {
+            for (int f = 0; f < d; f++) {
+                q[f] = random.nextGaussian();
+            }
+        }
+
+        // best of a few rounds, so JIT warm-up does not decide the numbers
+        double[] tiled = new double[queries.length];
+        double[] perRow = new double[queries.length];
+        double[] single = new double[1];
+        long tiledTime = Long.MAX_VALUE;
+        long perRowTime = Long.MAX_VALUE;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            model.decisionFunction(queries, tiled);
+            tiledTime = Math.min(tiledTime, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < queries.length; i++) {
+                model.decisionFunction(new double[][] {queries[i]}, single);
+                perRow[i] = single[0];
+            }
+            perRowTime = Math.min(perRowTime, System.nanoTime() - start);
+        }
+        System.out.println(queries.length + " rows, " + d + " features, " + model.getNumSupportVectors()
+                           + " support vectors: tiled blocks " + tiledTime / 1000000 + " ms, one row at a time "
+                           + perRowTime / 1000000 + " ms");
+
+        boolean identical = true;
+        for (int i = 0; i < queries.length; i++) {
+            identical &= tiled[i] == perRow[i];
+        }
+        if (identical) {
+            System.out.println("PASS: Tiled scoring matches scoring one row at a time");
+        } else {
+            System.out.println("FAIL: Tiled scoring differs from scoring one row at a time");
+        }
+    }
+}
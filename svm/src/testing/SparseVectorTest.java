@@ -0,0 +1,202 @@
+package testing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import math.CSRMatrix;
+import math.SparseVector;
+import math.VectorOps;
+import model.DualCoordinateDescent;
+import model.LinearKernel;
+import model.PolynomialKernel;
+import model.RBFKernel;
+import model.SVMKernel;
+import model.SVMModel;
+
+/**
+ * Test class for sparse vectors, CSR matrices and the sparse kernel and training paths
+ */
+public class SparseVectorTest {
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+
+        testOperations(random);
+        testKernels(random);
+        testTraining(random);
+    }
+
+    /**
+     * Test that sparse dot products and distances match the dense ones
+     */
+    private static void testOperations(Random random) {
+        System.out.println("\n--- Testing Sparse Operations ---");
+
+        double worst = 0.0;
+        for (int trial = 0; trial < 200; trial++) {
+            double[] a = randomSparse(random, 500, 0.05);
+            double[] b = randomSparse(random, 500, 0.05);
+            SparseVector sa = SparseVector.fromDense(a);
+            SparseVector sb = SparseVector.fromDense(b);
+
+            double dot = VectorOps.dotProduct(a, b);
+            double distance = VectorOps.squaredDistance(a, b);
+            worst = Math.max(worst, Math.abs(VectorOps.dotProduct(sa, sb) - dot));
+            worst = Math.max(worst, Math.abs(VectorOps.dotProduct(sa, b) - dot));
+            worst = Math.max(worst, Math.abs(VectorOps.squaredDistance(sa, sb) - distance));
+            worst = Math.max(worst, Math.abs(VectorOps.squaredDistance(sa, b, VectorOps.dotProduct(b, b)) - distance));
+            worst = Math.max(worst, Math.abs(VectorOps.squaredNorm(sa) - VectorOps.dotProduct(a, a)));
+        }
+        if (worst <= 1e-10) {
+            System.out.println("PASS: Sparse operations match dense operations");
+        } else {
+            System.out.println("FAIL: Sparse operations differ by " + worst);
+        }
+
+        double[][] dense = new double[50][];
+        List<SparseVector> rows = new ArrayList<>();
+        for (int i = 0; i < dense.length; i++) {
+            dense[i] = randomSparse(random, 80, 0.1);
+            rows.add(SparseVector.fromDense(dense[i]));
+        }
+        CSRMatrix fromDense = CSRMatrix.fromDense(dense);
+        CSRMatrix fromRows = CSRMatrix.fromRows(80, rows);
+        boolean same = fromDense.getNonZeroCount() == fromRows.getNonZeroCount();
+        double[][] back = fromRows.toDense();
+        for (int i = 0; i < dense.length; i++) {
+            same &= Arrays.equals(back[i], dense[i]);
+            same &= Arrays.equals(fromDense.getRow(i).toDense(), dense[i]);
+        }
+        if (same) {
+            System.out.println("PASS: CSR matrices round-trip dense rows");
+        } else {
+            System.out.println("FAIL: CSR matrices lose entries");
+        }
+
+        try {
+            new SparseVector(10, new int[] {3, 2}, new double[] {1.0, 1.0});
+            System.out.println("FAIL: Unsorted indices accepted");
+        } catch (IllegalArgumentException e) {
+            System.out.println("PASS: Unsorted indices rejected");
+        }
+    }
+
+    /**
+     * Test that the sparse and mixed kernel paths match the dense kernels
+     */
+    private static void testKernels(Random random) {
+        System.out.println("\n--- Testing Sparse Kernels ---");
+
+        double[][] dense = new double[100][];
+        for (int i = 0; i < dense.length; i++) {
+            dense[i] = randomSparse(random, 300, 0.05);
+        }
+        CSRMatrix X = CSRMatrix.fromDense(dense);
+        SparseVector x = X.getRow(0);
+
+        SVMKernel[] kernels = {new LinearKernel(), new RBFKernel(0.1), new PolynomialKernel(1.0, 3)};
+        for (SVMKernel kernel : kernels) {
+            double[] sparseRow = new double[dense.length];
+            double[] mixedRow = new double[dense.length];
+            kernel.computeRow(x, X, sparseRow);
+            kernel.computeRow(x, dense, mixedRow);
+
+            double worst = 0.0;
+            for (int k = 0; k < dense.length; k++) {
+                double expected = kernel.compute(dense[k], dense[0]);
+                double scale = Math.max(1.0, Math.abs(expected));
+                worst = Math.max(worst, Math.abs(sparseRow[k] - expected) / scale);
+                worst = Math.max(worst, Math.abs(mixedRow[k] - expected) / scale);
+                worst = Math.max(worst, Math.abs(kernel.compute(x, dense[k]) - expected) / scale);
+            }
+            if (worst <= 1e-12) {
+                System.out.println("PASS: " + kernel.getName() + " sparse paths match the dense kernel");
+            } else {
+                System.out.println("FAIL: " + kernel.getName() + " sparse paths differ by " + worst);
+            }
+        }
+    }
+
+    /**
+     * Test that training on CSR rows gives the same model as dense training, and compare memory
+     * and time on wide, mostly-zero data
+     */
+    private static void testTraining(Random random) {
+        System.out.println("\n--- Testing Sparse Training ---");
+
+        // 5000 rows with 2000 columns and about 1% non-zeros
+        int n = 5000;
+        int d = 2000;
+        double[] truth = new double[d];
+        for (int f = 0; f < d; f++) {
+            truth[f] = random.nextGaussian();
+        }
+        double[][] dense = new double[n][];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            dense[i] = randomSparse(random, d, 0.01);
+            y[i] = VectorOps.dotProduct(dense[i], truth) >= 0 ? 1.0 : -1.0;
+        }
+        CSRMatrix X = CSRMatrix.fromDense(dense);
+
+        DualCoordinateDescent denseSolver = new DualCoordinateDescent(1.0, 1000);
+        DualCoordinateDescent sparseSolver = new DualCoordinateDescent(1.0, 1000);
+        denseSolver.setSeed(7);
+        sparseSolver.setSeed(7);
+
+        long start = System.nanoTime();
+        SVMModel denseModel = new SVMModel(denseSolver).train(dense, y);
+        long denseTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        SVMModel sparseModel = new SVMModel(sparseSolver).train(X, y);
+        long sparseTime = System.nanoTime() - start;
+
+        double[] densePredictions = denseModel.predict(dense);
+        double[] sparsePredictions = sparseModel.predict(X);
+        int agree = 0;
+        int correct = 0;
+        for (int i = 0; i < n; i++) {
+            if (densePredictions[i] == sparsePredictions[i]) {
+                agree++;
+            }
+            if (sparsePredictions[i] == y[i]) {
+                correct++;
+            }
+        }
+        if (agree == n) {
+            System.out.println("PASS: Sparse training matches dense training (accuracy " + (double) correct / n + ")");
+        } else {
+            System.out.println("FAIL: Sparse and dense models disagree on " + (n - agree) + " rows");
+        }
+
+        // kernel predictions against dense support vectors through the mixed path
+        SVMModel rbf = new SVMModel(1.0, 200, new RBFKernel(0.5)).train(Arrays.copyOf(dense, 500), Arrays.copyOf(y, 500));
+        double[] rbfDense = rbf.predict(Arrays.copyOf(dense, 500));
+        boolean match = true;
+        for (int i = 0; i < 500; i++) {
+            match &= rbf.predict(X.getRow(i)) == rbfDense[i];
+        }
+        if (match) {
+            System.out.println("PASS: Kernel model predicts sparse rows like dense rows");
+        } else {
+            System.out.println("FAIL: Kernel model predicts sparse rows differently");
+        }
+
+        long denseBytes = (long) n * d * 8;
+        long sparseBytes = (long) X.getNonZeroCount() * 12 + (n + 1) * 4L;
+        System.out.println("Storage: dense " + denseBytes / 1024 + " KB, CSR " + sparseBytes / 1024 + " KB; training: dense "
+                           + denseTime / 1000000 + " ms, sparse " + sparseTime / 1000000 + " ms");
+    }
+
+    private static double[] randomSparse(Random random, int length, double density) {
+        double[] v = new double[length];
+        for (int i = 0; i < length; i++) {
+            if (random.nextDouble() < density) {
+                v[i] = random.nextGaussian();
+            }
+        }
+        return v;
+    }
+}
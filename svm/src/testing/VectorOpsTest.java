@@ -0,0 +1,290 @@
+package testing;
+
+import java.util.Random;
+
+import math.MatrixOps;
+import math.VectorOps;
+import model.LinearKernel;
+import model.PolynomialKernel;
+import model.RBFKernel;
+import model.SVMKernel;
+
+/**
+ * Test class for the VectorOps inner loops (scalar or Vector API backend)
+ */
+public class VectorOpsTest {
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        System.out.println("VectorOps backend: " + VectorOps.getBackendName());
+
+        testAgainstScalar(random);
+        testKernelRows(random);
+        testKernelBlocks(random);
+        benchmark(random);
+    }
+
+    /**
+     * Test that the selected backend matches plain loops on every vector length up to 300
+     */
+    private static void testAgainstScalar(Random random) {
+        System.out.println("\n--- Testing Backend Against Scalar Loops ---");
+
+        double worstDot = 0.0;
+        double worstDistance = 0.0;
+        boolean exact = true;
+        for (int length = 0; length <= 300; length++) {
+            double[] a = randomVector(random, length);
+            double[] b = randomVector(random, length);
+
+            double dot = 0.0;
+            double distance = 0.0;
+            double magnitude = 0.0;
+            for (int i = 0; i < length; i++) {
+                dot += a[i] * b[i];
+                distance += (a[i] - b[i]) * (a[i] - b[i]);
+                magnitude += Math.abs(a[i] * b[i]) + (a[i] - b[i]) * (a[i] - b[i]);
+            }
+
+            double dotError = Math.abs(VectorOps.dotProduct(a, b) - dot);
+            double distanceError = Math.abs(VectorOps.squaredDistance(a, b) - distance);
+            exact &= dotError == 0 && distanceError == 0;
+            if (magnitude > 0) {
+                worstDot = Math.max(worstDot, dotError / magnitude);
+                worstDistance = Math.max(worstDistance, distanceError / magnitude);
+            }
+        }
+
+        System.out.println("Largest relative error: dot " + worstDot + ", squared distance " + worstDistance
+                           + (exact ? " (bit-for-bit identical)" : ""));
+        if (worstDot <= 1e-13 && worstDistance <= 1e-13) {
+            System.out.println("PASS: Backend matches the scalar loops");
+        } else {
+            System.out.println("FAIL: Backend differs from the scalar loops");
+        }
+
+        try {
+            VectorOps.squaredDistance(new double[3], new double[4]);
+            System.out.println("FAIL: Mismatched lengths accepted");
+        } catch (IllegalArgumentException e) {
+            System.out.println("PASS: Mismatched lengths rejected");
+        }
+
+        try {
+            VectorOps.dotProduct(new float[3], new float[8], 6);
+            System.out.println("FAIL: Row past the end of the data accepted");
+        } catch (IllegalArgumentException e) {
+            System.out.println("PASS: Row past the end of the data rejected");
+        }
+    }
+
+    /**
+     * Test that the batch kernel rows match pairwise kernel values
+     */
+    private static void testKernelRows(Random random) {
+        System.out.println("\n--- Testing Kernel Rows ---");
+
+        // enough features for the RBF norm expansion, and a partial group of four rows
+        double[][] X = new double[103][];
+        for (int k = 0; k < X.length; k++) {
+            X[k] = randomVector(random, 30);
+        }
+        double[] x = randomVector(random, 30);
+        int[] selected = {5, 2, 99, 40, 41, 102, 7};
+
+        SVMKernel[] kernels = {new LinearKernel(), new RBFKernel(0.01), new PolynomialKernel(1.0, 3)};
+        for (SVMKernel kernel : kernels) {
+            double[] row = new double[X.length];
+            kernel.computeRow(x, X, row);
+            double[] selectedRow = new double[X.length];
+            kernel.computeRow(x, X, selected, 0, selected.length, selectedRow);
+
+            // RBF rows expand the distance through cached norms, so they match to rounding
+            boolean match = true;
+            for (int k = 0; k < X.length; k++) {
+                double expected = kernel.compute(X[k], x);
+                match &= kernel instanceof RBFKernel ? Math.abs(row[k] - expected) <= 1e-12 : row[k] == expected;
+            }
+            for (int k : selected) {
+                match &= selectedRow[k] == row[k];
+            }
+            if (match) {
+                System.out.println("PASS: " + kernel.getName() + " row matches pairwise values");
+            } else {
+                System.out.println("FAIL: " + kernel.getName() + " row differs from pairwise values");
+            }
+        }
+    }
+
+    /**
+     * Test that tiled kernel blocks match pairwise kernel values, and time them
+     */
+    private static void testKernelBlocks(Random random) {
+        System.out.println("\n--- Testing Kernel Blocks ---");
+
+        // sizes that leave partial tiles and partial groups of four
+        double[][] Xa = new double[131][];
+        double[][] Xb = new double[203][];
+        for (int i = 0; i < Xa.length; i++) {
+            Xa[i] = randomVector(random, 10);
+        }
+        for (int j = 0; j < Xb.length; j++) {
+            Xb[j] = randomVector(random, 10);
+        }
+
+        double[][] dots = new double[Xa.length][Xb.length];
+        MatrixOps.multiplyTransposed(Xa, Xb, dots);
+        double worst = 0.0;
+        for (int i = 0; i < Xa.length; i++) {
+            for (int j = 0; j < Xb.length; j++) {
+                worst = Math.max(worst, Math.abs(dots[i][j] - VectorOps.dotProduct(Xa[i], Xb[j])));
+            }
+        }
+        if (worst <= 1e-12) {
+            System.out.println("PASS: Tiled multiply matches dot products");
+        } else {
+            System.out.println("FAIL: Tiled multiply differs by " + worst);
+        }
+
+        SVMKernel[] kernels = {new LinearKernel(), new RBFKernel(0.05), new PolynomialKernel(1.0, 3)};
+        for (SVMKernel kernel : kernels) {
+            double[][] block = new double[Xa.length][Xb.length];
+            kernel.computeBlock(Xa, Xb, block);
+            worst = 0.0;
+            for (int i = 0; i < Xa.length; i++) {
+                for (int j = 0; j < Xb.length; j++) {
+                    double expected = kernel.compute(Xa[i], Xb[j]);
+                    worst = Math.max(worst, Math.abs(block[i][j] - expected) / Math.max(1.0, Math.abs(expected)));
+                }
+            }
+            if (worst <= 1e-12) {
+                System.out.println("PASS: " + kernel.getName() + " block matches pairwise values");
+            } else {
+                System.out.println("FAIL: " + kernel.getName() + " block differs by " + worst);
+            }
+            
+            // a block over row ranges is the matching part of the full block
+            double[][] part = new double[40][50];
+            kernel.computeBlock(Xa, 70, 110, Xb, 100, 150, part);
+            boolean same = true;
+            for (int i = 0; i < 40; i++) {
+                for (int j = 0; j < 50; j++) {
+                    same &= part[i][j] == block[70 + i][100 + j];
+                }
+            }
+            if (same) {
+                System.out.println("PASS: " + kernel.getName() + " range block matches the full block");
+            } else {
+                System.out.println("FAIL: " + kernel.getName() + " range block differs from the full block");
+            }
+        }
+
+        // RBF block of 2000 x 2000 rows with 100 features, against one distance loop per pair
+        // (with only a few features the time goes to exp rather than the distances)
+        double[][] X = new double[2000][];
+        for (int k = 0; k < X.length; k++) {
+            X[k] = randomVector(random, 100);
+        }
+        RBFKernel rbf = new RBFKernel(0.05);
+        // best of several rounds, so both loops are compiled before they are compared
+        double[][] block = new double[X.length][X.length];
+        long blockTime = Long.MAX_VALUE;
+        long pairTime = Long.MAX_VALUE;
+        for (int round = 0; round < 6; round++) {
+            long start = System.nanoTime();
+            rbf.computeBlock(X, X, block);
+            blockTime = Math.min(blockTime, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < X.length; i++) {
+                for (int j = 0; j < X.length; j++) {
+                    block[i][j] = rbf.compute(X[i], X[j]);
+                }
+            }
+            pairTime = Math.min(pairTime, System.nanoTime() - start);
+        }
+
+        // timings depend on the machine and the backend, so they are only reported
+        System.out.println("RBF 2000 x 2000 block, 100 features (" + VectorOps.getBackendName() + "): tiled "
+                           + blockTime / 1000000 + " ms, pairwise " + pairTime / 1000000 + " ms");
+
+        // the kernel columns of SMO: one row at a time against the whole training set
+        double[] row = new double[X.length];
+        long rowTime = Long.MAX_VALUE;
+        long distanceTime = Long.MAX_VALUE;
+        for (int round = 0; round < 6; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < X.length; i++) {
+                rbf.computeRow(X[i], X, row);
+            }
+            rowTime = Math.min(rowTime, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < X.length; i++) {
+                for (int k = 0; k < X.length; k++) {
+                    row[k] = Math.exp(-0.05 * VectorOps.squaredDistance(X[i], X[k]));
+                }
+            }
+            distanceTime = Math.min(distanceTime, System.nanoTime() - start);
+        }
+        System.out.println("RBF 2000 rows of 2000 entries, 100 features: cached norms " + rowTime / 1000000
+                           + " ms, distance loop " + distanceTime / 1000000 + " ms");
+    }
+
+    /**
+     * Times the selected backend against a plain loop for short and long vectors
+     */
+    private static void benchmark(Random random) {
+        System.out.println("\n--- Benchmark ---");
+
+        for (int length : new int[] {10, 256}) {
+            double[][] rows = new double[1000][];
+            for (int k = 0; k < rows.length; k++) {
+                rows[k] = randomVector(random, length);
+            }
+            double[] x = randomVector(random, length);
+            int repeats = 2000000 / length;
+
+            // warm up both loops before timing
+            double sink = 0.0;
+            for (int round = 0; round < 2; round++) {
+                long start = System.nanoTime();
+                for (int r = 0; r < repeats; r++) {
+                    for (double[] row : rows) {
+                        sink += VectorOps.squaredDistance(x, row);
+                    }
+                }
+                long backendTime = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int r = 0; r < repeats; r++) {
+                    for (double[] row : rows) {
+                        double sum = 0.0;
+                        for (int i = 0; i < length; i++) {
+                            double diff = x[i] - row[i];
+                            sum += diff * diff;
+                        }
+                        sink += sum;
+                    }
+                }
+                long scalarTime = System.nanoTime() - start;
+
+                if (round == 1) {
+                    System.out.println("Squared distance, length " + length + ": " + VectorOps.getBackendName() + " "
+                                       + backendTime / 1000000 + " ms, plain loop " + scalarTime / 1000000 + " ms");
+                }
+            }
+            if (Double.isNaN(sink)) {
+                System.out.println("unreachable");
+            }
+        }
+    }
+
+    private static double[] randomVector(Random random, int length) {
+        double[] v = new double[length];
+        for (int i = 0; i < length; i++) {
+            v[i] = random.nextGaussian();
+        }
+        return v;
+    }
+}
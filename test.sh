@@ -7,10 +7,20 @@ echo "Building and running SVM tests..."
 mkdir -p target
 
 # Compile all Java files except MetricsTesting (because i don't have junit deps installed yet oops)
-find svm/src -name "*.java" ! -name "MetricsTesting.java" -type f | xargs javac -d target
+# (the Vector API sources in math/simd are compiled separately below)
+find svm/src -name "*.java" ! -name "MetricsTesting.java" ! -path "*/math/simd/*" -type f | xargs javac -d target
+
+status=$?
+
+# Vector API kernels need JDK 16+; without them VectorOps uses its scalar loops
+JAVA_OPTS=""
+if [ $status -eq 0 ] && javac --add-modules jdk.incubator.vector -cp target -d target svm/src/math/simd/*.java 2>/dev/null; then
+    echo "Vector API kernels enabled."
+    JAVA_OPTS="--add-modules jdk.incubator.vector"
+fi
 
 # Check if compilation was successful
-if [ $? -eq 0 ]; then
+if [ $status -eq 0 ]; then
     echo "Compilation complete."
     
     # Ask which test to run
@@ -18,27 +28,83 @@ if [ $? -eq 0 ]; then
     echo "Available tests:"
     echo "1. DataPreprocessorTest"
     echo "2. DataSplitterTest"
-    echo "3. All tests"
+    echo "3. SMOOptimizerTest"
+    echo "4. LinearSolverTest"
+    echo "5. VectorOpsTest"
+    echo "6. FastExpTest"
+    echo "7. FeatureMapTest"
+    echo "8. SparseVectorTest"
+    echo "9. FloatStorageTest"
+    echo "10. All tests"
     echo ""
     read -p "Enter test number to run (or press Enter to exit): " choice
     
     case $choice in
         1)
             echo "Running DataPreprocessorTest..."
-            java -cp target testing.DataPreprocessorTest
+            java $JAVA_OPTS -cp target testing.DataPreprocessorTest
             ;;
         2)
             echo "Running DataSplitterTest..."
-            java -cp target testing.DataSplitterTest
+            java $JAVA_OPTS -cp target testing.DataSplitterTest
             ;;
         3)
+            echo "Running SMOOptimizerTest..."
+            java $JAVA_OPTS -cp target testing.SMOOptimizerTest
+            ;;
+        4)
+            echo "Running LinearSolverTest..."
+            java $JAVA_OPTS -cp target testing.LinearSolverTest
+            ;;
+        5)
+            echo "Running VectorOpsTest..."
+            java $JAVA_OPTS -cp target testing.VectorOpsTest
+            ;;
+        6)
+            echo "Running FastExpTest..."
+            java $JAVA_OPTS -cp target testing.FastExpTest
+            ;;
+        7)
+            echo "Running FeatureMapTest..."
+            java $JAVA_OPTS -cp target testing.FeatureMapTest
+            ;;
+        8)
+            echo "Running SparseVectorTest..."
+            java $JAVA_OPTS -cp target testing.SparseVectorTest
+            ;;
+        9)
+            echo "Running FloatStorageTest..."
+            java $JAVA_OPTS -cp target testing.FloatStorageTest
+            ;;
+        10)
             echo "Running all tests..."
             echo ""
             echo "=== DataPreprocessorTest ==="
-            java -cp target testing.DataPreprocessorTest
+            java $JAVA_OPTS -cp target testing.DataPreprocessorTest
             echo ""
             echo "=== DataSplitterTest ==="
-            java -cp target testing.DataSplitterTest
+            java $JAVA_OPTS -cp target testing.DataSplitterTest
+            echo ""
+            echo "=== SMOOptimizerTest ==="
+            java $JAVA_OPTS -cp target testing.SMOOptimizerTest
+            echo ""
+            echo "=== LinearSolverTest ==="
+            java $JAVA_OPTS -cp target testing.LinearSolverTest
+            echo ""
+            echo "=== VectorOpsTest ==="
+            java $JAVA_OPTS -cp target testing.VectorOpsTest
+            echo ""
+            echo "=== FastExpTest ==="
+            java $JAVA_OPTS -cp target testing.FastExpTest
+            echo ""
+            echo "=== FeatureMapTest ==="
+            java $JAVA_OPTS -cp target testing.FeatureMapTest
+            echo ""
+            echo "=== SparseVectorTest ==="
+            java $JAVA_OPTS -cp target testing.SparseVectorTest
+            echo ""
+            echo "=== FloatStorageTest ==="
+            java $JAVA_OPTS -cp target testing.FloatStorageTest
             ;;
         *)
             echo "No test selected. Exiting."